@@ -0,0 +1,98 @@
+package com.diedev.firex.benchmarks;
+
+import com.diedev.firex.models.CartItem;
+import com.diedev.firex.util.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totales de carrito: dos streams de BigDecimal (implementación anterior) contra una pasada sumando
+ * centavos en un long (Money). Con -prof gc se ve la asignación por operación (gc.alloc.rate.norm).
+ * mvn -Pbenchmarks test-compile exec:java -Dexec.args="CartTotalsBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartTotalsBenchmark {
+
+    @Param({"5", "50"})
+    private int items;
+
+    private List<CartItem> cart;
+    private BigDecimal[] prices;
+
+    @Setup
+    public void setup() {
+        cart = new ArrayList<>(items);
+        prices = new BigDecimal[items];
+        for (int i = 0; i < items; i++) {
+            // Precios típicos del catálogo: pesos enteros, algunos con centavos
+            BigDecimal price = i % 5 == 0 ? new BigDecimal("18990.50") : BigDecimal.valueOf(45_000L + i * 1_250L);
+            int quantity = 1 + i % 4;
+            prices[i] = price;
+            cart.add(new CartItem("p" + i, "Producto " + i, price, quantity, price.multiply(BigDecimal.valueOf(quantity))));
+        }
+    }
+
+    @Benchmark
+    public void bigDecimalStreams(Blackhole blackhole) {
+        int totalItems = cart.stream()
+                .mapToInt(CartItem::getQuantity)
+                .sum();
+        BigDecimal totalPrice = cart.stream()
+                .map(CartItem::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        blackhole.consume(totalItems);
+        blackhole.consume(totalPrice);
+    }
+
+    @Benchmark
+    public void moneySinglePass(Blackhole blackhole) {
+        int totalItems = 0;
+        long totalMinor = 0;
+        for (CartItem item : cart) {
+            totalItems += item.getQuantity();
+            totalMinor = Math.addExact(totalMinor, Money.toMinor(item.getSubtotal()));
+        }
+
+        blackhole.consume(totalItems);
+        blackhole.consume(Money.toBigDecimal(totalMinor));
+    }
+
+    @Benchmark
+    public void bigDecimalSubtotals(Blackhole blackhole) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items; i++) {
+            total = total.add(prices[i].multiply(BigDecimal.valueOf(cart.get(i).getQuantity())));
+        }
+        blackhole.consume(total);
+    }
+
+    @Benchmark
+    public void moneySubtotals(Blackhole blackhole) {
+        long total = 0;
+        for (int i = 0; i < items; i++) {
+            total = Math.addExact(total, Money.subtotal(Money.toMinor(prices[i]), cart.get(i).getQuantity()));
+        }
+        blackhole.consume(Money.toBigDecimal(total));
+    }
+}
@@ -0,0 +1,174 @@
+package com.diedev.firex.analytics;
+
+import com.diedev.firex.enums.OrderStatus;
+import com.diedev.firex.enums.SalesPeriod;
+import com.diedev.firex.models.Order;
+import com.diedev.firex.models.OrderItem;
+import com.diedev.firex.models.SalesLine;
+import com.diedev.firex.models.SalesRollup;
+import com.diedev.firex.util.Money;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Variación de un acumulado de ventas (un periodo), sumada en longs (centavos, ver Money).
+ * Sirve tanto para los $inc incrementales como para armar el documento completo al reconstruir.
+ */
+final class SalesRollupDelta {
+
+    static final String UNCATEGORIZED = "sin-categoria";
+
+    private final SalesPeriod period;
+    private final LocalDate periodStart;
+
+    private long orders;
+    private long units;
+    private long revenueMinor;
+    private final Map<String, Long> statusCounts = new HashMap<>();
+    private final Map<String, Line> products = new HashMap<>();
+    private final Map<String, Line> categories = new HashMap<>();
+
+    SalesRollupDelta(SalesPeriod period, LocalDate periodStart) {
+        this.period = period;
+        this.periodStart = periodStart;
+    }
+
+    String id() {
+        return period.rollupId(periodStart);
+    }
+
+    /**
+     * Suma (sign = 1) o resta (sign = -1) un pedido en el conteo por estado
+     */
+    void addStatus(OrderStatus status, int sign) {
+        statusCounts.merge(status.name(), (long) sign, Long::sum);
+    }
+
+    /**
+     * Suma (sign = 1) o resta (sign = -1) las ventas de un pedido
+     *
+     * @param categoryOf categoryId de cada item (el guardado en el pedido o el actual del producto)
+     * @param categoryNames Nombre de cada categoría
+     */
+    void addSales(Order order, int sign, Function<OrderItem, String> categoryOf, Map<String, String> categoryNames) {
+        orders += sign;
+        revenueMinor = Math.addExact(revenueMinor, sign * Money.toMinor(order.getTotalAmount()));
+        for (OrderItem item : order.getItems()) {
+            long quantity = (long) sign * item.getQuantity();
+            long subtotal = sign * Money.toMinor(item.getSubtotal());
+            units += quantity;
+
+            products.computeIfAbsent(item.getProductId(), id -> new Line()).add(item.getProductName(), quantity, subtotal);
+
+            String categoryId = categoryOf.apply(item);
+            categories.computeIfAbsent(categoryId, id -> new Line())
+                    .add(categoryNames.get(categoryId), quantity, subtotal);
+        }
+    }
+
+    /**
+     * Acumula otra variación del mismo periodo (ej: al reponer un lote que no se pudo escribir)
+     */
+    void merge(SalesRollupDelta other) {
+        orders += other.orders;
+        units += other.units;
+        revenueMinor = Math.addExact(revenueMinor, other.revenueMinor);
+        other.statusCounts.forEach((status, count) -> statusCounts.merge(status, count, Long::sum));
+        other.products.forEach((id, line) -> products.computeIfAbsent(id, key -> new Line()).merge(line));
+        other.categories.forEach((id, line) -> categories.computeIfAbsent(id, key -> new Line()).merge(line));
+    }
+
+    /**
+     * Update incremental: solo $inc de lo que cambió (y los nombres), crea el documento si no existe
+     */
+    Update toIncrement(LocalDateTime now) {
+        Update update = new Update()
+                .setOnInsert("period", period)
+                .setOnInsert("periodKey", period.key(periodStart))
+                .setOnInsert("periodStart", periodStart)
+                .set("updatedAt", now);
+        if (orders != 0) {
+            update.inc("orders", orders);
+        }
+        if (units != 0) {
+            update.inc("units", units);
+        }
+        if (revenueMinor != 0) {
+            update.inc("revenue", Money.toDecimal128(revenueMinor));
+        }
+        statusCounts.forEach((status, count) -> {
+            if (count != 0) {
+                update.inc("statusCounts." + status, count);
+            }
+        });
+        incrementLines(update, "products", products);
+        incrementLines(update, "categories", categories);
+        return update;
+    }
+
+    /**
+     * Documento completo (reconstrucción desde cero)
+     */
+    SalesRollup toRollup(LocalDateTime now) {
+        SalesRollup rollup = new SalesRollup();
+        rollup.setId(id());
+        rollup.setPeriod(period);
+        rollup.setPeriodKey(period.key(periodStart));
+        rollup.setPeriodStart(periodStart);
+        rollup.setOrders(orders);
+        rollup.setUnits(units);
+        rollup.setRevenue(Money.toBigDecimal(revenueMinor));
+        rollup.setStatusCounts(new HashMap<>(statusCounts));
+        rollup.setProducts(toLines(products));
+        rollup.setCategories(toLines(categories));
+        rollup.setUpdatedAt(now);
+        return rollup;
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private static void incrementLines(Update update, String field, Map<String, Line> lines) {
+        lines.forEach((id, line) -> {
+            String prefix = field + "." + id + ".";
+            if (line.name != null) {
+                update.set(prefix + "name", line.name);
+            }
+            if (line.units != 0) {
+                update.inc(prefix + "units", line.units);
+            }
+            if (line.revenueMinor != 0) {
+                update.inc(prefix + "revenue", Money.toDecimal128(line.revenueMinor));
+            }
+        });
+    }
+
+    private static Map<String, SalesLine> toLines(Map<String, Line> lines) {
+        Map<String, SalesLine> result = new HashMap<>(lines.size() * 2);
+        lines.forEach((id, line) ->
+                result.put(id, new SalesLine(line.name, line.units, Money.toBigDecimal(line.revenueMinor))));
+        return result;
+    }
+
+    private static final class Line {
+        private String name;
+        private long units;
+        private long revenueMinor;
+
+        void add(String name, long units, long revenueMinor) {
+            if (name != null) {
+                this.name = name;
+            }
+            this.units += units;
+            this.revenueMinor = Math.addExact(this.revenueMinor, revenueMinor);
+        }
+
+        void merge(Line other) {
+            add(other.name, other.units, other.revenueMinor);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package com.diedev.firex.analytics;
+
+import com.diedev.firex.catalog.CategoryCache;
+import com.diedev.firex.catalog.ProductCatalogCache;
+import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.dto.response.SalesRollupStatsResponse;
+import com.diedev.firex.enums.OrderStatus;
+import com.diedev.firex.enums.SalesPeriod;
+import com.diedev.firex.events.OrderCreatedEvent;
+import com.diedev.firex.events.OrderStatusChangedEvent;
+import com.diedev.firex.models.Categoria;
+import com.diedev.firex.models.Order;
+import com.diedev.firex.models.OrderItem;
+import com.diedev.firex.models.SalesRollup;
+import com.diedev.firex.repositories.SalesRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Mantiene los acumulados de ventas por día, semana y mes (colección sales_rollups).
+ * Cada pedido creado o que cambia de estado suma o resta su variación en memoria; cada
+ * flush-interval se escriben todas las variaciones pendientes en un solo bulkWrite de upserts con $inc
+ * (muchos pedidos del mismo día se convierten en una escritura por documento).
+ * La reconstrucción recorre todos los pedidos con un cursor y reemplaza los acumulados: corrige
+ * cualquier desvío (ej: variaciones pendientes que se perdieron al reiniciar la aplicación).
+ * Mientras dura, los cambios de estado de los pedidos que recorre se guardan por pedido (estado al
+ * corte y estado actual) en vez de como variación, para no contarlos dos veces.
+ */
+@Slf4j
+@Component
+public class SalesRollupJob {
+
+    private static final SalesPeriod[] PERIODS = SalesPeriod.values();
+    /** Margen entre la escritura de un pedido y la publicación de su evento */
+    private static final Duration PUBLISH_GRACE = Duration.ofMinutes(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final SalesRollupRepository rollupRepository;
+    private final ProductCatalogCache catalogCache;
+    private final CategoryCache categoryCache;
+    private final boolean enabled;
+
+    // Variaciones por _id de acumulado; se reemplaza el mapa completo en cada flush
+    private Map<String, SalesRollupDelta> pending = new HashMap<>();
+    private final Object pendingLock = new Object();
+    // Cambios de estado durante la reconstrucción por id de pedido (null si no hay una en curso)
+    private Map<String, RebuildChange> rebuildChanges;
+    private LocalDateTime rebuildCutoff;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder documentsWritten = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile long lastFlushMillis;
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildOrders;
+    private volatile long lastRebuildDocuments;
+    private volatile long lastRebuildMillis;
+    private volatile LocalDateTime lastRebuildAt;
+
+    public SalesRollupJob(MongoTemplate mongoTemplate,
+                          SalesRollupRepository rollupRepository,
+                          ProductCatalogCache catalogCache,
+                          CategoryCache categoryCache,
+                          @Value("${firex.sales.rollups.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.rollupRepository = rollupRepository;
+        this.catalogCache = catalogCache;
+        this.categoryCache = categoryCache;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Order order = event.getOrder();
+        if (coveredByRebuild(order)) {
+            // El recorrido en curso ya lo cuenta
+            events.increment();
+            return;
+        }
+        boolean sale = countsAsSale(order.getStatus());
+        Function<OrderItem, String> categoryOf = sale ? categoriesOf(order) : null;
+        Map<String, String> categoryNames = sale ? categoryNames() : null;
+        record(order, delta -> {
+            delta.addStatus(order.getStatus(), 1);
+            if (sale) {
+                delta.addSales(order, 1, categoryOf, categoryNames);
+            }
+        });
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (trackRebuildChange(event)) {
+            events.increment();
+            return;
+        }
+        recordChange(event.getOrder(), event.getPreviousStatus(), event.getNewStatus());
+    }
+
+    /**
+     * Escribe las variaciones pendientes (un upsert con $inc por acumulado, en un solo bulkWrite).
+     * Mientras se reconstruye no se escribe: las variaciones se acumulan y se aplican después
+     */
+    @Scheduled(fixedDelayString = "${firex.sales.rollups.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled || rebuilding.get()) {
+            return;
+        }
+
+        Map<String, SalesRollupDelta> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class);
+            batch.forEach((id, delta) -> bulk.upsert(Query.query(Criteria.where("_id").is(id)), delta.toIncrement(now)));
+            bulk.execute();
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("No se pudieron escribir {} acumulados de ventas, se reintentan: {}", batch.size(), e.getMessage());
+            requeue(batch);
+            return;
+        }
+
+        lastFlushMillis = System.currentTimeMillis() - start;
+        flushes.increment();
+        documentsWritten.add(batch.size());
+        log.debug("Acumulados de ventas escritos: {} ({} ms)", batch.size(), lastFlushMillis);
+    }
+
+    /**
+     * Al arrancar, si no hay acumulados pero sí pedidos (primer despliegue), se construyen.
+     * En segundo plano para no retrasar el arranque
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            if (rollupRepository.count() == 0 && mongoTemplate.estimatedCount(Order.class) > 0) {
+                rebuild();
+            }
+        }).exceptionally(ex -> {
+            log.warn("No se pudieron preparar los acumulados de ventas: {}", ex.getMessage());
+            return null;
+        });
+    }
+
+    @Scheduled(cron = "${firex.sales.rollups.rebuild-cron:0 30 3 * * SUN}")
+    public void scheduledRebuild() {
+        if (!enabled) {
+            return;
+        }
+        // Fuera del hilo del scheduler: recorre todos los pedidos
+        rebuildAsync();
+    }
+
+    /**
+     * Reconstrucción en segundo plano
+     *
+     * @return false si ya hay una en curso
+     */
+    public boolean rebuildAsync() {
+        if (rebuilding.get()) {
+            return false;
+        }
+        CompletableFuture.runAsync(this::rebuild).exceptionally(ex -> {
+            log.warn("No se pudieron reconstruir los acumulados de ventas: {}", ex.getMessage());
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Reconstruye todos los acumulados desde los pedidos (un recorrido con cursor, sin cargarlos todos)
+     * y reemplaza los documentos; los acumulados de periodos sin pedidos se eliminan.
+     * Las variaciones pendientes al empezar se descartan porque sus pedidos ya están en Mongo.
+     * Recorrido y eventos no se solapan:
+     * - Los pedidos creados antes del corte los cuenta el recorrido; su evento de creación se ignora
+     * - Sus cambios de estado durante el recorrido se guardan por pedido: el recorrido cuenta el estado
+     *   al corte (aunque el cursor lea el pedido ya cambiado) y al terminar se aplica el cambio una sola vez
+     * - Un pedido modificado poco antes del corte cuyo evento aún no llegó se cuenta al final del recorrido
+     * - Los pedidos creados después del corte llegan como variaciones y se escriben al terminar
+     * Solo un evento publicado más de PUBLISH_GRACE después de su escritura podría contarse dos veces.
+     *
+     * @return Cantidad de pedidos procesados (-1 si ya había una reconstrucción en curso)
+     */
+    public long rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Ya hay una reconstrucción de acumulados de ventas en curso");
+            return -1;
+        }
+
+        long start = System.currentTimeMillis();
+        long processed = 0;
+        Map<String, SalesRollupDelta> rollups = new HashMap<>();
+        Map<String, SalesRollupDelta> discarded;
+        boolean replaced = false;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now();
+            LocalDateTime settled = cutoff.minus(PUBLISH_GRACE);
+            synchronized (pendingLock) {
+                discarded = pending;
+                pending = new HashMap<>();
+                rebuildCutoff = cutoff;
+                rebuildChanges = new HashMap<>();
+            }
+
+            try {
+                Map<String, String> categoryNames = categoryNames();
+                Function<OrderItem, String> categoryOf = categoryResolver();
+                List<Order> unsettled = new ArrayList<>();
+                Query query = Query.query(Criteria.where("createdAt").lt(cutoff));
+                try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+                    for (Order order : (Iterable<Order>) orders::iterator) {
+                        if (order.getCreatedAt() == null || order.getStatus() == null) {
+                            continue;
+                        }
+                        RebuildChange change;
+                        synchronized (pendingLock) {
+                            change = rebuildChanges.get(order.getId());
+                        }
+                        if (change != null) {
+                            count(rollups, order, change.atCutoff, 1, categoryOf, categoryNames);
+                        } else if (order.getUpdatedAt() != null && order.getUpdatedAt().isAfter(settled)) {
+                            // Puede haber cambiado sin que su evento llegara todavía
+                            unsettled.add(order);
+                        } else {
+                            count(rollups, order, order.getStatus(), 1, categoryOf, categoryNames);
+                        }
+                        processed++;
+                    }
+                }
+
+                // Desde aquí los cambios vuelven a ser variaciones, que se escriben después del reemplazo
+                Map<String, RebuildChange> changes;
+                synchronized (pendingLock) {
+                    changes = rebuildChanges;
+                    rebuildChanges = null;
+                }
+                for (Order order : unsettled) {
+                    RebuildChange change = changes.get(order.getId());
+                    count(rollups, order, change != null ? change.atCutoff : order.getStatus(), 1, categoryOf, categoryNames);
+                }
+                for (RebuildChange change : changes.values()) {
+                    count(rollups, change.order, change.atCutoff, -1, categoryOf, categoryNames);
+                    count(rollups, change.order, change.current, 1, categoryOf, categoryNames);
+                }
+
+                replaceAll(rollups);
+                replaced = true;
+            } finally {
+                if (!replaced) {
+                    restorePending(discarded);
+                }
+            }
+        } finally {
+            rebuilding.set(false);
+        }
+
+        long millis = System.currentTimeMillis() - start;
+        rebuilds.increment();
+        lastRebuildOrders = processed;
+        lastRebuildDocuments = rollups.size();
+        lastRebuildMillis = millis;
+        lastRebuildAt = LocalDateTime.now();
+        log.info("✅ Acumulados de ventas reconstruidos: {} pedidos, {} documentos ({} ms)",
+                processed, rollups.size(), millis);
+
+        flush();
+        return processed;
+    }
+
+    public SalesRollupStatsResponse getStats() {
+        int pendingDocuments;
+        synchronized (pendingLock) {
+            pendingDocuments = pending.size();
+        }
+        return SalesRollupStatsResponse.builder()
+                .enabled(enabled)
+                .pendingDocuments(pendingDocuments)
+                .events(events.sum())
+                .flushes(flushes.sum())
+                .documentsWritten(documentsWritten.sum())
+                .failures(failures.sum())
+                .lastFlushMillis(lastFlushMillis)
+                .rebuilding(rebuilding.get())
+                .rebuilds(rebuilds.sum())
+                .lastRebuildOrders(lastRebuildOrders)
+                .lastRebuildDocuments(lastRebuildDocuments)
+                .lastRebuildMillis(lastRebuildMillis)
+                .lastRebuildAt(lastRebuildAt)
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    /**
+     * Los pedidos cancelados no cuentan como venta (solo en el conteo por estado)
+     */
+    private static boolean countsAsSale(OrderStatus status) {
+        return status != null && status != OrderStatus.CANCELLED;
+    }
+
+    private void recordChange(Order order, OrderStatus previous, OrderStatus next) {
+        boolean before = countsAsSale(previous);
+        boolean after = countsAsSale(next);
+        Function<OrderItem, String> categoryOf = before != after ? categoriesOf(order) : null;
+        Map<String, String> categoryNames = before != after ? categoryNames() : null;
+        record(order, delta -> {
+            delta.addStatus(previous, -1);
+            delta.addStatus(next, 1);
+            if (before != after) {
+                delta.addSales(order, after ? 1 : -1, categoryOf, categoryNames);
+            }
+        });
+    }
+
+    /**
+     * true si el pedido lo cuenta la reconstrucción en curso (creado antes del corte)
+     */
+    private boolean coveredByRebuild(Order order) {
+        synchronized (pendingLock) {
+            return rebuildChanges != null && order.getCreatedAt() != null && order.getCreatedAt().isBefore(rebuildCutoff);
+        }
+    }
+
+    /**
+     * Durante una reconstrucción guarda el cambio de estado de un pedido que el recorrido cuenta
+     *
+     * @return false si no hay reconstrucción en curso o el pedido es posterior al corte
+     */
+    private boolean trackRebuildChange(OrderStatusChangedEvent event) {
+        Order order = event.getOrder();
+        synchronized (pendingLock) {
+            if (rebuildChanges == null || order.getCreatedAt() == null || !order.getCreatedAt().isBefore(rebuildCutoff)) {
+                return false;
+            }
+            RebuildChange change = rebuildChanges.computeIfAbsent(order.getId(), id -> new RebuildChange(event.getPreviousStatus()));
+            change.order = order;
+            change.current = event.getNewStatus();
+            return true;
+        }
+    }
+
+    /**
+     * Si la reconstrucción falla, las variaciones descartadas al empezar y los cambios guardados
+     * durante el recorrido vuelven a quedar pendientes sobre los acumulados que siguen en Mongo
+     */
+    private void restorePending(Map<String, SalesRollupDelta> discarded) {
+        Map<String, RebuildChange> changes;
+        synchronized (pendingLock) {
+            changes = rebuildChanges;
+            rebuildChanges = null;
+        }
+        requeue(discarded);
+        if (changes != null) {
+            changes.values().forEach(change -> recordChange(change.order, change.atCutoff, change.current));
+        }
+    }
+
+    /**
+     * Suma (sign = 1) o resta (sign = -1) el pedido con el estado dado en los acumulados de su día, semana y mes
+     */
+    private static void count(Map<String, SalesRollupDelta> rollups, Order order, OrderStatus status, int sign,
+                              Function<OrderItem, String> categoryOf, Map<String, String> categoryNames) {
+        LocalDate date = order.getCreatedAt().toLocalDate();
+        for (SalesPeriod period : PERIODS) {
+            SalesRollupDelta delta = deltaOf(rollups, period, date);
+            delta.addStatus(status, sign);
+            if (countsAsSale(status)) {
+                delta.addSales(order, sign, categoryOf, categoryNames);
+            }
+        }
+    }
+
+    /**
+     * Aplica la variación del pedido en los acumulados de su día, semana y mes
+     */
+    private void record(Order order, Consumer<SalesRollupDelta> change) {
+        if (order.getCreatedAt() == null) {
+            return;
+        }
+        LocalDate date = order.getCreatedAt().toLocalDate();
+        synchronized (pendingLock) {
+            for (SalesPeriod period : PERIODS) {
+                change.accept(deltaOf(pending, period, date));
+            }
+        }
+        events.increment();
+    }
+
+    private static SalesRollupDelta deltaOf(Map<String, SalesRollupDelta> deltas, SalesPeriod period, LocalDate date) {
+        LocalDate start = period.startOf(date);
+        return deltas.computeIfAbsent(period.rollupId(start), id -> new SalesRollupDelta(period, start));
+    }
+
+    /**
+     * Categorías de los items del pedido resueltas antes de tomar el lock de las variaciones
+     * (la foto del catálogo puede tener que reconstruirse)
+     */
+    private Function<OrderItem, String> categoriesOf(Order order) {
+        Function<OrderItem, String> resolver = categoryResolver();
+        Map<String, String> categories = new HashMap<>(order.getItems().size() * 2);
+        for (OrderItem item : order.getItems()) {
+            categories.put(item.getProductId(), resolver.apply(item));
+        }
+        return item -> categories.get(item.getProductId());
+    }
+
+    /**
+     * Categoría de cada item: la guardada en el pedido o, en pedidos anteriores, la actual del producto
+     */
+    private Function<OrderItem, String> categoryResolver() {
+        return item -> {
+            if (item.getCategoryId() != null) {
+                return item.getCategoryId();
+            }
+            ProductResponse product = catalogCache.snapshot().getProduct(item.getProductId());
+            return product != null && product.getCategory() != null
+                    ? product.getCategory().getId()
+                    : SalesRollupDelta.UNCATEGORIZED;
+        };
+    }
+
+    private Map<String, String> categoryNames() {
+        Map<String, Categoria> categories = categoryCache.asMap();
+        Map<String, String> names = new HashMap<>(categories.size() * 2);
+        categories.forEach((id, categoria) -> names.put(id, categoria.getName()));
+        return names;
+    }
+
+    /**
+     * Vuelve a poner un lote que no se pudo escribir, sumándolo a lo que llegó mientras tanto
+     */
+    private void requeue(Map<String, SalesRollupDelta> batch) {
+        synchronized (pendingLock) {
+            batch.forEach((id, delta) -> pending.merge(id, delta, (current, failed) -> {
+                current.merge(failed);
+                return current;
+            }));
+        }
+    }
+
+    /**
+     * Reemplaza los documentos con los recién calculados (upserts en un bulkWrite) y borra los que sobran
+     */
+    private void replaceAll(Map<String, SalesRollupDelta> rollups) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!rollups.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class);
+            rollups.forEach((id, delta) -> {
+                Document document = new Document();
+                mongoTemplate.getConverter().write(delta.toRollup(now), document);
+                document.remove("_id");
+                document.remove("_class");
+                bulk.upsert(Query.query(Criteria.where("_id").is(id)), Update.fromDocument(new Document("$set", document)));
+            });
+            bulk.execute();
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").nin(rollups.keySet())), SalesRollup.class);
+    }
+
+    /**
+     * Cambio de estado de un pedido durante la reconstrucción: estado antes del primer cambio y el último
+     */
+    private static final class RebuildChange {
+        private final OrderStatus atCutoff;
+        private Order order;
+        private OrderStatus current;
+
+        private RebuildChange(OrderStatus atCutoff) {
+            this.atCutoff = atCutoff;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.diedev.firex.cart;
+
+import com.diedev.firex.dto.response.CartExpiryStatsResponse;
+import com.diedev.firex.enums.CartExpiryMode;
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.repositories.CartRepository;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expiración de carritos abandonados según su última actividad (lastActivityAt).
+ * - TTL: índice TTL sobre lastActivityAt, Mongo borra los vencidos en segundo plano
+ * - SWEEPER: tarea programada que recorre la colección por _id en lotes y borra cada rango
+ *   vencido, con un máximo de borrados por segundo para no competir con el tráfico
+ * - OFF: no se borra nada (las métricas siguen disponibles)
+ * Al arrancar completa lastActivityAt en los carritos anteriores (fecha de creación del _id)
+ * y deja el índice de lastActivityAt acorde al modo configurado.
+ */
+@Slf4j
+@Component
+public class CartExpiryJob {
+
+    private static final String INDEX_NAME = "last_activity_idx";
+
+    private final MongoTemplate mongoTemplate;
+    private final CartRepository cartRepository;
+    private final CartExpiryMode mode;
+    private final int expiryDays;
+    private final int activeWindowDays;
+    private final int batchSize;
+    private final int maxDeletesPerSecond;
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder sweptCarts = new LongAdder();
+    private volatile long lastSweepDeleted;
+    private volatile long lastSweepMillis;
+    private volatile LocalDateTime lastSweepAt;
+
+    public CartExpiryJob(MongoTemplate mongoTemplate,
+                         CartRepository cartRepository,
+                         @Value("${firex.cart.expiry.mode:SWEEPER}") CartExpiryMode mode,
+                         @Value("${firex.cart.expiry.days:60}") int expiryDays,
+                         @Value("${firex.cart.expiry.active-window-days:7}") int activeWindowDays,
+                         @Value("${firex.cart.expiry.batch-size:500}") int batchSize,
+                         @Value("${firex.cart.expiry.max-deletes-per-second:1000}") int maxDeletesPerSecond) {
+        this.mongoTemplate = mongoTemplate;
+        this.cartRepository = cartRepository;
+        this.mode = mode;
+        this.expiryDays = Math.max(1, expiryDays);
+        this.activeWindowDays = Math.max(1, activeWindowDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDeletesPerSecond = Math.max(1, maxDeletesPerSecond);
+    }
+
+    /**
+     * Se ejecuta en segundo plano para no retrasar el arranque
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        CompletableFuture.runAsync(() -> {
+            backfillLastActivity();
+            ensureIndex();
+        }).exceptionally(ex -> {
+            log.warn("No se pudo preparar la expiración de carritos: {}", ex.getMessage());
+            return null;
+        });
+    }
+
+    @Scheduled(cron = "${firex.cart.expiry.cron:0 0 4 * * *}")
+    public void run() {
+        if (mode != CartExpiryMode.SWEEPER) {
+            return;
+        }
+        // Fuera del hilo del scheduler: el barrido espera entre lotes y no debe frenar las demás tareas
+        CompletableFuture.runAsync(this::sweep).exceptionally(ex -> {
+            log.warn("No se pudo completar la expiración de carritos: {}", ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Borra los carritos sin actividad desde hace más de expiryDays, por rangos de _id
+     *
+     * @return Cantidad de carritos eliminados
+     */
+    public long sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            log.info("Ya hay una expiración de carritos en curso");
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(expiryDays);
+        long deleted = 0;
+        int batches = 0;
+        try {
+            String lastId = null;
+            while (!Thread.currentThread().isInterrupted()) {
+                long batchStart = System.currentTimeMillis();
+
+                // Siguiente lote de vencidos en orden de _id (solo el _id)
+                Criteria criteria = Criteria.where("lastActivityAt").lt(cutoff);
+                if (lastId != null) {
+                    criteria = criteria.and("_id").gt(lastId);
+                }
+                Query query = Query.query(criteria).with(Sort.by("id")).limit(batchSize);
+                query.fields().include("_id");
+                List<Cart> expired = mongoTemplate.find(query, Cart.class);
+                if (expired.isEmpty()) {
+                    break;
+                }
+
+                String firstId = expired.get(0).getId();
+                lastId = expired.get(expired.size() - 1).getId();
+
+                // Borrado por rango: se vuelve a comprobar la fecha por si el carrito tuvo actividad entre medio
+                Query range = Query.query(Criteria.where("_id").gte(firstId).lte(lastId)
+                        .and("lastActivityAt").lt(cutoff));
+                deleted += mongoTemplate.remove(range, Cart.class).getDeletedCount();
+                batches++;
+
+                throttle(expired.size(), System.currentTimeMillis() - batchStart);
+            }
+        } finally {
+            sweeping.set(false);
+        }
+
+        long millis = System.currentTimeMillis() - start;
+        sweptCarts.add(deleted);
+        lastSweepDeleted = deleted;
+        lastSweepMillis = millis;
+        lastSweepAt = LocalDateTime.now();
+        log.info("✅ Expiración de carritos: {} eliminados en {} lotes ({} ms, sin actividad desde {})",
+                deleted, batches, millis, cutoff);
+        return deleted;
+    }
+
+    /**
+     * Completa lastActivityAt en carritos guardados antes de que existiera, con la fecha de su _id
+     *
+     * @return Cantidad de carritos actualizados
+     */
+    public long backfillLastActivity() {
+        Document activity = new Document("$convert", new Document()
+                .append("input", "$_id")
+                .append("to", "date")
+                .append("onError", "$$NOW"));
+
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Cart.class))
+                .updateMany(
+                        Filters.exists("lastActivityAt", false),
+                        List.of(new Document("$set", new Document("lastActivityAt", activity)))
+                );
+
+        if (result.getModifiedCount() > 0) {
+            log.info("✅ lastActivityAt completado en {} carritos", result.getModifiedCount());
+        }
+        return result.getModifiedCount();
+    }
+
+    public CartExpiryStatsResponse getStats() {
+        LocalDateTime now = LocalDateTime.now();
+        return CartExpiryStatsResponse.builder()
+                .mode(mode.name())
+                .expiryDays(expiryDays)
+                .activeWindowDays(activeWindowDays)
+                .totalCarts(mongoTemplate.estimatedCount(Cart.class))
+                .activeCarts(cartRepository.countActiveCartsByTotalItemsGreaterThan())
+                .recentlyActiveCarts(cartRepository.countActiveCartsSince(now.minusDays(activeWindowDays)))
+                .expiredCarts(cartRepository.countByLastActivityAtBefore(now.minusDays(expiryDays)))
+                .sweeping(sweeping.get())
+                .sweptCarts(sweptCarts.sum())
+                .lastSweepDeleted(lastSweepDeleted)
+                .lastSweepMillis(lastSweepMillis)
+                .lastSweepAt(lastSweepAt)
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    /**
+     * Índice de lastActivityAt: con TTL en modo TTL, normal en los demás (lo usan el barrido y las métricas).
+     * Si el existente no coincide (otro modo u otro plazo) se reemplaza.
+     */
+    private void ensureIndex() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Cart.class);
+        Optional<Duration> expireAfter = mode == CartExpiryMode.TTL
+                ? Optional.of(Duration.ofDays(expiryDays))
+                : Optional.empty();
+
+        for (IndexInfo info : indexOps.getIndexInfo()) {
+            boolean onLastActivity = info.getIndexFields().size() == 1
+                    && info.getIndexFields().get(0).getKey().equals("lastActivityAt");
+            if (onLastActivity) {
+                if (info.getExpireAfter().equals(expireAfter)) {
+                    return;
+                }
+                log.info("Reemplazando el índice {} de carritos (modo de expiración {})", info.getName(), mode);
+                indexOps.dropIndex(info.getName());
+            }
+        }
+
+        Index index = new Index().on("lastActivityAt", Sort.Direction.ASC).named(INDEX_NAME);
+        expireAfter.ifPresent(index::expire);
+        indexOps.createIndex(index);
+        log.info("✅ Índice de actividad de carritos listo (modo de expiración {})", mode);
+    }
+
+    /**
+     * Espera lo necesario para no superar maxDeletesPerSecond
+     */
+    private void throttle(int processed, long elapsedMillis) {
+        long minMillis = processed * 1000L / maxDeletesPerSecond;
+        if (elapsedMillis >= minMillis) {
+            return;
+        }
+        try {
+            Thread.sleep(minMillis - elapsedMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.diedev.firex.cart;
+
+import com.diedev.firex.dto.response.CartRepricingStatsResponse;
+import com.diedev.firex.events.ProductPriceChangedEvent;
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.models.CartItem;
+import com.diedev.firex.repositories.CartRepository;
+import com.diedev.firex.util.Money;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Actualiza en segundo plano el precio de los items en los carritos cuando cambia el precio de un producto.
+ * Los cambios se acumulan por producto (si un precio cambia dos veces solo cuenta el último) y
+ * se aplican por lotes: un bulkWrite con un updateMany por producto sobre el índice de items.productId,
+ * y luego a los carritos que están en el cache write-behind (Mongo primero, así un carrito
+ * escrito desde memoria entre medio queda pendiente otra vez con el precio nuevo).
+ * Corre en un hilo propio para no retrasar las escrituras del cache ni las demás tareas programadas.
+ */
+@Slf4j
+@Component
+public class CartRepricingJob {
+
+    private final CartRepository cartRepository;
+    private final CartWriteBehindCache cartCache;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final Map<String, BigDecimal> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-repricing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder productsRepriced = new LongAdder();
+    private final LongAdder cartsRepriced = new LongAdder();
+    private final LongAdder cachedCartsRepriced = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalMillis = new LongAdder();
+    private volatile int lastBatchProducts;
+    private volatile long lastBatchCarts;
+    private volatile long lastBatchMillis;
+
+    public CartRepricingJob(CartRepository cartRepository,
+                            CartWriteBehindCache cartCache,
+                            @Value("${firex.cart.repricing.enabled:true}") boolean enabled,
+                            @Value("${firex.cart.repricing.batch-size:100}") int batchSize) {
+        this.cartRepository = cartRepository;
+        this.cartCache = cartCache;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener
+    public void onPriceChanged(ProductPriceChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        log.debug("Precio de '{}' cambió: {} -> {}", event.getProductName(), event.getPreviousPrice(), event.getNewPrice());
+        pending.put(event.getProductId(), event.getNewPrice());
+        start();
+    }
+
+    /**
+     * Reintenta los productos que quedaron pendientes por un error en Mongo
+     */
+    @Scheduled(fixedDelayString = "${firex.cart.repricing.retry-interval-ms:30000}")
+    public void retryPending() {
+        if (enabled && !pending.isEmpty()) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CartRepricingStatsResponse getStats() {
+        long millis = lastBatchMillis;
+        return CartRepricingStatsResponse.builder()
+                .enabled(enabled)
+                .running(running.get())
+                .pendingProducts(pending.size())
+                .batches(batches.sum())
+                .productsRepriced(productsRepriced.sum())
+                .cartsRepriced(cartsRepriced.sum())
+                .cachedCartsRepriced(cachedCartsRepriced.sum())
+                .failures(failures.sum())
+                .lastBatchProducts(lastBatchProducts)
+                .lastBatchCarts(lastBatchCarts)
+                .lastBatchMillis(millis)
+                .lastCartsPerSecond(millis > 0 ? lastBatchCarts * 1000.0 / millis : lastBatchCarts)
+                .totalMillis(totalMillis.sum())
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private void start() {
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!pending.isEmpty()) {
+                Map<String, BigDecimal> batch = nextBatch();
+                if (!reprice(batch)) {
+                    // No sobrescribir un precio más nuevo que llegó mientras tanto
+                    batch.forEach(pending::putIfAbsent);
+                    return;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        // Un cambio pudo llegar justo después de vaciar la cola
+        if (!pending.isEmpty()) {
+            start();
+        }
+    }
+
+    private Map<String, BigDecimal> nextBatch() {
+        Map<String, BigDecimal> batch = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, BigDecimal>> it = pending.entrySet().iterator(); it.hasNext() && batch.size() < batchSize; ) {
+            Map.Entry<String, BigDecimal> entry = it.next();
+            batch.put(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+        return batch;
+    }
+
+    private boolean reprice(Map<String, BigDecimal> prices) {
+        long start = System.currentTimeMillis();
+        long stored;
+        try {
+            stored = cartRepository.repriceItems(prices);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("No se pudo actualizar el precio de {} productos en los carritos: {}", prices.size(), e.getMessage());
+            return false;
+        }
+
+        int cached = cartCache.isEnabled()
+                ? cartCache.updateCached(cart -> hasAny(cart, prices), cart -> applyPrices(cart, prices))
+                : 0;
+
+        long millis = System.currentTimeMillis() - start;
+        batches.increment();
+        productsRepriced.add(prices.size());
+        cartsRepriced.add(stored);
+        cachedCartsRepriced.add(cached);
+        totalMillis.add(millis);
+        lastBatchProducts = prices.size();
+        lastBatchCarts = stored;
+        lastBatchMillis = millis;
+
+        log.info("✅ Carritos actualizados por cambio de precio: {} productos, {} carritos en Mongo, {} en memoria ({} ms, pendientes: {})",
+                prices.size(), stored, cached, millis, pending.size());
+        return true;
+    }
+
+    private static boolean hasAny(Cart cart, Map<String, BigDecimal> prices) {
+        for (CartItem item : cart.getItems()) {
+            BigDecimal price = prices.get(item.getProductId());
+            if (price != null && (item.getPrice() == null || item.getPrice().compareTo(price) != 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void applyPrices(Cart cart, Map<String, BigDecimal> prices) {
+        long totalMinor = 0;
+        for (CartItem item : cart.getItems()) {
+            BigDecimal price = prices.get(item.getProductId());
+            if (price != null) {
+                item.setPrice(price);
+                item.setSubtotal(Money.toBigDecimal(Money.subtotal(Money.toMinor(price), item.getQuantity())));
+            }
+            totalMinor = Math.addExact(totalMinor, Money.toMinor(item.getSubtotal()));
+        }
+        cart.setTotalPrice(Money.toBigDecimal(totalMinor));
+    }
+}
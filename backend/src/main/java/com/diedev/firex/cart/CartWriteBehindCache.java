@@ -0,0 +1,519 @@
+package com.diedev.firex.cart;
+
+import com.diedev.firex.dto.response.CartCacheStatsResponse;
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.models.CartItem;
+import com.diedev.firex.repositories.CartRepository;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache write-behind de los carritos activos.
+ * Las lecturas y cambios del carrito se hacen en memoria (un lock por carrito, sin pérdida
+ * de actualizaciones) y se marcan como pendientes; una tarea periódica escribe a Mongo
+ * los carritos pendientes en un solo bulkWrite, así varios clics seguidos cuestan una escritura.
+ * - LRU acotado por tamaño y expiración por inactividad (antes de sacar un carrito pendiente se escribe)
+ * - flush(userId) fuerza la escritura de un carrito (ej: antes del checkout)
+ * - al apagar la aplicación se escriben todos los pendientes
+ * Deshabilitado por defecto (firex.cart.write-behind.enabled): las escrituras reemplazan el carrito
+ * completo, así que dos instancias con copias del mismo carrito se pisan los cambios. Habilitarlo solo
+ * con una instancia o con sesiones fijas (sticky) por usuario; deshabilitado se usan las escrituras
+ * atómicas del repositorio.
+ */
+@Slf4j
+@Component
+public class CartWriteBehindCache {
+
+    private final CartRepository cartRepository;
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long flushDelayMillis;
+    private final int batchSize;
+
+    /** Orden de acceso: el primero es el menos usado recientemente */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedCarts = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile int lastBatchSize;
+    private volatile int maxBatchSize;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public CartWriteBehindCache(CartRepository cartRepository,
+                                MongoTemplate mongoTemplate,
+                                @Value("${firex.cart.write-behind.enabled:false}") boolean enabled,
+                                @Value("${firex.cart.write-behind.max-size:10000}") int maxSize,
+                                @Value("${firex.cart.write-behind.ttl-seconds:1800}") long ttlSeconds,
+                                @Value("${firex.cart.write-behind.flush-delay-ms:2000}") long flushDelayMillis,
+                                @Value("${firex.cart.write-behind.batch-size:500}") int batchSize) {
+        this.cartRepository = cartRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+        this.flushDelayMillis = flushDelayMillis;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lee el carrito del usuario; si no existe se usa uno vacío virtual (no se guarda hasta que se modifique)
+     */
+    public <R> R read(String userId, Function<Cart, R> reader) {
+        return apply(userId, true, false, reader).orElseThrow();
+    }
+
+    /**
+     * Modifica el carrito del usuario (lo crea vacío si no existe).
+     * La función debe validar antes de modificar: si lanza una excepción el carrito no se marca pendiente.
+     */
+    public <R> R update(String userId, Function<Cart, R> mutation) {
+        return apply(userId, true, true, mutation).orElseThrow();
+    }
+
+    /**
+     * Modifica el carrito solo si existe (un carrito virtual sin cambios no cuenta)
+     */
+    public <R> Optional<R> updateIfPresent(String userId, Function<Cart, R> mutation) {
+        return apply(userId, false, true, mutation);
+    }
+
+    /**
+     * Modifica el carrito del usuario (lo crea vacío si no existe) y lo escribe en Mongo antes de
+     * soltar su lock, para los cambios que deben ser durables antes de seguir (ej: borrar el carrito
+     * de invitado después de unirlo). Si la escritura falla se deshace el cambio en memoria.
+     *
+     * @throws IllegalStateException si no se pudo escribir el carrito
+     */
+    public <R> R updateAndWrite(String userId, Function<Cart, R> mutation) {
+        while (true) {
+            Entry entry = acquire(userId, true);
+            synchronized (entry) {
+                if (entry.evicted) {
+                    continue;
+                }
+                entry.lastAccessAt = System.currentTimeMillis();
+                Cart before = copy(entry.cart);
+                R result = mutation.apply(entry.cart);
+                entry.cart.setLastActivityAt(LocalDateTime.now());
+                entry.markDirty();
+                write(List.of(entry));
+                if (entry.isDirty()) {
+                    // Vuelve al estado anterior: queda pendiente y la próxima escritura lo deja como estaba
+                    restore(entry.cart, before);
+                    throw new IllegalStateException("No se pudo guardar el carrito de " + userId);
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Modifica los carritos en memoria que cumplen el filtro (ej: los que tienen un producto cuyo precio cambió)
+     * y los marca pendientes. No carga carritos desde Mongo.
+     *
+     * @return Cantidad de carritos modificados
+     */
+    public int updateCached(Predicate<Cart> filter, Consumer<Cart> mutation) {
+        List<Entry> snapshot;
+        synchronized (entries) {
+            snapshot = new ArrayList<>(entries.values());
+        }
+
+        int updated = 0;
+        for (Entry entry : snapshot) {
+            synchronized (entry) {
+                if (entry.evicted || !filter.test(entry.cart)) {
+                    continue;
+                }
+                mutation.accept(entry.cart);
+                entry.markDirty();
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Escribe ya el carrito del usuario si tiene cambios pendientes
+     */
+    public void flush(String userId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry != null && entry.isDirty()) {
+            write(List.of(entry));
+        }
+    }
+
+    /**
+     * Saca el carrito del cache (escribiéndolo antes si está pendiente)
+     */
+    public void evict(String userId) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry != null) {
+            evict(entry);
+        }
+    }
+
+    /**
+     * Escribe los carritos con cambios más antiguos que el retraso configurado
+     * y saca los inactivos por más del TTL
+     */
+    @Scheduled(fixedDelayString = "${firex.cart.write-behind.flush-interval-ms:500}")
+    public void flushDue() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Entry> due = new ArrayList<>();
+        List<Entry> idle = new ArrayList<>();
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                if (entry.isDirty() && now - entry.firstDirtyAt >= flushDelayMillis) {
+                    due.add(entry);
+                } else if (now - entry.lastAccessAt >= ttlMillis) {
+                    idle.add(entry);
+                }
+            }
+        }
+
+        for (int from = 0; from < due.size(); from += batchSize) {
+            write(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+        for (Entry entry : idle) {
+            if (evict(entry)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Al apagar la aplicación se escriben todos los carritos pendientes
+     */
+    @PreDestroy
+    public void flushAll() {
+        List<Entry> dirty;
+        synchronized (entries) {
+            dirty = entries.values().stream().filter(Entry::isDirty).toList();
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        log.info("Escribiendo {} carritos pendientes antes de apagar", dirty.size());
+        for (int from = 0; from < dirty.size(); from += batchSize) {
+            write(dirty.subList(from, Math.min(from + batchSize, dirty.size())));
+        }
+    }
+
+    public CartCacheStatsResponse getStats() {
+        int size;
+        int dirty;
+        synchronized (entries) {
+            size = entries.size();
+            dirty = (int) entries.values().stream().filter(Entry::isDirty).count();
+        }
+        long flushCount = flushes.sum();
+        return CartCacheStatsResponse.builder()
+                .enabled(enabled)
+                .size(size)
+                .dirty(dirty)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .evictions(evictions.sum())
+                .flushes(flushCount)
+                .flushedCarts(flushedCarts.sum())
+                .failedFlushes(failedFlushes.sum())
+                .lastBatchSize(lastBatchSize)
+                .maxBatchSize(maxBatchSize)
+                .avgBatchSize(flushCount > 0 ? (double) flushedCarts.sum() / flushCount : 0)
+                .lastLagMillis(lastLagMillis)
+                .maxLagMillis(maxLagMillis)
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private <R> Optional<R> apply(String userId, boolean create, boolean mutates, Function<Cart, R> function) {
+        while (true) {
+            Entry entry = acquire(userId, create);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            synchronized (entry) {
+                // Otro hilo lo sacó del cache mientras esperábamos: tomar la nueva entrada
+                if (entry.evicted) {
+                    continue;
+                }
+                if (!create && entry.isVirtual()) {
+                    return Optional.empty();
+                }
+                entry.lastAccessAt = System.currentTimeMillis();
+                R result = function.apply(entry.cart);
+                if (mutates) {
+                    entry.cart.setLastActivityAt(LocalDateTime.now());
+                    entry.markDirty();
+                }
+                return Optional.of(result);
+            }
+        }
+    }
+
+    private Entry acquire(String userId, boolean create) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                hits.increment();
+                return entry;
+            }
+        }
+
+        misses.increment();
+        Cart cart = cartRepository.findByUserId(userId).orElse(null);
+        boolean created = cart == null;
+        if (created) {
+            if (!create) {
+                return null;
+            }
+            cart = newCart(userId);
+        }
+
+        Entry fresh = new Entry(userId, cart, !created);
+
+        synchronized (entries) {
+            Entry existing = entries.putIfAbsent(userId, fresh);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        evictOverflow();
+        return fresh;
+    }
+
+    private void evictOverflow() {
+        while (true) {
+            Entry eldest;
+            synchronized (entries) {
+                if (entries.size() <= maxSize) {
+                    return;
+                }
+                eldest = entries.values().iterator().next();
+            }
+            if (!evict(eldest)) {
+                // No se pudo escribir: se tolera el exceso hasta el próximo intento
+                return;
+            }
+            evictions.increment();
+        }
+    }
+
+    private boolean evict(Entry entry) {
+        synchronized (entry) {
+            if (entry.evicted) {
+                return false;
+            }
+            if (entry.isDirty()) {
+                write(List.of(entry));
+                if (entry.isDirty()) {
+                    return false;
+                }
+            }
+            entry.evicted = true;
+        }
+        synchronized (entries) {
+            entries.remove(entry.userId, entry);
+        }
+        return true;
+    }
+
+    /**
+     * Escribe un lote de carritos en un solo bulkWrite (replace con upsert por userId)
+     */
+    private void write(List<Entry> batch) {
+        List<Entry> written = new ArrayList<>(batch.size());
+        List<Long> versions = new ArrayList<>(batch.size());
+        List<Long> dirtySince = new ArrayList<>(batch.size());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class);
+
+        for (Entry entry : batch) {
+            synchronized (entry) {
+                if (!entry.isDirty()) {
+                    continue;
+                }
+                Cart copy = copy(entry.cart);
+                bulk.replaceOne(Query.query(Criteria.where("userId").is(copy.getUserId())), copy,
+                        FindAndReplaceOptions.options().upsert());
+                written.add(entry);
+                versions.add(entry.version);
+                dirtySince.add(entry.firstDirtyAt);
+            }
+        }
+        if (written.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                log.warn("No se pudo escribir el carrito de {}: {}", written.get(error.getIndex()).userId, error.getMessage());
+            }
+        } catch (RuntimeException e) {
+            failedFlushes.increment();
+            log.warn("No se pudieron escribir {} carritos pendientes: {}", written.size(), e.getMessage());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long maxLag = 0;
+        for (int i = 0; i < written.size(); i++) {
+            if (failed.contains(i)) {
+                continue;
+            }
+            Entry entry = written.get(i);
+            synchronized (entry) {
+                entry.markFlushed(versions.get(i), now);
+            }
+            maxLag = Math.max(maxLag, now - dirtySince.get(i));
+        }
+
+        int count = written.size() - failed.size();
+        if (!failed.isEmpty()) {
+            failedFlushes.increment();
+        }
+        flushes.increment();
+        flushedCarts.add(count);
+        lastBatchSize = count;
+        maxBatchSize = Math.max(maxBatchSize, count);
+        lastLagMillis = maxLag;
+        maxLagMillis = Math.max(maxLagMillis, maxLag);
+        log.debug("Carritos escritos: {} (lag máximo {} ms)", count, maxLag);
+    }
+
+    /**
+     * Carrito vacío virtual: recibe id para responder siempre el mismo, pero solo se escribe si se modifica
+     */
+    private static Cart newCart(String userId) {
+        Cart cart = new Cart();
+        cart.setId(new ObjectId().toHexString());
+        cart.setUserId(userId);
+        cart.setItems(new ArrayList<>());
+        cart.setTotalItems(0);
+        cart.setTotalPrice(BigDecimal.ZERO);
+        return cart;
+    }
+
+    /**
+     * Copia para escribir fuera del lock sin que otro hilo la modifique a medias
+     */
+    private static Cart copy(Cart cart) {
+        List<CartItem> items = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            items.add(new CartItem(item.getProductId(), item.getProductName(), item.getPrice(),
+                    item.getQuantity(), item.getSubtotal()));
+        }
+
+        Cart copy = new Cart();
+        copy.setId(cart.getId());
+        copy.setUserId(cart.getUserId());
+        copy.setItems(items);
+        copy.setTotalItems(cart.getTotalItems());
+        copy.setTotalPrice(cart.getTotalPrice());
+        copy.setRevision(cart.getRevision());
+        copy.setLastActivityAt(cart.getLastActivityAt());
+        return copy;
+    }
+
+    private static void restore(Cart cart, Cart saved) {
+        cart.setItems(saved.getItems());
+        cart.setTotalItems(saved.getTotalItems());
+        cart.setTotalPrice(saved.getTotalPrice());
+        cart.setRevision(saved.getRevision());
+        cart.setLastActivityAt(saved.getLastActivityAt());
+    }
+
+    /**
+     * Carrito en memoria con su estado de escritura.
+     * version cuenta los cambios; flushedVersion es el último escrito en Mongo.
+     */
+    private static final class Entry {
+        private final String userId;
+        private final Cart cart;
+        private volatile long version;
+        private volatile long flushedVersion;
+        private volatile long firstDirtyAt;
+        private volatile long lastAccessAt = System.currentTimeMillis();
+        private volatile boolean evicted;
+        /** false mientras sea un carrito vacío virtual que nunca se modificó */
+        private final boolean stored;
+
+        private Entry(String userId, Cart cart, boolean stored) {
+            this.userId = userId;
+            this.cart = cart;
+            this.stored = stored;
+        }
+
+        private boolean isVirtual() {
+            return !stored && version == 0;
+        }
+
+        private boolean isDirty() {
+            return version > flushedVersion;
+        }
+
+        private void markDirty() {
+            if (version == flushedVersion) {
+                firstDirtyAt = System.currentTimeMillis();
+            }
+            version++;
+        }
+
+        private void markFlushed(long writtenVersion, long now) {
+            flushedVersion = Math.max(flushedVersion, writtenVersion);
+            // Cambios posteriores a la copia escrita siguen pendientes
+            firstDirtyAt = version > flushedVersion ? now : 0;
+        }
+    }
+}
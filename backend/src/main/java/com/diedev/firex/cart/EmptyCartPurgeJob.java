@@ -0,0 +1,80 @@
+package com.diedev.firex.cart;
+
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.repositories.CartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Purga periódica de carritos vacíos.
+ * Antes, abrir el carrito creaba el documento aunque el usuario nunca agregara nada;
+ * ahora los carritos vacíos son virtuales, y este job elimina los que quedaron guardados
+ * (y los que se vaciaron) por lotes, para no bloquear la colección con un solo deleteMany grande.
+ */
+@Slf4j
+@Component
+public class EmptyCartPurgeJob {
+
+    private final CartRepository cartRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public EmptyCartPurgeJob(CartRepository cartRepository,
+                             @Value("${firex.cart.purge.enabled:true}") boolean enabled,
+                             @Value("${firex.cart.purge.batch-size:1000}") int batchSize) {
+        this.cartRepository = cartRepository;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Scheduled(cron = "${firex.cart.purge.cron:0 30 3 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo completar la purga de carritos vacíos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina los carritos vacíos por lotes
+     *
+     * @return Cantidad de carritos eliminados
+     */
+    public long purge() {
+        long start = System.currentTimeMillis();
+        long deleted = 0;
+        int batches = 0;
+
+        while (true) {
+            List<String> ids = cartRepository.findEmptyCarts(PageRequest.of(0, batchSize, Sort.by("id"))).stream()
+                    .map(Cart::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            long removed = cartRepository.deleteEmptyCartsByIdIn(ids);
+            deleted += removed;
+            batches++;
+
+            // Ningún carrito del lote seguía vacío: cortar para no repetir la misma búsqueda
+            if (removed == 0) {
+                break;
+            }
+        }
+
+        log.info("✅ Purga de carritos vacíos: {} eliminados en {} lotes ({} ms)",
+                deleted, batches, System.currentTimeMillis() - start);
+        return deleted;
+    }
+}
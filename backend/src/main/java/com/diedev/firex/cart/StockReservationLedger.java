@@ -0,0 +1,543 @@
+package com.diedev.firex.cart;
+
+import com.diedev.firex.dto.response.ReservationStatsResponse;
+import com.diedev.firex.exception.InsufficientStockException;
+import com.diedev.firex.models.Producto;
+import com.diedev.firex.models.StockReservation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Reservas de stock de los items del carrito, en memoria.
+ * Al agregar un producto al carrito se reservan sus unidades: otro carrito solo puede tomar
+ * stock - reservado, así varios carritos no pasan la validación por las mismas últimas unidades.
+ * - Un contador de unidades reservadas por producto (lectura sin lock, O(1))
+ * - Las escrituras se serializan con locks por franja (stripe) según el producto;
+ *   un lote de varios productos toma sus franjas en orden para no bloquearse con otro
+ * - Las reservas vencen tras un tiempo sin actividad en el carrito (rueda de temporizadores)
+ * - Se guardan en Mongo como registro compacto, escrito por lotes, y se recargan al arrancar
+ * El stock del producto no cambia: se descuenta en el checkout, que luego libera las reservas.
+ */
+@Slf4j
+@Component
+public class StockReservationLedger {
+
+    private static final int STRIPES = 64;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int batchSize;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ConcurrentHashMap<String, AtomicInteger> reservedByProduct = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> productsByUser = new ConcurrentHashMap<>();
+    /** Reservas cambiadas desde la última escritura a Mongo */
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final TimerWheel wheel;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+    private volatile boolean loaded;
+
+    public StockReservationLedger(MongoTemplate mongoTemplate,
+                                  @Value("${firex.stock.reservations.enabled:true}") boolean enabled,
+                                  @Value("${firex.stock.reservations.ttl-seconds:900}") long ttlSeconds,
+                                  @Value("${firex.stock.reservations.tick-ms:1000}") long tickMillis,
+                                  @Value("${firex.stock.reservations.wheel-size:512}") int wheelSize,
+                                  @Value("${firex.stock.reservations.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.batchSize = Math.max(1, batchSize);
+        this.wheel = new TimerWheel(Math.max(1, tickMillis), Math.max(1, wheelSize));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Unidades reservadas del producto por todos los carritos
+     */
+    public int getReserved(String productId) {
+        AtomicInteger counter = reservedByProduct.get(productId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * Unidades que aún se pueden agregar a un carrito (stock menos lo reservado)
+     */
+    public int available(Producto producto) {
+        return Math.max(0, producto.getStock() - getReserved(producto.getId()));
+    }
+
+    /**
+     * Unidades del producto reservadas por el carrito del usuario
+     */
+    public int heldBy(String userId, String productId) {
+        Reservation reservation = reservations.get(key(userId, productId));
+        return reservation != null ? reservation.quantity : 0;
+    }
+
+    /**
+     * Fija la cantidad reservada por el usuario para cada producto (todo o nada):
+     * si algún producto no tiene unidades libres no se reserva ninguno.
+     * Reducir una cantidad ya reservada siempre se permite; cantidad 0 libera la reserva.
+     *
+     * @param quantities Cantidad final por productId
+     * @param productos  Productos del lote (stock actual)
+     * @return Cantidades que el usuario tenía reservadas antes, para deshacer con restore()
+     */
+    public Map<String, Integer> reserve(String userId, Map<String, Integer> quantities, Map<String, Producto> productos) {
+        if (!enabled) {
+            // Sin reservas: solo se compara con el stock del producto
+            quantities.forEach((productId, quantity) ->
+                    check(productos.get(productId), quantity, 0, productos.get(productId).getStock()));
+            return Map.of();
+        }
+
+        int[] order = stripesOf(quantities.keySet());
+        lock(order);
+        try {
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                Producto producto = productos.get(entry.getKey());
+                int held = heldBy(userId, entry.getKey());
+                int available = producto.getStock() - (getReserved(entry.getKey()) - held);
+                check(producto, entry.getValue(), held, available);
+            }
+
+            long expiresAt = System.currentTimeMillis() + ttlMillis;
+            Map<String, Integer> previous = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                if (entry.getValue() > 0) {
+                    previous.put(entry.getKey(), set(userId, entry.getKey(), entry.getValue(), expiresAt));
+                } else {
+                    previous.put(entry.getKey(), heldBy(userId, entry.getKey()));
+                    removeLocked(reservations.get(key(userId, entry.getKey())));
+                }
+            }
+            return previous;
+        } finally {
+            unlock(order);
+        }
+    }
+
+    /**
+     * Devuelve las reservas del usuario a las cantidades anteriores (0 = liberar)
+     */
+    public void restore(String userId, Map<String, Integer> previous) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        for (Map.Entry<String, Integer> entry : previous.entrySet()) {
+            ReentrantLock lock = stripeOf(entry.getKey());
+            lock.lock();
+            try {
+                if (entry.getValue() > 0) {
+                    set(userId, entry.getKey(), entry.getValue(), expiresAt);
+                } else {
+                    removeLocked(reservations.get(key(userId, entry.getKey())));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Libera la reserva de un producto del carrito del usuario
+     */
+    public void release(String userId, String productId) {
+        if (!enabled) {
+            return;
+        }
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            removeLocked(reservations.get(key(userId, productId)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera todas las reservas del usuario (carrito vaciado o convertido en pedido)
+     */
+    public void releaseAll(String userId) {
+        Set<String> productIds = productsByUser.get(userId);
+        if (productIds == null) {
+            return;
+        }
+        for (String productId : List.copyOf(productIds)) {
+            release(userId, productId);
+        }
+    }
+
+    /**
+     * Actividad en el carrito: extiende el vencimiento de todas sus reservas.
+     * No mueve nada en la rueda: al llegar a su ranura la reserva se vuelve a programar.
+     */
+    public void touch(String userId) {
+        Set<String> productIds = productsByUser.get(userId);
+        if (productIds == null) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        for (String productId : productIds) {
+            Reservation reservation = reservations.get(key(userId, productId));
+            if (reservation != null) {
+                reservation.expiresAt = expiresAt;
+                dirty.add(reservation.key);
+            }
+        }
+    }
+
+    /**
+     * Avanza la rueda y libera las reservas vencidas
+     */
+    @Scheduled(fixedDelayString = "${firex.stock.reservations.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        wheel.advance(now, reservation -> expireIfDue(reservation, now));
+    }
+
+    /**
+     * Escribe a Mongo las reservas cambiadas (upsert) y liberadas (delete) en bulkWrites
+     */
+    @Scheduled(fixedDelayString = "${firex.stock.reservations.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<String> batch = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockReservation.class);
+            for (String key : batch) {
+                Query byId = Query.query(Criteria.where("_id").is(key));
+                Reservation reservation = reservations.get(key);
+                if (reservation != null) {
+                    bulk.replaceOne(byId, reservation.toDocument(), FindAndReplaceOptions.options().upsert());
+                } else {
+                    bulk.remove(byId);
+                }
+            }
+            try {
+                bulk.execute();
+            } catch (RuntimeException e) {
+                // Las operaciones son idempotentes: se reintenta el lote completo en la próxima pasada
+                dirty.addAll(batch);
+                failedWrites.increment();
+                log.warn("No se pudieron escribir {} reservas de stock: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush();
+    }
+
+    /**
+     * Recarga las reservas vigentes en segundo plano para no retrasar el arranque
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            log.info("Reservas de stock deshabilitadas");
+            return;
+        }
+        CompletableFuture.runAsync(this::load).exceptionally(ex -> {
+            log.warn("No se pudieron recargar las reservas de stock: {}", ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Carga las reservas no vencidas guardadas en Mongo (las creadas desde el arranque tienen prioridad)
+     *
+     * @return Cantidad de reservas recargadas
+     */
+    public int load() {
+        int count = 0;
+        Query query = Query.query(Criteria.where("expiresAt").gt(new Date()));
+        try (Stream<StockReservation> stream = mongoTemplate.stream(query, StockReservation.class)) {
+            for (Iterator<StockReservation> it = stream.iterator(); it.hasNext(); ) {
+                if (restoreLoaded(it.next())) {
+                    count++;
+                }
+            }
+        }
+        loaded = true;
+        log.info("✅ Reservas de stock recargadas: {}", count);
+        return count;
+    }
+
+    public ReservationStatsResponse getStats() {
+        long units = 0;
+        for (AtomicInteger counter : reservedByProduct.values()) {
+            units += counter.get();
+        }
+        return ReservationStatsResponse.builder()
+                .enabled(enabled)
+                .loaded(loaded)
+                .ttlSeconds(ttlMillis / 1000)
+                .products(reservedByProduct.size())
+                .reservations(reservations.size())
+                .reservedUnits(units)
+                .rejected(rejected.sum())
+                .expired(expired.sum())
+                .pendingWrites(dirty.size())
+                .failedWrites(failedWrites.sum())
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private void check(Producto producto, int quantity, int held, int available) {
+        if (quantity <= held) {
+            return;
+        }
+        if (producto.getStock() <= 0) {
+            rejected.increment();
+            throw new InsufficientStockException(
+                    String.format("El producto '%s' está agotado", producto.getName())
+            );
+        }
+        if (quantity > available) {
+            rejected.increment();
+            throw new InsufficientStockException(producto.getName(), quantity, Math.max(0, available));
+        }
+    }
+
+    /**
+     * Fija la cantidad reservada (con la franja del producto tomada)
+     *
+     * @return Cantidad reservada antes
+     */
+    private int set(String userId, String productId, int quantity, long expiresAt) {
+        String key = key(userId, productId);
+        Reservation reservation = reservations.get(key);
+        int held = 0;
+        if (reservation == null) {
+            reservation = new Reservation(key, userId, productId, quantity, expiresAt);
+            reservations.put(key, reservation);
+            productsByUser.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(productId);
+            wheel.schedule(reservation);
+        } else {
+            held = reservation.quantity;
+            reservation.quantity = quantity;
+            reservation.expiresAt = expiresAt;
+        }
+        reservedByProduct.computeIfAbsent(productId, k -> new AtomicInteger()).addAndGet(quantity - held);
+        dirty.add(key);
+        return held;
+    }
+
+    private void removeLocked(Reservation reservation) {
+        if (reservation == null || !reservations.remove(reservation.key, reservation)) {
+            return;
+        }
+        reservation.released = true;
+
+        AtomicInteger counter = reservedByProduct.get(reservation.productId);
+        if (counter != null && counter.addAndGet(-reservation.quantity) <= 0) {
+            reservedByProduct.remove(reservation.productId, counter);
+        }
+        productsByUser.computeIfPresent(reservation.userId, (k, productIds) -> {
+            productIds.remove(reservation.productId);
+            return productIds.isEmpty() ? null : productIds;
+        });
+        dirty.add(reservation.key);
+    }
+
+    /**
+     * @return true si la reserva ya no debe seguir en la rueda (vencida o liberada)
+     */
+    private boolean expireIfDue(Reservation reservation, long now) {
+        if (reservation.released) {
+            return true;
+        }
+        if (reservation.expiresAt > now) {
+            return false;
+        }
+        ReentrantLock lock = stripeOf(reservation.productId);
+        lock.lock();
+        try {
+            if (reservation.released) {
+                return true;
+            }
+            if (reservation.expiresAt > now) {
+                return false;
+            }
+            removeLocked(reservation);
+            expired.increment();
+            log.debug("Reserva vencida: {} unidades de {} (usuario {})",
+                    reservation.quantity, reservation.productId, reservation.userId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean restoreLoaded(StockReservation stored) {
+        if (stored.getQuantity() == null || stored.getQuantity() <= 0 || stored.getExpiresAt() == null) {
+            return false;
+        }
+        ReentrantLock lock = stripeOf(stored.getProductId());
+        lock.lock();
+        try {
+            String key = key(stored.getUserId(), stored.getProductId());
+            if (reservations.containsKey(key)) {
+                return false;
+            }
+            set(stored.getUserId(), stored.getProductId(), stored.getQuantity(), stored.getExpiresAt().getTime());
+            // Ya está en Mongo tal cual
+            dirty.remove(key);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String key(String userId, String productId) {
+        return userId + "|" + productId;
+    }
+
+    private static int stripeIndex(String productId) {
+        int h = productId.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private ReentrantLock stripeOf(String productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    /** Franjas distintas en orden ascendente: orden fijo para tomar varios locks sin bloqueos cruzados */
+    private static int[] stripesOf(Collection<String> productIds) {
+        return productIds.stream().mapToInt(StockReservationLedger::stripeIndex).distinct().sorted().toArray();
+    }
+
+    private void lock(int[] order) {
+        for (int index : order) {
+            stripes[index].lock();
+        }
+    }
+
+    private void unlock(int[] order) {
+        for (int i = order.length - 1; i >= 0; i--) {
+            stripes[order[i]].unlock();
+        }
+    }
+
+    /**
+     * Reserva en memoria; cantidad y vencimiento se leen sin lock al escribir a Mongo
+     */
+    private static final class Reservation {
+        private final String key;
+        private final String userId;
+        private final String productId;
+        private volatile int quantity;
+        private volatile long expiresAt;
+        private volatile boolean released;
+
+        private Reservation(String key, String userId, String productId, int quantity, long expiresAt) {
+            this.key = key;
+            this.userId = userId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+
+        private StockReservation toDocument() {
+            return new StockReservation(key, userId, productId, quantity, new Date(expiresAt));
+        }
+    }
+
+    /**
+     * Rueda de temporizadores: una ranura por tick, cada reserva va en la ranura de su vencimiento.
+     * Programar es O(1); cada tick solo revisa su ranura. Las reservas que aún no vencen
+     * (extendidas por actividad o de una vuelta posterior) se vuelven a programar.
+     */
+    private static final class TimerWheel {
+        private final long tickMillis;
+        private final ConcurrentLinkedQueue<Reservation>[] slots;
+        private long lastTick;
+
+        @SuppressWarnings("unchecked")
+        private TimerWheel(long tickMillis, int size) {
+            this.tickMillis = tickMillis;
+            this.slots = new ConcurrentLinkedQueue[size];
+            Arrays.setAll(slots, i -> new ConcurrentLinkedQueue<>());
+            this.lastTick = System.currentTimeMillis() / tickMillis;
+        }
+
+        /** Primer tick en el que la reserva ya está vencida */
+        private void schedule(Reservation reservation) {
+            long tick = (reservation.expiresAt + tickMillis - 1) / tickMillis;
+            slots[(int) Math.floorMod(tick, (long) slots.length)].add(reservation);
+        }
+
+        /**
+         * @param done true si la reserva sale de la rueda; si no, se vuelve a programar
+         */
+        private synchronized void advance(long now, Predicate<Reservation> done) {
+            long currentTick = now / tickMillis;
+            // Tras una pausa larga basta con una vuelta completa
+            long from = Math.max(lastTick + 1, currentTick - slots.length + 1);
+            for (long tick = from; tick <= currentTick; tick++) {
+                ConcurrentLinkedQueue<Reservation> slot = slots[(int) Math.floorMod(tick, (long) slots.length)];
+                List<Reservation> pending = new ArrayList<>();
+                Reservation reservation;
+                while ((reservation = slot.poll()) != null) {
+                    if (!done.test(reservation)) {
+                        pending.add(reservation);
+                    }
+                }
+                pending.forEach(this::schedule);
+            }
+            lastTick = Math.max(lastTick, currentTick);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.diedev.firex.catalog;
+
+/**
+ * Base para estructuras en memoria que se derivan de la foto del catálogo.
+ * Cada índice recuerda la versión de la foto con la que fue construido y se
+ * reconstruye (una sola vez, bajo lock) la primera vez que se consulta tras un cambio.
+ * Así las escrituras del catálogo no pagan el costo de reindexar y una ráfaga de
+ * escrituras produce una sola reconstrucción.
+ *
+ * @param <T> Estructura inmutable construida a partir de la foto
+ */
+public abstract class CatalogDerivedIndex<T> {
+
+    private final ProductCatalogCache catalogCache;
+
+    private volatile Built<T> built;
+
+    protected CatalogDerivedIndex(ProductCatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Devuelve el índice al día con la foto vigente
+     */
+    protected T current() {
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        Built<T> existing = built;
+        if (existing != null && existing.version == snapshot.getVersion()) {
+            return existing.index;
+        }
+        return rebuild(snapshot);
+    }
+
+    protected abstract T build(CatalogSnapshot snapshot);
+
+    private synchronized T rebuild(CatalogSnapshot snapshot) {
+        Built<T> existing = built;
+        if (existing != null && existing.version >= snapshot.getVersion()) {
+            return existing.index;
+        }
+        T index = build(snapshot);
+        built = new Built<>(snapshot.getVersion(), index);
+        return index;
+    }
+
+    private static final class Built<T> {
+        private final long version;
+        private final T index;
+
+        private Built(long version, T index) {
+            this.version = version;
+            this.index = index;
+        }
+    }
+}
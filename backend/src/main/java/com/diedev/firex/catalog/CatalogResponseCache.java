@@ -0,0 +1,184 @@
+package com.diedev.firex.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache de respuestas ya serializadas (JSON y JSON gzip) de los listados del catálogo.
+ * Las entradas pertenecen a una versión de la foto del catálogo: cuando la versión cambia
+ * se descartan todas y se vuelven a generar en la siguiente petición.
+ * El ETag es el hash del contenido, así es el mismo en todas las instancias y no cambia
+ * si una recarga produce exactamente el mismo JSON.
+ */
+@Slf4j
+@Component
+public class CatalogResponseCache {
+
+    /** Por debajo de este tamaño no vale la pena enviar gzip */
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final ProductCatalogCache catalogCache;
+    private final ObjectMapper objectMapper;
+
+    private volatile Generation generation = new Generation(-1, Map.of());
+
+    public CatalogResponseCache(ProductCatalogCache catalogCache, ObjectMapper objectMapper) {
+        this.catalogCache = catalogCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Responde un listado del catálogo desde el cache, o con 304 si el cliente ya lo tiene
+     *
+     * @param key Identificador del listado (ej: "products", "category:{id}")
+     * @param requestHeaders Headers de la petición (If-None-Match, If-Modified-Since, Accept-Encoding)
+     * @param body Genera el cuerpo cuando no está en cache
+     * @return Respuesta 200 con los bytes serializados o 304 sin cuerpo
+     */
+    public ResponseEntity<byte[]> respond(String key, HttpHeaders requestHeaders, Supplier<Object> body) {
+        long version = catalogCache.snapshot().getVersion();
+
+        Generation current = generation;
+        if (current.version != version) {
+            current = advance(version);
+        }
+
+        Generation target = current;
+        Payload payload = target.payloads.get(key);
+        if (payload == null) {
+            payload = target.payloads.computeIfAbsent(key, k -> serialize(target, k, body.get()));
+        }
+
+        if (isNotModified(requestHeaders, payload)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(payload.etag)
+                    .lastModified(payload.lastModified)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(payload.etag)
+                .lastModified(payload.lastModified)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (payload.gzip != null && acceptsGzip(requestHeaders)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip);
+        }
+        return response.body(payload.json);
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private synchronized Generation advance(long version) {
+        Generation previous = generation;
+        if (previous.version >= version) {
+            return previous;
+        }
+        Generation next = new Generation(version, previous.payloads);
+        generation = next;
+        return next;
+    }
+
+    private Payload serialize(Generation target, String key, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            String etag = "\"" + sha256(json) + "\"";
+
+            // Si el contenido no cambió respecto a la versión anterior, se conserva su Last-Modified
+            Payload before = target.previous.get(key);
+            Instant lastModified = before != null && before.etag.equals(etag)
+                    ? before.lastModified
+                    : Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+            byte[] gzip = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+            log.debug("Respuesta del catálogo serializada: {} ({} bytes, gzip: {} bytes)",
+                    key, json.length, gzip != null ? gzip.length : 0);
+            return new Payload(json, gzip, etag, lastModified);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta del catálogo: " + key, e);
+        }
+    }
+
+    private boolean isNotModified(HttpHeaders requestHeaders, Payload payload) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return ifNoneMatch.contains(payload.etag) || ifNoneMatch.contains("*");
+        }
+
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0 && payload.lastModified.toEpochMilli() <= ifModifiedSince;
+    }
+
+    private boolean acceptsGzip(HttpHeaders requestHeaders) {
+        List<String> acceptEncoding = requestHeaders.get(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.stream().anyMatch(value -> value.contains("gzip"));
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Respuestas generadas para una versión de la foto del catálogo
+     */
+    private static final class Generation {
+        private final long version;
+        private final Map<String, Payload> payloads = new ConcurrentHashMap<>();
+        private final Map<String, Payload> previous;
+
+        private Generation(long version, Map<String, Payload> previous) {
+            this.version = version;
+            this.previous = previous;
+        }
+    }
+
+    private static final class Payload {
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+        private final Instant lastModified;
+
+        private Payload(byte[] json, byte[] gzip, String etag, Instant lastModified) {
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
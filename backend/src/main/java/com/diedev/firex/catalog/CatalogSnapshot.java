@@ -0,0 +1,105 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.models.Categoria;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Foto inmutable y versionada del catálogo en memoria.
+ * Los productos ya vienen unidos con su categoría (ProductResponse listo para serializar),
+ * ordenados por ID para que el orden sea estable entre versiones.
+ * Las instancias devueltas son compartidas: NO deben modificarse.
+ */
+public final class CatalogSnapshot {
+
+    static final Comparator<ProductResponse> BY_ID = Comparator.comparing(ProductResponse::getId);
+
+    private final long version;
+    private final Instant builtAt;
+    private final Instant loadedAt;
+    private final List<ProductResponse> products;
+    private final Map<String, ProductResponse> productsById;
+    private final Map<String, List<ProductResponse>> productsByCategory;
+    private final Map<String, Categoria> categories;
+
+    CatalogSnapshot(long version, Instant loadedAt, List<ProductResponse> products, Map<String, Categoria> categories) {
+        this.version = version;
+        this.builtAt = Instant.now();
+        this.loadedAt = loadedAt != null ? loadedAt : builtAt;
+
+        List<ProductResponse> sorted = new ArrayList<>(products);
+        sorted.sort(BY_ID);
+        this.products = Collections.unmodifiableList(sorted);
+
+        Map<String, ProductResponse> byId = new HashMap<>(sorted.size() * 2);
+        Map<String, List<ProductResponse>> byCategory = new HashMap<>();
+        for (ProductResponse product : sorted) {
+            byId.put(product.getId(), product);
+            String categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+            if (categoryId != null) {
+                byCategory.computeIfAbsent(categoryId, k -> new ArrayList<>()).add(product);
+            }
+        }
+        byCategory.replaceAll((k, v) -> Collections.unmodifiableList(v));
+
+        this.productsById = Collections.unmodifiableMap(byId);
+        this.productsByCategory = Collections.unmodifiableMap(byCategory);
+        this.categories = Collections.unmodifiableMap(new LinkedHashMap<>(categories));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Momento de la última carga completa desde Mongo (los parches lo conservan)
+     */
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public List<ProductResponse> getProducts() {
+        return products;
+    }
+
+    public ProductResponse getProduct(String id) {
+        return productsById.get(id);
+    }
+
+    public List<ProductResponse> getProductsByCategory(String categoryId) {
+        return productsByCategory.getOrDefault(categoryId, List.of());
+    }
+
+    public Categoria getCategory(String id) {
+        return id != null ? categories.get(id) : null;
+    }
+
+    public Map<String, Categoria> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Productos con stock > 0 (misma semántica que ProductRepository.findAvailableProducts)
+     */
+    public List<ProductResponse> getAvailableProducts() {
+        return products.stream()
+                .filter(p -> p.getStock() != null && p.getStock() > 0)
+                .toList();
+    }
+
+    public int size() {
+        return products.size();
+    }
+}
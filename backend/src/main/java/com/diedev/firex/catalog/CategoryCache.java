@@ -0,0 +1,159 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.models.Categoria;
+import com.diedev.firex.repositories.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cache de toda la colección de categorías, compartido por toda la aplicación.
+ * Se carga al arrancar y cada cambio reemplaza el conjunto completo de forma atómica,
+ * así ningún lector ve un estado a medias. Una categoría que no esté en memoria
+ * (creada desde otra instancia) se busca en Mongo y se agrega.
+ */
+@Slf4j
+@Component
+public class CategoryCache {
+
+    private static final Comparator<Categoria> BY_NAME = Comparator.comparing(
+            Categoria::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final CategoryRepository categoryRepository;
+    private final Duration maxAge;
+
+    private final AtomicReference<Categories> current = new AtomicReference<>();
+
+    public CategoryCache(CategoryRepository categoryRepository,
+                         @Value("${firex.categories.max-age-seconds:3600}") long maxAgeSeconds) {
+        this.categoryRepository = categoryRepository;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+    }
+
+    /**
+     * Precarga en segundo plano para no retrasar el arranque si Mongo tarda en responder
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        CompletableFuture.runAsync(this::reload).exceptionally(ex -> {
+            log.warn("No se pudieron precargar las categorías: {}", ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Todas las categorías ordenadas por nombre
+     */
+    public List<Categoria> getAll() {
+        return categories().sorted;
+    }
+
+    /**
+     * Mapa inmutable ID -> categoría
+     */
+    public Map<String, Categoria> asMap() {
+        return categories().byId;
+    }
+
+    /**
+     * Busca una categoría; si no está en memoria consulta Mongo una vez
+     */
+    public Optional<Categoria> find(String id) {
+        if (id == null || id.isBlank()) {
+            return Optional.empty();
+        }
+
+        Categoria categoria = categories().byId.get(id);
+        if (categoria != null) {
+            return Optional.of(categoria);
+        }
+
+        Optional<Categoria> fromDb = categoryRepository.findById(id);
+        fromDb.ifPresent(this::put);
+        return fromDb;
+    }
+
+    /**
+     * Inserta o reemplaza una categoría recién guardada
+     */
+    public synchronized void put(Categoria categoria) {
+        Categories existing = current.get();
+        if (existing == null) {
+            return;
+        }
+        Map<String, Categoria> byId = new HashMap<>(existing.byId);
+        byId.put(categoria.getId(), categoria);
+        current.set(new Categories(byId.values(), existing.loadedAt));
+    }
+
+    /**
+     * Elimina una categoría borrada
+     */
+    public synchronized void remove(String id) {
+        Categories existing = current.get();
+        if (existing == null || !existing.byId.containsKey(id)) {
+            return;
+        }
+        Map<String, Categoria> byId = new HashMap<>(existing.byId);
+        byId.remove(id);
+        current.set(new Categories(byId.values(), existing.loadedAt));
+    }
+
+    /**
+     * Recarga la colección completa desde Mongo
+     */
+    public synchronized void reload() {
+        Categories loaded = new Categories(categoryRepository.findAll(), Instant.now());
+        current.set(loaded);
+        log.info("✅ Cache de categorías cargado: {} categorías", loaded.byId.size());
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private Categories categories() {
+        Categories existing = current.get();
+        if (existing != null && existing.loadedAt.plus(maxAge).isAfter(Instant.now())) {
+            return existing;
+        }
+        return reloadIfUnchanged(existing);
+    }
+
+    private synchronized Categories reloadIfUnchanged(Categories seen) {
+        Categories existing = current.get();
+        if (existing != null && existing != seen) {
+            return existing;
+        }
+        reload();
+        return current.get();
+    }
+
+    /**
+     * Conjunto inmutable de categorías
+     */
+    private static final class Categories {
+        private final Map<String, Categoria> byId;
+        private final List<Categoria> sorted;
+        private final Instant loadedAt;
+
+        private Categories(Collection<Categoria> categorias, Instant loadedAt) {
+            Map<String, Categoria> map = new HashMap<>();
+            categorias.forEach(cat -> map.put(cat.getId(), cat));
+            this.byId = Map.copyOf(map);
+            this.sorted = categorias.stream().sorted(BY_NAME).toList();
+            this.loadedAt = loadedAt;
+        }
+    }
+}
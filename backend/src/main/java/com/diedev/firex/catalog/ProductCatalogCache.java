@@ -0,0 +1,326 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.dto.response.CatalogStatsResponse;
+import com.diedev.firex.dto.response.CategoryResponse;
+import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.models.Categoria;
+import com.diedev.firex.models.Producto;
+import com.diedev.firex.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache en memoria del catálogo de productos.
+ * Las lecturas toman la foto actual sin bloqueo; las escrituras (productos o categorías)
+ * generan una nueva foto parcheada sin volver a consultar Mongo.
+ * La foto se reconstruye completa solo si no existe o si superó su edad máxima
+ * (para recoger cambios hechos por otras instancias).
+ * Cada cambio de stock se propaga también al StockLevelIndex.
+ * Los descuentos de stock de los checkouts se aplican al índice de stock al instante, pero a la foto
+ * se publican acumulados como máximo una vez por intervalo: cada versión nueva invalida los índices
+ * derivados y las respuestas cacheadas (ETag), y con muchos checkouts por segundo se reconstruirían
+ * en casi todas las lecturas.
+ */
+@Slf4j
+@Component
+public class ProductCatalogCache {
+
+    private final ProductRepository productRepository;
+    private final CategoryCache categoryCache;
+    private final StockLevelIndex stockIndex;
+    private final Duration maxAge;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versionCounter = new AtomicLong();
+
+    /** Variaciones de stock ya aplicadas al StockLevelIndex y pendientes de publicar en la foto */
+    private final Map<String, Integer> pendingStock = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder patches = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public ProductCatalogCache(ProductRepository productRepository,
+                               CategoryCache categoryCache,
+                               StockLevelIndex stockIndex,
+                               @Value("${firex.catalog.max-age-seconds:300}") long maxAgeSeconds) {
+        this.productRepository = productRepository;
+        this.categoryCache = categoryCache;
+        this.stockIndex = stockIndex;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+    }
+
+    /**
+     * Devuelve la foto vigente, reconstruyéndola si no existe o expiró
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot != null && !isExpired(snapshot)) {
+            hits.increment();
+            return snapshot;
+        }
+
+        misses.increment();
+        return reloadIfUnchanged(snapshot);
+    }
+
+    /**
+     * Reconstruye la foto completa desde Mongo (1 consulta de productos; categorías del CategoryCache)
+     */
+    public synchronized CatalogSnapshot reload() {
+        long start = System.nanoTime();
+
+        Map<String, Categoria> categories = categoryCache.asMap();
+
+        List<ProductResponse> products = productRepository.findAll().stream()
+                .map(producto -> toResponse(producto, categories.get(producto.getCategoryId())))
+                .toList();
+
+        CatalogSnapshot snapshot = new CatalogSnapshot(versionCounter.incrementAndGet(), null, products, categories);
+        // Los descuentos pendientes ya estaban guardados en Mongo antes de esta lectura
+        pendingStock.clear();
+        current.set(snapshot);
+        stockIndex.rebuild(products);
+
+        rebuilds.increment();
+        lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("✅ Catálogo reconstruido: versión {}, {} productos, {} categorías ({} ms)",
+                snapshot.getVersion(), snapshot.size(), categories.size(), lastRebuildMillis);
+        return snapshot;
+    }
+
+    /**
+     * Inserta o reemplaza un producto recién guardado en la foto vigente
+     *
+     * @return El producto ya unido con su categoría
+     */
+    public synchronized ProductResponse upsert(Producto producto) {
+        // El stock guardado es absoluto: reemplaza cualquier variación pendiente
+        pendingStock.remove(producto.getId());
+        stockIndex.update(producto.getId(), producto.getName(), producto.getStock());
+
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            // Sin foto cargada: solo mapear, la próxima lectura la construye
+            return toResponse(producto, categoryCache.find(producto.getCategoryId()).orElse(null));
+        }
+
+        ProductResponse response = toResponse(producto, snapshot.getCategory(producto.getCategoryId()));
+
+        List<ProductResponse> products = new ArrayList<>(snapshot.size() + 1);
+        for (ProductResponse existing : snapshot.getProducts()) {
+            if (!existing.getId().equals(producto.getId())) {
+                products.add(existing);
+            }
+        }
+        products.add(response);
+
+        publish(new CatalogSnapshot(versionCounter.incrementAndGet(), snapshot.getLoadedAt(), products, snapshot.getCategories()));
+        return response;
+    }
+
+    /**
+     * Elimina un producto de la foto vigente
+     */
+    public synchronized void remove(String productId) {
+        pendingStock.remove(productId);
+        CatalogSnapshot snapshot = current.get();
+        ProductResponse removed = snapshot != null ? snapshot.getProduct(productId) : null;
+        stockIndex.remove(productId, removed != null ? removed.getName() : null);
+        if (removed == null) {
+            return;
+        }
+
+        List<ProductResponse> products = snapshot.getProducts().stream()
+                .filter(p -> !p.getId().equals(productId))
+                .toList();
+
+        publish(new CatalogSnapshot(versionCounter.incrementAndGet(), snapshot.getLoadedAt(), products, snapshot.getCategories()));
+    }
+
+    /**
+     * Registra variaciones de stock (ej: el descuento de un checkout) sin volver a leer Mongo.
+     * Se acumulan deltas y no valores absolutos: los checkouts concurrentes se suman en cualquier orden.
+     * El índice de stock se actualiza ya; la foto, en el siguiente publishStock()
+     *
+     * @param deltas Variación de stock por productId (negativa al vender)
+     */
+    public synchronized void adjustStock(Map<String, Integer> deltas) {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null || deltas.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Integer> entry : deltas.entrySet()) {
+            ProductResponse existing = snapshot.getProduct(entry.getKey());
+            if (existing == null) {
+                continue;
+            }
+            int pending = pendingStock.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            stockIndex.update(existing.getId(), existing.getName(), stockWith(existing, pending));
+        }
+    }
+
+    /**
+     * Publica en la foto las variaciones de stock acumuladas: una sola versión nueva por intervalo
+     */
+    @Scheduled(fixedDelayString = "${firex.catalog.stock-publish-interval-ms:2000}")
+    public synchronized void publishStock() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null || pendingStock.isEmpty()) {
+            pendingStock.clear();
+            return;
+        }
+
+        List<ProductResponse> products = new ArrayList<>(snapshot.size());
+        for (ProductResponse existing : snapshot.getProducts()) {
+            Integer delta = pendingStock.get(existing.getId());
+            if (delta == null) {
+                products.add(existing);
+                continue;
+            }
+            products.add(ProductResponse.builder()
+                    .id(existing.getId())
+                    .name(existing.getName())
+                    .description(existing.getDescription())
+                    .price(existing.getPrice())
+                    .stock(stockWith(existing, delta))
+                    .category(existing.getCategory())
+                    .build());
+        }
+        pendingStock.clear();
+
+        publish(new CatalogSnapshot(versionCounter.incrementAndGet(), snapshot.getLoadedAt(), products, snapshot.getCategories()));
+    }
+
+    /**
+     * Inserta o actualiza una categoría y vuelve a unir sus productos
+     */
+    public synchronized void upsertCategory(Categoria categoria) {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return;
+        }
+
+        Map<String, Categoria> categories = new HashMap<>(snapshot.getCategories());
+        categories.put(categoria.getId(), categoria);
+
+        List<ProductResponse> products = snapshot.getProducts().stream()
+                .map(p -> p.getCategory() != null && categoria.getId().equals(p.getCategory().getId())
+                        ? withCategory(p, categoria)
+                        : p)
+                .toList();
+
+        publish(new CatalogSnapshot(versionCounter.incrementAndGet(), snapshot.getLoadedAt(), products, categories));
+    }
+
+    /**
+     * Elimina una categoría de la foto vigente
+     */
+    public synchronized void removeCategory(String categoryId) {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null || snapshot.getCategory(categoryId) == null) {
+            return;
+        }
+
+        Map<String, Categoria> categories = new HashMap<>(snapshot.getCategories());
+        categories.remove(categoryId);
+
+        publish(new CatalogSnapshot(versionCounter.incrementAndGet(), snapshot.getLoadedAt(), snapshot.getProducts(), categories));
+    }
+
+    /**
+     * Descarta la foto vigente; la próxima lectura la reconstruye
+     */
+    public void invalidate() {
+        current.set(null);
+        log.debug("Catálogo invalidado");
+    }
+
+    public CatalogStatsResponse getStats() {
+        CatalogSnapshot snapshot = current.get();
+        return CatalogStatsResponse.builder()
+                .version(snapshot != null ? snapshot.getVersion() : 0)
+                .builtAt(snapshot != null ? snapshot.getBuiltAt() : null)
+                .products(snapshot != null ? snapshot.size() : 0)
+                .categories(snapshot != null ? snapshot.getCategories().size() : 0)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .rebuilds(rebuilds.sum())
+                .patches(patches.sum())
+                .lastRebuildMillis(lastRebuildMillis)
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    /**
+     * Evita que varios hilos reconstruyan a la vez: si otro hilo ya publicó
+     * una foto válida mientras esperábamos el lock, se reutiliza
+     */
+    private synchronized CatalogSnapshot reloadIfUnchanged(CatalogSnapshot seen) {
+        CatalogSnapshot existing = current.get();
+        if (existing != null && existing != seen && !isExpired(existing)) {
+            return existing;
+        }
+        return reload();
+    }
+
+    private void publish(CatalogSnapshot snapshot) {
+        current.set(snapshot);
+        patches.increment();
+        log.debug("Catálogo parcheado: versión {}", snapshot.getVersion());
+    }
+
+    private static int stockWith(ProductResponse product, int delta) {
+        return Math.max(0, (product.getStock() != null ? product.getStock() : 0) + delta);
+    }
+
+    private boolean isExpired(CatalogSnapshot snapshot) {
+        return snapshot.getLoadedAt().plus(maxAge).isBefore(Instant.now());
+    }
+
+    private ProductResponse withCategory(ProductResponse product, Categoria categoria) {
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .stock(product.getStock())
+                .category(mapToCategoryResponse(categoria))
+                .build();
+    }
+
+    private ProductResponse toResponse(Producto producto, Categoria categoria) {
+        return ProductResponse.builder()
+                .id(producto.getId())
+                .name(producto.getName())
+                .description(producto.getDescription())
+                .price(producto.getPrice())
+                .stock(producto.getStock())
+                .category(categoria != null ? mapToCategoryResponse(categoria) : null)
+                .build();
+    }
+
+    private CategoryResponse mapToCategoryResponse(Categoria categoria) {
+        return CategoryResponse.builder()
+                .id(categoria.getId())
+                .name(categoria.getName())
+                .description(categoria.getDescription())
+                .build();
+    }
+}
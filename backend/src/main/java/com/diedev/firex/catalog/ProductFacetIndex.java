@@ -0,0 +1,285 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.dto.request.ProductQueryRequest;
+import com.diedev.firex.dto.response.FacetCountResponse;
+import com.diedev.firex.dto.response.ProductQueryResponse;
+import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.models.Categoria;
+import com.diedev.firex.util.CursorUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Índices de bits en memoria para filtrar el catálogo combinando categoría, precio,
+ * disponibilidad y palabra clave, y para contar facetas, sin consultas a Mongo.
+ * Cada producto tiene un ordinal (su posición en la foto del catálogo) y cada valor
+ * de filtro es un BitSet sobre esos ordinales: combinar filtros es un AND de bits.
+ * Las facetas se cuentan con todos los filtros excepto el propio (facetas disyuntivas),
+ * así el usuario ve cuántos productos obtendría al cambiar de categoría o de rango.
+ */
+@Slf4j
+@Component
+public class ProductFacetIndex extends CatalogDerivedIndex<ProductFacetIndex.Bitmaps> {
+
+    /** Límites de los rangos de precio en pesos colombianos */
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            new BigDecimal("50000"),
+            new BigDecimal("100000"),
+            new BigDecimal("250000"),
+            new BigDecimal("500000"),
+            new BigDecimal("1000000")
+    };
+
+    private final ProductSearchIndex searchIndex;
+
+    public ProductFacetIndex(ProductCatalogCache catalogCache, ProductSearchIndex searchIndex) {
+        super(catalogCache);
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Evalúa los filtros y arma la página de resultados con sus facetas
+     */
+    public ProductQueryResponse query(ProductQueryRequest query) {
+        Bitmaps bitmaps = current();
+
+        List<ProductResponse> ranked = null;
+        BitSet keywordBits = null;
+        if (query.getKeyword() != null && !query.getKeyword().isBlank()) {
+            ranked = searchIndex.search(query.getKeyword());
+            keywordBits = bitmaps.toBits(ranked);
+        }
+
+        BitSet categoryBits = query.getCategoryId() != null && !query.getCategoryId().isBlank()
+                ? bitmaps.byCategory.getOrDefault(query.getCategoryId(), new BitSet())
+                : null;
+        BitSet priceBits = query.getMinPrice() != null || query.getMaxPrice() != null
+                ? bitmaps.priceRange(query.getMinPrice(), query.getMaxPrice())
+                : null;
+        BitSet stockBits = Boolean.TRUE.equals(query.getInStock()) ? bitmaps.inStock : null;
+
+        BitSet result = and(bitmaps.all, categoryBits, priceBits, stockBits, keywordBits);
+
+        // Ordinales resultantes: por relevancia si hay palabra clave, si no en el orden del catálogo
+        List<Integer> ordinals = new ArrayList<>(result.cardinality());
+        if (ranked != null) {
+            for (ProductResponse product : ranked) {
+                Integer ordinal = bitmaps.ordinalById.get(product.getId());
+                if (ordinal != null && result.get(ordinal)) {
+                    ordinals.add(ordinal);
+                }
+            }
+        } else {
+            result.stream().forEach(ordinals::add);
+        }
+
+        int size = query.getSize() != null ? query.getSize() : CursorUtils.DEFAULT_PAGE_SIZE;
+        int from = Math.min(CursorUtils.decodeOffset(query.getCursor()), ordinals.size());
+        int to = Math.min(from + size, ordinals.size());
+        boolean hasMore = to < ordinals.size();
+
+        List<ProductResponse> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(bitmaps.docs[ordinals.get(i)]);
+        }
+
+        return ProductQueryResponse.builder()
+                .items(items)
+                .total(ordinals.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorUtils.encodeOffset(to) : null)
+                .categories(bitmaps.categoryFacets(and(bitmaps.all, priceBits, stockBits, keywordBits)))
+                .priceRanges(bitmaps.priceFacets(and(bitmaps.all, categoryBits, stockBits, keywordBits)))
+                .build();
+    }
+
+    @Override
+    protected Bitmaps build(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        Bitmaps bitmaps = new Bitmaps(snapshot);
+        log.debug("Índice de facetas construido: versión {}, {} productos ({} µs)",
+                snapshot.getVersion(), bitmaps.docs.length, (System.nanoTime() - start) / 1_000);
+        return bitmaps;
+    }
+
+    private static BitSet and(BitSet base, BitSet... filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static int countAnd(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+
+    /**
+     * Estructura inmutable con un BitSet por valor de filtro
+     */
+    static final class Bitmaps {
+
+        private final ProductResponse[] docs;
+        private final Map<String, Integer> ordinalById;
+        private final BitSet all;
+        private final BitSet inStock;
+        private final Map<String, BitSet> byCategory;
+        private final Map<String, String> categoryLabels;
+        private final BitSet[] priceBuckets;
+
+        /** Ordinales ordenados por precio, para resolver rangos arbitrarios con búsqueda binaria */
+        private final int[] byPrice;
+        private final BigDecimal[] sortedPrices;
+
+        Bitmaps(CatalogSnapshot snapshot) {
+            this.docs = snapshot.getProducts().toArray(new ProductResponse[0]);
+            this.ordinalById = new HashMap<>(docs.length * 2);
+            this.all = new BitSet(docs.length);
+            this.inStock = new BitSet(docs.length);
+            this.byCategory = new HashMap<>();
+            this.priceBuckets = new BitSet[PRICE_BOUNDS.length + 1];
+            for (int b = 0; b < priceBuckets.length; b++) {
+                priceBuckets[b] = new BitSet(docs.length);
+            }
+
+            for (int ordinal = 0; ordinal < docs.length; ordinal++) {
+                ProductResponse product = docs[ordinal];
+                ordinalById.put(product.getId(), ordinal);
+                all.set(ordinal);
+
+                if (product.getStock() != null && product.getStock() > 0) {
+                    inStock.set(ordinal);
+                }
+                if (product.getCategory() != null) {
+                    byCategory.computeIfAbsent(product.getCategory().getId(), k -> new BitSet(docs.length)).set(ordinal);
+                }
+                if (product.getPrice() != null) {
+                    priceBuckets[bucketOf(product.getPrice())].set(ordinal);
+                }
+            }
+
+            // Etiquetas en orden alfabético para que la faceta se muestre estable
+            this.categoryLabels = new LinkedHashMap<>();
+            snapshot.getCategories().values().stream()
+                    .sorted(Comparator.comparing(Categoria::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .forEach(cat -> categoryLabels.put(cat.getId(), cat.getName()));
+
+            this.byPrice = IntStream.range(0, docs.length)
+                    .filter(ordinal -> docs[ordinal].getPrice() != null)
+                    .boxed()
+                    .sorted(Comparator.comparing(ordinal -> docs[ordinal].getPrice()))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            this.sortedPrices = new BigDecimal[byPrice.length];
+            for (int i = 0; i < byPrice.length; i++) {
+                sortedPrices[i] = docs[byPrice[i]].getPrice();
+            }
+        }
+
+        BitSet toBits(List<ProductResponse> products) {
+            BitSet bits = new BitSet(docs.length);
+            for (ProductResponse product : products) {
+                Integer ordinal = ordinalById.get(product.getId());
+                if (ordinal != null) {
+                    bits.set(ordinal);
+                }
+            }
+            return bits;
+        }
+
+        /**
+         * Productos con min <= precio <= max (cualquiera de los dos puede ser null)
+         */
+        BitSet priceRange(BigDecimal min, BigDecimal max) {
+            int from = min != null ? lowerBound(min) : 0;
+            int to = max != null ? upperBound(max) : sortedPrices.length;
+
+            BitSet bits = new BitSet(docs.length);
+            for (int i = from; i < to; i++) {
+                bits.set(byPrice[i]);
+            }
+            return bits;
+        }
+
+        List<FacetCountResponse> categoryFacets(BitSet filter) {
+            List<FacetCountResponse> facets = new ArrayList<>();
+            for (Map.Entry<String, String> category : categoryLabels.entrySet()) {
+                BitSet bits = byCategory.get(category.getKey());
+                int count = bits != null ? countAnd(bits, filter) : 0;
+                facets.add(FacetCountResponse.builder()
+                        .value(category.getKey())
+                        .label(category.getValue())
+                        .count(count)
+                        .build());
+            }
+            return facets;
+        }
+
+        List<FacetCountResponse> priceFacets(BitSet filter) {
+            List<FacetCountResponse> facets = new ArrayList<>(priceBuckets.length);
+            for (int b = 0; b < priceBuckets.length; b++) {
+                String min = b > 0 ? PRICE_BOUNDS[b - 1].toPlainString() : "0";
+                String max = b < PRICE_BOUNDS.length ? PRICE_BOUNDS[b].toPlainString() : null;
+                facets.add(FacetCountResponse.builder()
+                        .value(max != null ? min + "-" + max : min + "+")
+                        .label(max != null ? "$" + min + " - $" + max : "Más de $" + min)
+                        .count(countAnd(priceBuckets[b], filter))
+                        .build());
+            }
+            return facets;
+        }
+
+        private static int bucketOf(BigDecimal price) {
+            for (int b = 0; b < PRICE_BOUNDS.length; b++) {
+                if (price.compareTo(PRICE_BOUNDS[b]) < 0) {
+                    return b;
+                }
+            }
+            return PRICE_BOUNDS.length;
+        }
+
+        /** Primera posición con precio >= value */
+        private int lowerBound(BigDecimal value) {
+            int lo = 0;
+            int hi = sortedPrices.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedPrices[mid].compareTo(value) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** Primera posición con precio > value */
+        private int upperBound(BigDecimal value) {
+            int lo = 0;
+            int hi = sortedPrices.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedPrices[mid].compareTo(value) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.dto.response.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido en memoria sobre nombre y descripción de los productos.
+ * Reemplaza el $regex sin ancla (que recorría toda la colección) por:
+ * - tokens normalizados sin tildes (ver TextNormalizer)
+ * - todos los términos de la búsqueda deben aparecer (AND)
+ * - el último término se expande por prefijo, para búsquedas mientras se escribe
+ * - ranking BM25, con el nombre pesando más que la descripción
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex extends CatalogDerivedIndex<ProductSearchIndex.Index> {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int NAME_WEIGHT = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    public ProductSearchIndex(ProductCatalogCache catalogCache) {
+        super(catalogCache);
+    }
+
+    /**
+     * Busca productos y los devuelve ordenados por relevancia
+     *
+     * @param keyword Texto ingresado por el usuario
+     * @return Productos que contienen todos los términos, del más al menos relevante
+     */
+    public List<ProductResponse> search(String keyword) {
+        List<String> queryTokens = TextNormalizer.tokenize(keyword);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+        return current().search(queryTokens);
+    }
+
+    @Override
+    protected Index build(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        Index index = new Index(snapshot.getProducts());
+        log.debug("Índice de búsqueda construido: versión {}, {} productos, {} términos ({} µs)",
+                snapshot.getVersion(), index.docs.length, index.terms.length, (System.nanoTime() - start) / 1_000);
+        return index;
+    }
+
+    /**
+     * Estructura inmutable: vocabulario ordenado y listas de postings por término
+     */
+    static final class Index {
+
+        private final ProductResponse[] docs;
+        private final String[] terms;
+        private final int[][] postingDocs;
+        private final int[][] postingFreqs;
+        private final float[] docLengths;
+        private final float avgDocLength;
+
+        Index(List<ProductResponse> products) {
+            this.docs = products.toArray(new ProductResponse[0]);
+            this.docLengths = new float[docs.length];
+
+            Map<String, List<int[]>> postings = new HashMap<>();
+            long totalLength = 0;
+
+            for (int doc = 0; doc < docs.length; doc++) {
+                Map<String, Integer> freqs = new HashMap<>();
+                int length = 0;
+                for (String token : TextNormalizer.tokenize(docs[doc].getName())) {
+                    freqs.merge(token, NAME_WEIGHT, Integer::sum);
+                    length += NAME_WEIGHT;
+                }
+                for (String token : TextNormalizer.tokenize(docs[doc].getDescription())) {
+                    freqs.merge(token, 1, Integer::sum);
+                    length++;
+                }
+
+                docLengths[doc] = length;
+                totalLength += length;
+                for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+                    postings.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                            .add(new int[]{doc, entry.getValue()});
+                }
+            }
+
+            this.avgDocLength = docs.length > 0 ? Math.max(1f, (float) totalLength / docs.length) : 1f;
+            this.terms = postings.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+
+            this.postingDocs = new int[terms.length][];
+            this.postingFreqs = new int[terms.length][];
+            for (int t = 0; t < terms.length; t++) {
+                List<int[]> list = postings.get(terms[t]);
+                postingDocs[t] = new int[list.size()];
+                postingFreqs[t] = new int[list.size()];
+                for (int i = 0; i < list.size(); i++) {
+                    postingDocs[t][i] = list.get(i)[0];
+                    postingFreqs[t][i] = list.get(i)[1];
+                }
+            }
+        }
+
+        List<ProductResponse> search(List<String> queryTokens) {
+            float[] scores = new float[docs.length];
+            // matched[doc] = cuántos términos de la búsqueda (en orden) ya encontró el documento
+            int[] matched = new int[docs.length];
+
+            for (int q = 0; q < queryTokens.size(); q++) {
+                boolean last = q == queryTokens.size() - 1;
+                int[] termIds = expand(queryTokens.get(q), last);
+                if (termIds.length == 0) {
+                    return List.of();
+                }
+
+                for (int termId : termIds) {
+                    int[] docsOfTerm = postingDocs[termId];
+                    int[] freqsOfTerm = postingFreqs[termId];
+                    float idf = idf(docsOfTerm.length);
+
+                    for (int i = 0; i < docsOfTerm.length; i++) {
+                        int doc = docsOfTerm[i];
+                        // Solo avanza si cumplió todos los términos anteriores; cuenta una vez por término
+                        if (matched[doc] == q) {
+                            matched[doc] = q + 1;
+                            scores[doc] += idf * tfWeight(freqsOfTerm[i], docLengths[doc]);
+                        }
+                    }
+                }
+            }
+
+            int required = queryTokens.size();
+            List<Integer> hits = new ArrayList<>();
+            for (int doc = 0; doc < docs.length; doc++) {
+                if (matched[doc] == required) {
+                    hits.add(doc);
+                }
+            }
+
+            hits.sort(Comparator.<Integer>comparingDouble(doc -> -scores[doc])
+                    .thenComparing(doc -> docs[doc].getName()));
+
+            List<ProductResponse> results = new ArrayList<>(hits.size());
+            for (int doc : hits) {
+                results.add(docs[doc]);
+            }
+            return results;
+        }
+
+        /**
+         * Términos del vocabulario que corresponden a un token de la búsqueda.
+         * El término exacto va primero para que aporte su puntaje antes que las expansiones.
+         */
+        private int[] expand(String token, boolean prefix) {
+            int exact = Arrays.binarySearch(terms, token);
+            if (!prefix) {
+                return exact >= 0 ? new int[]{exact} : new int[0];
+            }
+
+            int from = exact >= 0 ? exact : -exact - 1;
+            List<Integer> ids = new ArrayList<>();
+            if (exact >= 0) {
+                ids.add(exact);
+                from++;
+            }
+            for (int t = from; t < terms.length && ids.size() < MAX_PREFIX_EXPANSIONS
+                    && terms[t].startsWith(token); t++) {
+                ids.add(t);
+            }
+            return ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private float idf(int docFreq) {
+            return (float) Math.log(1 + (docs.length - docFreq + 0.5) / (docFreq + 0.5));
+        }
+
+        private float tfWeight(int freq, float docLength) {
+            return (freq * (K1 + 1)) / (freq + K1 * (1 - B + B * docLength / avgDocLength));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.dto.response.SuggestionResponse;
+import com.diedev.firex.models.Categoria;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índice de prefijos (trie compacto) para autocompletar el buscador.
+ * Se alimenta con los nombres de productos y categorías de la foto del catálogo;
+ * cada nombre se inserta desde el inicio de cada palabra, así "co2" encuentra "Extintor CO2 5kg".
+ * Cada nodo guarda precalculadas sus mejores sugerencias, por lo que una consulta
+ * cuesta lo que mide el prefijo, sin tocar Mongo.
+ */
+@Slf4j
+@Component
+public class ProductSuggestionIndex extends CatalogDerivedIndex<ProductSuggestionIndex.Trie> {
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    /** Profundidad máxima insertada por palabra: acota el tamaño del trie */
+    private static final int MAX_KEY_LENGTH = 32;
+
+    public ProductSuggestionIndex(ProductCatalogCache catalogCache) {
+        super(catalogCache);
+    }
+
+    /**
+     * Sugerencias para lo que el usuario lleva escrito
+     *
+     * @param prefix Texto parcial
+     * @param limit Cantidad máxima (1..MAX_SUGGESTIONS)
+     * @return Sugerencias ordenadas: categorías, productos con stock y luego agotados
+     */
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String key = TextNormalizer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return current().lookup(key, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    @Override
+    protected Trie build(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+
+        List<Entry> entries = new ArrayList<>();
+        for (Categoria categoria : snapshot.getCategories().values()) {
+            entries.add(new Entry(categoria.getName(), "CATEGORY", categoria.getId(), 3));
+        }
+        for (ProductResponse product : snapshot.getProducts()) {
+            int weight = product.getStock() != null && product.getStock() > 0 ? 2 : 1;
+            entries.add(new Entry(product.getName(), "PRODUCT", product.getId(), weight));
+        }
+
+        Trie trie = new Trie(entries);
+        log.debug("Índice de sugerencias construido: versión {}, {} entradas, {} nodos ({} µs)",
+                snapshot.getVersion(), entries.size(), trie.nodeCount, (System.nanoTime() - start) / 1_000);
+        return trie;
+    }
+
+    private static final class Entry {
+        private final String text;
+        private final String type;
+        private final String id;
+        private final int weight;
+
+        private Entry(String text, String type, String id, int weight) {
+            this.text = text != null ? text : "";
+            this.type = type;
+            this.id = id;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Trie inmutable: cada nodo tiene sus hijos en arreglos ordenados (búsqueda binaria)
+     * y los índices de sus mejores entradas
+     */
+    static final class Trie {
+
+        private static final Comparator<Entry> RANKING = Comparator
+                .comparingInt((Entry e) -> -e.weight)
+                .thenComparingInt(e -> e.text.length())
+                .thenComparing(e -> e.text);
+
+        private final Entry[] entries;
+        private final Node root;
+        private int nodeCount;
+
+        Trie(List<Entry> source) {
+            this.entries = source.stream().sorted(RANKING).toArray(Entry[]::new);
+
+            // Al insertar en orden de ranking, cada nodo recibe sus candidatos ya ordenados
+            BuildNode buildRoot = new BuildNode();
+            for (int i = 0; i < entries.length; i++) {
+                String key = TextNormalizer.normalize(entries[i].text);
+                for (int start = 0; start < key.length(); start++) {
+                    if (start == 0 || key.charAt(start - 1) == ' ') {
+                        insert(buildRoot, key, start, i);
+                    }
+                }
+            }
+            this.root = freeze(buildRoot);
+        }
+
+        List<SuggestionResponse> lookup(String key, int limit) {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            List<SuggestionResponse> results = new ArrayList<>(Math.min(limit, node.top.length));
+            for (int i = 0; i < node.top.length && results.size() < limit; i++) {
+                Entry entry = entries[node.top[i]];
+                results.add(SuggestionResponse.builder()
+                        .text(entry.text)
+                        .type(entry.type)
+                        .id(entry.id)
+                        .build());
+            }
+            return results;
+        }
+
+        private void insert(BuildNode node, String key, int start, int entry) {
+            int end = Math.min(key.length(), start + MAX_KEY_LENGTH);
+            for (int i = start; i < end; i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new BuildNode());
+                node.offer(entry);
+            }
+        }
+
+        private Node freeze(BuildNode node) {
+            nodeCount++;
+            char[] labels = new char[node.children.size()];
+            Node[] children = new Node[node.children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                labels[i] = child.getKey();
+                children[i] = freeze(child.getValue());
+                i++;
+            }
+            return new Node(labels, children, node.top.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    private static final class BuildNode {
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private final List<Integer> top = new ArrayList<>();
+
+        private void offer(int entry) {
+            // La misma entrada puede llegar dos veces al nodo desde palabras distintas
+            if (top.size() < MAX_SUGGESTIONS && (top.isEmpty() || top.get(top.size() - 1) != entry)) {
+                top.add(entry);
+            }
+        }
+    }
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(char[] labels, Node[] children, int[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+
+        private Node child(char c) {
+            int idx = Arrays.binarySearch(labels, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+    }
+}
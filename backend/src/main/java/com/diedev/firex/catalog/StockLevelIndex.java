@@ -0,0 +1,213 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.dto.response.StockLevelsResponse;
+import com.diedev.firex.enums.StockLevel;
+import com.diedev.firex.events.StockLevelChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vista de inventario mantenida de forma incremental: conjuntos ordenados en memoria
+ * con los productos con stock (por stock, _id) y los agotados (por _id).
+ * ProductCatalogCache la actualiza en cada escritura de producto y la reconcilia en cada
+ * recarga completa, así "stock bajo" y "agotados" se leen por rango sin recorrer el catálogo,
+ * con cualquier umbral. Cuando un producto cruza el umbral configurado se publica
+ * un StockLevelChangedEvent para las alertas.
+ */
+@Slf4j
+@Component
+public class StockLevelIndex {
+
+    private static final Comparator<Entry> BY_STOCK = Comparator
+            .comparingLong(Entry::getStock)
+            .thenComparing(Entry::getId);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final int lowThreshold;
+
+    private final Map<String, Integer> stockById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> inStock = new ConcurrentSkipListSet<>(BY_STOCK);
+    private final ConcurrentSkipListSet<String> outOfStock = new ConcurrentSkipListSet<>();
+    private final Map<StockLevel, AtomicInteger> counts = new EnumMap<>(StockLevel.class);
+    private final LongAdder events = new LongAdder();
+    private volatile boolean loaded;
+
+    public StockLevelIndex(ApplicationEventPublisher eventPublisher,
+                           @Value("${firex.stock.low-threshold:10}") int lowThreshold) {
+        this.eventPublisher = eventPublisher;
+        this.lowThreshold = lowThreshold;
+        for (StockLevel level : StockLevel.values()) {
+            counts.put(level, new AtomicInteger());
+        }
+    }
+
+    public int getLowThreshold() {
+        return lowThreshold;
+    }
+
+    /**
+     * Registra el stock actual de un producto recién guardado
+     */
+    public synchronized void update(String productId, String productName, Integer stock) {
+        apply(productId, productName, stock, loaded);
+    }
+
+    /**
+     * Quita un producto eliminado
+     */
+    public synchronized void remove(String productId, String productName) {
+        removeEntry(productId, productName, loaded);
+    }
+
+    /**
+     * Reconcilia con el catálogo completo recién cargado; solo cambian (y notifican)
+     * los productos cuyo stock difiere, por ejemplo por escrituras de otra instancia
+     */
+    public synchronized void rebuild(List<ProductResponse> products) {
+        boolean notify = loaded;
+        Set<String> seen = new HashSet<>(products.size() * 2);
+        for (ProductResponse product : products) {
+            seen.add(product.getId());
+            apply(product.getId(), product.getName(), product.getStock(), notify);
+        }
+        for (String productId : new ArrayList<>(stockById.keySet())) {
+            if (!seen.contains(productId)) {
+                removeEntry(productId, null, notify);
+            }
+        }
+        loaded = true;
+        log.debug("Índice de stock reconciliado: {} productos", stockById.size());
+    }
+
+    /**
+     * Productos con 0 < stock <= threshold ordenados por (stock, _id), a partir de la clave dada
+     *
+     * @param threshold Umbral de stock bajo
+     * @param after Última entrada de la página anterior (null para la primera página)
+     * @param limit Máximo de entradas
+     */
+    public List<Entry> lowStock(int threshold, Entry after, int limit) {
+        NavigableSet<Entry> range = inStock.headSet(new Entry(threshold + 1L, ""), false);
+        if (after != null) {
+            range = range.tailSet(after, false);
+        }
+        return take(range.iterator(), limit);
+    }
+
+    /**
+     * IDs de productos agotados ordenados, posteriores a afterId
+     */
+    public List<String> outOfStock(String afterId, int limit) {
+        NavigableSet<String> range = afterId != null ? outOfStock.tailSet(afterId, false) : outOfStock;
+        return take(range.iterator(), limit);
+    }
+
+    public StockLevelsResponse getStats() {
+        return StockLevelsResponse.builder()
+                .lowThreshold(lowThreshold)
+                .available(counts.get(StockLevel.AVAILABLE).get())
+                .low(counts.get(StockLevel.LOW).get())
+                .out(counts.get(StockLevel.OUT).get())
+                .events(events.sum())
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private void apply(String productId, String productName, Integer stock, boolean notify) {
+        int newStock = stock != null ? Math.max(stock, 0) : 0;
+        Integer previous = stockById.put(productId, newStock);
+        if (previous != null && previous == newStock) {
+            return;
+        }
+
+        if (previous != null) {
+            unlink(productId, previous);
+        }
+        if (newStock > 0) {
+            inStock.add(new Entry(newStock, productId));
+        } else {
+            outOfStock.add(productId);
+        }
+
+        StockLevel before = previous != null ? StockLevel.of(previous, lowThreshold) : null;
+        StockLevel after = StockLevel.of(newStock, lowThreshold);
+        counts.get(after).incrementAndGet();
+        if (before != after && notify) {
+            publish(productId, productName, before, after, newStock);
+        }
+    }
+
+    private void removeEntry(String productId, String productName, boolean notify) {
+        Integer previous = stockById.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        unlink(productId, previous);
+        if (notify) {
+            publish(productId, productName, StockLevel.of(previous, lowThreshold), null, null);
+        }
+    }
+
+    private void unlink(String productId, int stock) {
+        if (stock > 0) {
+            inStock.remove(new Entry(stock, productId));
+        } else {
+            outOfStock.remove(productId);
+        }
+        counts.get(StockLevel.of(stock, lowThreshold)).decrementAndGet();
+    }
+
+    private void publish(String productId, String productName, StockLevel before, StockLevel after, Integer stock) {
+        events.increment();
+        eventPublisher.publishEvent(
+                new StockLevelChangedEvent(productId, productName, before, after, stock, lowThreshold)
+        );
+    }
+
+    private static <T> List<T> take(Iterator<T> iterator, int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, 64));
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * Clave (stock, _id) de un producto con stock
+     */
+    public static final class Entry {
+        private final long stock;
+        private final String id;
+
+        public Entry(long stock, String id) {
+            this.stock = stock;
+            this.id = id;
+        }
+
+        public long getStock() {
+            return stock;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.diedev.firex.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto para los índices del catálogo:
+ * minúsculas, sin tildes ni diéresis ("Extintor Químico" -> "extintor quimico")
+ * y partición en tokens alfanuméricos, descartando palabras vacías del español.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "se", "sin", "su", "un", "una", "y"
+    );
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Pasa a minúsculas y elimina tildes, conservando espacios y signos
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Versión plegada con los separadores colapsados a un espacio ("Extintor  CO2-5kg" -> "extintor co2 5kg")
+     */
+    public static String normalize(String text) {
+        return NON_ALPHANUMERIC.matcher(fold(text)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Tokeniza el texto ya normalizado, sin palabras vacías
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(fold(text))) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -39,7 +39,10 @@ public class SecurityConfig {
                 "X-Requested-With",
                 "User-Id",
                 "User-Email",
-                "Updated-By"
+                "Updated-By",
+                "If-None-Match",
+                "If-Modified-Since",
+                "Idempotency-Key"
         ));
 
         // Métodos HTTP permitidos
@@ -56,7 +59,10 @@ public class SecurityConfig {
         config.setExposedHeaders(Arrays.asList(
                 "Authorization",
                 "Content-Type",
-                "Content-Disposition"
+                "Content-Disposition",
+                "ETag",
+                "Last-Modified",
+                "Idempotency-Replayed"
         ));
 
         // Tiempo de cache para preflight (1 hora)
@@ -1,5 +1,6 @@
 package com.diedev.firex.controllers;
 
+import com.diedev.firex.dto.request.CartBatchRequest;
 import com.diedev.firex.dto.request.CartItemRequest;
 import com.diedev.firex.dto.response.ApiResponse;
 import com.diedev.firex.dto.response.CartResponse;
@@ -25,7 +26,7 @@ public class CartController {
     /**
      * GET /api/cart/{userId}
      * Obtener carrito del usuario
-     * Si no existe, se crea automáticamente
+     * Si no existe, se responde un carrito vacío (no se guarda hasta la primera modificación)
      *
      * @param userId ID del usuario
      * @return Carrito del usuario
@@ -38,6 +39,42 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Carrito obtenido", cart));
     }
 
+    /**
+     * POST /api/cart/guest
+     * Crear un carrito de invitado (sin sesión)
+     * El userId del carrito devuelto es la clave para usar los demás endpoints; al iniciar sesión
+     * se envía como guestCartToken en el login para unirlo al carrito del usuario
+     *
+     * @return Carrito de invitado vacío
+     */
+    @PostMapping("/guest")
+    public ResponseEntity<ApiResponse<CartResponse>> createGuestCart() {
+        log.info("POST /api/cart/guest");
+
+        CartResponse cart = cartService.createGuestCart();
+        return ResponseEntity.ok(ApiResponse.success("Carrito de invitado creado", cart));
+    }
+
+    /**
+     * POST /api/cart/{userId}/merge?guestToken=...
+     * Unir un carrito de invitado al carrito del usuario (el de invitado se elimina)
+     * Se revalidan precio y stock; lo que ya no está disponible se descarta o se recorta
+     *
+     * @param userId ID del usuario
+     * @param guestToken Token (o userId) del carrito de invitado
+     * @return Carrito del usuario unido
+     */
+    @PostMapping("/{userId}/merge")
+    public ResponseEntity<ApiResponse<CartResponse>> mergeGuestCart(
+            @PathVariable String userId,
+            @RequestParam String guestToken) {
+
+        log.info("POST /api/cart/{}/merge", userId);
+
+        CartResponse cart = cartService.mergeGuestCart(userId, guestToken);
+        return ResponseEntity.ok(ApiResponse.success("Carrito de invitado unido", cart));
+    }
+
     /**
      * POST /api/cart/{userId}/items
      * Agregar o actualizar item en el carrito
@@ -59,6 +96,27 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Item agregado al carrito", cart));
     }
 
+    /**
+     * PATCH /api/cart/{userId}/items
+     * Aplicar un lote de operaciones (ADD, UPDATE, REMOVE) en una sola escritura
+     * Si alguna operación no es válida (producto inexistente, sin stock) no se aplica ninguna
+     *
+     * @param userId ID del usuario
+     * @param request Operaciones a aplicar, en orden
+     * @return Carrito actualizado
+     */
+    @PatchMapping("/{userId}/items")
+    public ResponseEntity<ApiResponse<CartResponse>> applyOperations(
+            @PathVariable String userId,
+            @Valid @RequestBody CartBatchRequest request) {
+
+        log.info("PATCH /api/cart/{}/items - Operaciones: {}",
+                userId, request.getOperations() != null ? request.getOperations().size() : 0);
+
+        CartResponse cart = cartService.applyOperations(userId, request);
+        return ResponseEntity.ok(ApiResponse.success("Carrito actualizado", cart));
+    }
+
     /**
      * DELETE /api/cart/{userId}/items/{productId}
      * Eliminar item del carrito
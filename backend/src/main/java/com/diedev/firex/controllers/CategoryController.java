@@ -1,5 +1,6 @@
 package com.diedev.firex.controllers;
 
+import com.diedev.firex.catalog.CatalogResponseCache;
 import com.diedev.firex.dto.request.CategoryRequest;
 import com.diedev.firex.dto.response.ApiResponse;
 import com.diedev.firex.dto.response.CategoryResponse;
@@ -7,12 +8,11 @@ import com.diedev.firex.service.interfaces.ICategoryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * Controlador REST para gestión de categorías
  * Base URL: /api/categories
@@ -24,19 +24,24 @@ import java.util.List;
 public class CategoryController {
 
     private final ICategoryService categoryService;
+    private final CatalogResponseCache responseCache;
 
     /**
      * GET /api/categories
      * Obtener todas las categorías
      *
+     * Respuesta cacheada por versión del catálogo; responde 304 si el cliente ya la tiene
+     *
+     * @param headers Headers condicionales (If-None-Match / If-Modified-Since)
      * @return Lista de categorías ordenadas alfabéticamente
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories() {
+    public ResponseEntity<byte[]> getAllCategories(@RequestHeader HttpHeaders headers) {
         log.info("GET /api/categories");
 
-        List<CategoryResponse> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(ApiResponse.success("Categorías obtenidas", categories));
+        return responseCache.respond("categories", headers, () ->
+                ApiResponse.success("Categorías obtenidas", categoryService.getAllCategories())
+        );
     }
 
     /**
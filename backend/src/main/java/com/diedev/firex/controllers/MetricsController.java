@@ -0,0 +1,165 @@
+package com.diedev.firex.controllers;
+
+import com.diedev.firex.analytics.SalesRollupJob;
+import com.diedev.firex.cart.CartExpiryJob;
+import com.diedev.firex.cart.CartRepricingJob;
+import com.diedev.firex.cart.CartWriteBehindCache;
+import com.diedev.firex.cart.StockReservationLedger;
+import com.diedev.firex.catalog.ProductCatalogCache;
+import com.diedev.firex.catalog.StockLevelIndex;
+import com.diedev.firex.idempotency.IdempotencyStore;
+import com.diedev.firex.outbox.OutboxRelay;
+import com.diedev.firex.dto.response.ApiResponse;
+import com.diedev.firex.dto.response.CartCacheStatsResponse;
+import com.diedev.firex.dto.response.CartExpiryStatsResponse;
+import com.diedev.firex.dto.response.CartRepricingStatsResponse;
+import com.diedev.firex.dto.response.CatalogStatsResponse;
+import com.diedev.firex.dto.response.IdempotencyStatsResponse;
+import com.diedev.firex.dto.response.OutboxStatsResponse;
+import com.diedev.firex.dto.response.ReservationStatsResponse;
+import com.diedev.firex.dto.response.SalesRollupStatsResponse;
+import com.diedev.firex.dto.response.StockLevelsResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador para consultar métricas internas de caches y procesos (ADMIN)
+ * Base URL: /api/metrics
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final ProductCatalogCache catalogCache;
+    private final StockLevelIndex stockIndex;
+    private final CartWriteBehindCache cartCache;
+    private final StockReservationLedger reservationLedger;
+    private final CartRepricingJob repricingJob;
+    private final CartExpiryJob expiryJob;
+    private final SalesRollupJob salesRollupJob;
+    private final IdempotencyStore idempotencyStore;
+    private final OutboxRelay outboxRelay;
+
+    /**
+     * GET /api/metrics/catalog
+     * Métricas del cache del catálogo (aciertos, fallos, reconstrucciones)
+     *
+     * @return Estadísticas del cache
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<ApiResponse<CatalogStatsResponse>> getCatalogStats() {
+        log.info("GET /api/metrics/catalog");
+
+        return ResponseEntity.ok(ApiResponse.success("Métricas del catálogo obtenidas", catalogCache.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/stock
+     * Conteo de productos por estado de inventario y eventos de umbral publicados
+     *
+     * @return Estado del índice de stock
+     */
+    @GetMapping("/stock")
+    public ResponseEntity<ApiResponse<StockLevelsResponse>> getStockLevels() {
+        log.info("GET /api/metrics/stock");
+
+        return ResponseEntity.ok(ApiResponse.success("Niveles de stock obtenidos", stockIndex.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/carts
+     * Métricas del cache write-behind de carritos (tamaño de lotes y retraso de escritura)
+     *
+     * @return Estadísticas del cache de carritos
+     */
+    @GetMapping("/carts")
+    public ResponseEntity<ApiResponse<CartCacheStatsResponse>> getCartCacheStats() {
+        log.info("GET /api/metrics/carts");
+
+        return ResponseEntity.ok(ApiResponse.success("Métricas de carritos obtenidas", cartCache.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/reservations
+     * Reservas de stock activas, unidades reservadas, rechazos y vencimientos
+     *
+     * @return Estado de las reservas de stock
+     */
+    @GetMapping("/reservations")
+    public ResponseEntity<ApiResponse<ReservationStatsResponse>> getReservationStats() {
+        log.info("GET /api/metrics/reservations");
+
+        return ResponseEntity.ok(ApiResponse.success("Reservas de stock obtenidas", reservationLedger.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/carts/expiry
+     * Carritos activos, activos recientes y vencidos según la política de expiración, y resultado del último barrido
+     *
+     * @return Estado de la expiración de carritos
+     */
+    @GetMapping("/carts/expiry")
+    public ResponseEntity<ApiResponse<CartExpiryStatsResponse>> getCartExpiryStats() {
+        log.info("GET /api/metrics/carts/expiry");
+
+        return ResponseEntity.ok(ApiResponse.success("Expiración de carritos obtenida", expiryJob.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/repricing
+     * Progreso de la actualización de precios en carritos (pendientes, lotes y carritos por segundo)
+     *
+     * @return Estado del repricing de carritos
+     */
+    @GetMapping("/repricing")
+    public ResponseEntity<ApiResponse<CartRepricingStatsResponse>> getRepricingStats() {
+        log.info("GET /api/metrics/repricing");
+
+        return ResponseEntity.ok(ApiResponse.success("Repricing de carritos obtenido", repricingJob.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/sales
+     * Estado de los acumulados de ventas (variaciones pendientes, escrituras y reconstrucciones)
+     *
+     * @return Estado de los acumulados
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<ApiResponse<SalesRollupStatsResponse>> getSalesRollupStats() {
+        log.info("GET /api/metrics/sales");
+
+        return ResponseEntity.ok(ApiResponse.success("Acumulados de ventas obtenidos", salesRollupJob.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/idempotency
+     * Uso de Idempotency-Key (claves reclamadas, respuestas repetidas desde memoria o Mongo, conflictos)
+     *
+     * @return Estadísticas de idempotencia
+     */
+    @GetMapping("/idempotency")
+    public ResponseEntity<ApiResponse<IdempotencyStatsResponse>> getIdempotencyStats() {
+        log.info("GET /api/metrics/idempotency");
+
+        return ResponseEntity.ok(ApiResponse.success("Estadísticas de idempotencia obtenidas", idempotencyStore.getStats()));
+    }
+
+    /**
+     * GET /api/metrics/outbox
+     * Estado del outbox de eventos de dominio: pendientes, antigüedad del más viejo y demora de entrega
+     *
+     * @return Estado del relay del outbox
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<ApiResponse<OutboxStatsResponse>> getOutboxStats() {
+        log.info("GET /api/metrics/outbox");
+
+        return ResponseEntity.ok(ApiResponse.success("Estado del outbox obtenido", outboxRelay.getStats()));
+    }
+}
@@ -0,0 +1,155 @@
+package com.diedev.firex.controllers;
+
+import com.diedev.firex.dto.request.CheckoutRequest;
+import com.diedev.firex.dto.request.ExportRange;
+import com.diedev.firex.dto.request.UpdateStatusRequest;
+import com.diedev.firex.dto.response.ApiResponse;
+import com.diedev.firex.dto.response.CursorPage;
+import com.diedev.firex.dto.response.OrderResponse;
+import com.diedev.firex.dto.response.OrderSummaryResponse;
+import com.diedev.firex.enums.DataFormat;
+import com.diedev.firex.service.interfaces.IOrderService;
+import com.diedev.firex.service.interfaces.IRecordExportService;
+import com.diedev.firex.util.CursorUtils;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Controlador REST para pedidos
+ * Base URL: /api/orders
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class OrderController {
+
+    private final IOrderService orderService;
+    private final IRecordExportService exportService;
+
+    /**
+     * POST /api/orders/{userId}/checkout
+     * Convertir el carrito del usuario en un pedido
+     * El stock se descuenta al confirmar; si algún producto no alcanza no se crea el pedido
+     * y el carrito queda igual
+     *
+     * @param userId ID del usuario
+     * @param request Dirección de envío
+     * @return Pedido creado
+     */
+    @PostMapping("/{userId}/checkout")
+    public ResponseEntity<ApiResponse<OrderResponse>> checkout(
+            @PathVariable String userId,
+            @Valid @RequestBody CheckoutRequest request) {
+
+        log.info("POST /api/orders/{}/checkout", userId);
+
+        OrderResponse order = orderService.checkout(userId, request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Pedido creado exitosamente", order));
+    }
+
+    /**
+     * GET /api/orders/user/{userId}?status=...&cursor=...&size=...
+     * Historial de pedidos del usuario, más reciente primero, paginado por cursor
+     * Cada pedido viene resumido (sin items): el detalle se pide a GET /api/orders/{id}
+     *
+     * @param userId ID del usuario
+     * @param status Estado (opcional): PENDING, PROCESSING, COMPLETED, CANCELLED
+     * @param cursor Cursor de la página anterior (opcional)
+     * @param size Tamaño de página
+     * @return Página de pedidos
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummaryResponse>>> getOrderHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/orders/user/{}?status={}&size={}", userId, status, size);
+
+        CursorPage<OrderSummaryResponse> page = orderService.getOrderHistory(userId, status, cursor, size);
+        return ResponseEntity.ok(ApiResponse.success("Historial de pedidos obtenido", page));
+    }
+
+    /**
+     * GET /api/orders/{id}
+     * Obtener un pedido por ID
+     *
+     * @param id ID del pedido
+     * @return Pedido
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<OrderResponse>> getOrderById(@PathVariable String id) {
+        log.info("GET /api/orders/{}", id);
+
+        OrderResponse order = orderService.getOrderById(id);
+        return ResponseEntity.ok(ApiResponse.success("Pedido obtenido", order));
+    }
+
+    /**
+     * PATCH /api/orders/{id}/status
+     * Cambiar el estado de un pedido (PENDING -> PROCESSING -> COMPLETED, o CANCELLED)
+     *
+     * @param id ID del pedido
+     * @param request Nuevo estado
+     * @return Pedido actualizado
+     */
+    @PatchMapping("/{id}/status")
+    public ResponseEntity<ApiResponse<OrderResponse>> updateOrderStatus(
+            @PathVariable String id,
+            @Valid @RequestBody UpdateStatusRequest request) {
+
+        log.info("PATCH /api/orders/{}/status - Estado: {}", id, request.getStatus());
+
+        OrderResponse order = orderService.updateOrderStatus(id, request);
+        return ResponseEntity.ok(ApiResponse.success("Estado del pedido actualizado", order));
+    }
+
+    /**
+     * GET /api/orders/export?from=2026-10-01&to=2026-10-31&format=ndjson&gzip=false&afterId=...
+     * Exportar los pedidos creados en un rango de días (extracto contable) en NDJSON o CSV
+     * Se escriben a medida que se leen de Mongo (memoria constante). Si la descarga se corta,
+     * se repite con afterId = id del último pedido recibido para continuar desde ahí
+     *
+     * @param from Primer día (inclusive)
+     * @param to Último día (inclusive)
+     * @param format ndjson o csv
+     * @param gzip true para descargar comprimido (.gz)
+     * @param afterId ID del último pedido recibido (opcional, para reanudar)
+     * @return Archivo con un pedido por línea
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) String afterId) {
+
+        log.info("GET /api/orders/export?from={}&to={}&format={}&gzip={}&afterId={}", from, to, format, gzip, afterId);
+
+        DataFormat dataFormat = DataFormat.from(format);
+        // Se valida antes de empezar a escribir: un error todavía puede responder 400
+        ExportRange range = exportService.orderRange(from, to, afterId);
+        String filename = "orders-" + from + "_" + to + "." + dataFormat.getExtension() + (gzip ? ".gz" : "");
+
+        return ResponseEntity.ok()
+                .contentType(gzip
+                        ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(dataFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(output -> exportService.exportOrders(output, dataFormat, range, gzip));
+    }
+}
@@ -1,20 +1,35 @@
 package com.diedev.firex.controllers;
 
+import com.diedev.firex.catalog.CatalogResponseCache;
+import com.diedev.firex.dto.request.ProductQueryRequest;
 import com.diedev.firex.dto.request.ProductRequest;
 import com.diedev.firex.dto.response.ApiResponse;
+import com.diedev.firex.dto.response.CursorPage;
+import com.diedev.firex.dto.response.ProductImportResponse;
+import com.diedev.firex.dto.response.ProductQueryResponse;
 import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.dto.response.SuggestionResponse;
+import com.diedev.firex.enums.DataFormat;
 import com.diedev.firex.service.interfaces.IProductService;
+import com.diedev.firex.service.interfaces.IProductTransferService;
+import com.diedev.firex.util.CursorUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
  * Controlador REST para gestión de productos industriales
+ * Los listados del catálogo se sirven ya serializados con ETag/Last-Modified (ver CatalogResponseCache)
  */
 @Slf4j
 @RestController
@@ -23,15 +38,17 @@ import java.util.List;
 public class ProductController {
 
     private final IProductService productService;
+    private final IProductTransferService transferService;
+    private final CatalogResponseCache responseCache;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getAllProducts() {
+    public ResponseEntity<byte[]> getAllProducts(@RequestHeader HttpHeaders headers) {
         log.info("GET /api/products");
-        List<ProductResponse> products = productService.getAllProducts();
-        log.info("Se encontraron {} productos", products.size());
-        return ResponseEntity.ok(
-                ApiResponse.success("Productos obtenidos exitosamente", products)
-        );
+        return responseCache.respond("products", headers, () -> {
+            List<ProductResponse> products = productService.getAllProducts();
+            log.info("Se encontraron {} productos", products.size());
+            return ApiResponse.success("Productos obtenidos exitosamente", products);
+        });
     }
 
     @GetMapping("/{id}")
@@ -82,13 +99,13 @@ public class ProductController {
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getProductsByCategory(
-            @PathVariable String categoryId) {
+    public ResponseEntity<byte[]> getProductsByCategory(
+            @PathVariable String categoryId,
+            @RequestHeader HttpHeaders headers) {
 
         log.info("GET /api/products/category/{}", categoryId);
-        List<ProductResponse> products = productService.getProductsByCategory(categoryId);
-        return ResponseEntity.ok(
-                ApiResponse.success("Productos obtenidos", products)
+        return responseCache.respond("category:" + categoryId, headers, () ->
+                ApiResponse.success("Productos obtenidos", productService.getProductsByCategory(categoryId))
         );
     }
 
@@ -103,18 +120,40 @@ public class ProductController {
         );
     }
 
+    @GetMapping("/query")
+    public ResponseEntity<ApiResponse<ProductQueryResponse>> queryProducts(
+            @Valid ProductQueryRequest query) {
+
+        log.info("GET /api/products/query - {}", query);
+        ProductQueryResponse result = productService.queryProducts(query);
+        return ResponseEntity.ok(
+                ApiResponse.success("Consulta completada", result)
+        );
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionResponse>>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+
+        log.debug("GET /api/products/suggest?prefix={}", prefix);
+        List<SuggestionResponse> suggestions = productService.suggest(prefix, limit);
+        return ResponseEntity.ok(
+                ApiResponse.success("Sugerencias obtenidas", suggestions)
+        );
+    }
+
     @GetMapping("/available")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getAvailableProducts() {
+    public ResponseEntity<byte[]> getAvailableProducts(@RequestHeader HttpHeaders headers) {
         log.info("GET /api/products/available");
-        List<ProductResponse> products = productService.getAvailableProducts();
-        return ResponseEntity.ok(
-                ApiResponse.success("Productos disponibles obtenidos", products)
+        return responseCache.respond("available", headers, () ->
+                ApiResponse.success("Productos disponibles obtenidos", productService.getAvailableProducts())
         );
     }
 
     @GetMapping("/low-stock")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getLowStockProducts(
-            @RequestParam(defaultValue = "10") int threshold) {
+            @RequestParam(required = false) Integer threshold) {
 
         log.info("GET /api/products/low-stock?threshold={}", threshold);
         List<ProductResponse> products = productService.getLowStockProducts(threshold);
@@ -122,4 +161,126 @@ public class ProductController {
                 ApiResponse.success("Productos con stock bajo obtenidos", products)
         );
     }
+
+    // ========== PAGINACIÓN POR CURSOR ==========
+
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/products/page?size={}", size);
+        CursorPage<ProductResponse> page = productService.getProductsPage(cursor, size);
+        return ResponseEntity.ok(
+                ApiResponse.success("Productos obtenidos exitosamente", page)
+        );
+    }
+
+    @GetMapping("/available/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getAvailableProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/products/available/page?size={}", size);
+        CursorPage<ProductResponse> page = productService.getAvailableProductsPage(cursor, size);
+        return ResponseEntity.ok(
+                ApiResponse.success("Productos disponibles obtenidos", page)
+        );
+    }
+
+    @GetMapping("/low-stock/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getLowStockProductsPage(
+            @RequestParam(required = false) Integer threshold,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/products/low-stock/page?threshold={}&size={}", threshold, size);
+        CursorPage<ProductResponse> page = productService.getLowStockProductsPage(threshold, cursor, size);
+        return ResponseEntity.ok(
+                ApiResponse.success("Productos con stock bajo obtenidos", page)
+        );
+    }
+
+    @GetMapping("/out-of-stock/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getOutOfStockProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/products/out-of-stock/page?size={}", size);
+        CursorPage<ProductResponse> page = productService.getOutOfStockProductsPage(cursor, size);
+        return ResponseEntity.ok(
+                ApiResponse.success("Productos agotados obtenidos", page)
+        );
+    }
+
+    @GetMapping("/category/{categoryId}/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsByCategoryPage(
+            @PathVariable String categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/products/category/{}/page?size={}", categoryId, size);
+        CursorPage<ProductResponse> page = productService.getProductsByCategoryPage(categoryId, cursor, size);
+        return ResponseEntity.ok(
+                ApiResponse.success("Productos obtenidos", page)
+        );
+    }
+
+    @GetMapping("/search/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> searchProductsPage(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/products/search/page?keyword={}&size={}", keyword, size);
+        CursorPage<ProductResponse> page = productService.searchProductsPage(keyword, cursor, size);
+        return ResponseEntity.ok(
+                ApiResponse.success("Búsqueda completada", page)
+        );
+    }
+
+    @GetMapping("/price/page")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsByPricePage(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorUtils.DEFAULT_PAGE_SIZE) int size) {
+
+        log.info("GET /api/products/price/page?minPrice={}&maxPrice={}&size={}", minPrice, maxPrice, size);
+        CursorPage<ProductResponse> page = productService.getProductsByPricePage(minPrice, maxPrice, cursor, size);
+        return ResponseEntity.ok(
+                ApiResponse.success("Productos ordenados por precio obtenidos", page)
+        );
+    }
+
+    // ========== IMPORTACIÓN / EXPORTACIÓN MASIVA ==========
+
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ApiResponse<ProductImportResponse>> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+
+        log.info("POST /api/products/import - Content-Type: {}", contentType);
+        ProductImportResponse result = transferService.importProducts(body, DataFormat.from(contentType));
+        return ResponseEntity.ok(
+                ApiResponse.success(
+                        String.format("Importación completada: %d importados, %d con error",
+                                result.getImported(), result.getFailed()),
+                        result
+                )
+        );
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        log.info("GET /api/products/export?format={}", format);
+        DataFormat dataFormat = DataFormat.from(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(dataFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + dataFormat.getExtension() + "\"")
+                .body(output -> transferService.exportProducts(output, dataFormat));
+    }
 }
@@ -0,0 +1,95 @@
+package com.diedev.firex.controllers;
+
+import com.diedev.firex.dto.response.ApiResponse;
+import com.diedev.firex.dto.response.SalesComparisonResponse;
+import com.diedev.firex.dto.response.SalesRollupResponse;
+import com.diedev.firex.service.interfaces.ISalesReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controlador REST para reportes de ventas (ADMIN)
+ * Base URL: /api/sales
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/sales")
+@RequiredArgsConstructor
+public class SalesController {
+
+    private final ISalesReportService salesReportService;
+
+    /**
+     * GET /api/sales/rollups?period=DAY&from=2026-10-01&to=2026-10-16&top=10
+     * Ventas por periodo (DAY, WEEK o MONTH) en un rango; los periodos sin ventas vienen en cero
+     * Sin rango se devuelven los últimos 30 periodos
+     *
+     * @param period Granularidad (por defecto DAY)
+     * @param from Fecha inicial (opcional)
+     * @param to Fecha final (opcional, por defecto hoy)
+     * @param top Cantidad de productos más vendidos por periodo
+     * @return Acumulados ordenados por fecha
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<ApiResponse<List<SalesRollupResponse>>> getRollups(
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int top) {
+
+        log.info("GET /api/sales/rollups?period={}&from={}&to={}", period, from, to);
+
+        List<SalesRollupResponse> rollups = salesReportService.getRollups(period, from, to, top);
+        return ResponseEntity.ok(ApiResponse.success("Ventas por periodo obtenidas", rollups));
+    }
+
+    /**
+     * GET /api/sales/compare?period=MONTH&date=2026-10-16&against=2025-10-16
+     * Compara el periodo que contiene "date" con el que contiene "against"
+     * (por defecto el periodo actual contra el anterior)
+     *
+     * @param period Granularidad (por defecto DAY)
+     * @param date Fecha del periodo a evaluar (opcional, por defecto hoy)
+     * @param against Fecha del periodo de referencia (opcional, por defecto el periodo anterior)
+     * @param top Cantidad de productos más vendidos por periodo
+     * @return Ambos periodos y sus diferencias
+     */
+    @GetMapping("/compare")
+    public ResponseEntity<ApiResponse<SalesComparisonResponse>> comparePeriods(
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate against,
+            @RequestParam(defaultValue = "10") int top) {
+
+        log.info("GET /api/sales/compare?period={}&date={}&against={}", period, date, against);
+
+        SalesComparisonResponse comparison = salesReportService.comparePeriods(period, date, against, top);
+        return ResponseEntity.ok(ApiResponse.success("Comparación de ventas obtenida", comparison));
+    }
+
+    /**
+     * POST /api/sales/rollups/rebuild
+     * Reconstruir todos los acumulados desde los pedidos (en segundo plano)
+     * El progreso se consulta en GET /api/metrics/sales
+     *
+     * @return Confirmación
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<ApiResponse<Void>> rebuildRollups() {
+        log.info("POST /api/sales/rollups/rebuild");
+
+        if (!salesReportService.rebuildRollups()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Ya hay una reconstrucción en curso"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Reconstrucción de acumulados iniciada"));
+    }
+}
@@ -1,17 +1,25 @@
 package com.diedev.firex.controllers;
 
+import com.diedev.firex.dto.request.ExportRange;
 import com.diedev.firex.dto.request.ServiceRequestRequest;
 import com.diedev.firex.dto.request.UpdateStatusRequest;
 import com.diedev.firex.dto.response.ApiResponse;
 import com.diedev.firex.dto.response.ServiceRequestResponse;
+import com.diedev.firex.enums.DataFormat;
+import com.diedev.firex.service.interfaces.IRecordExportService;
 import com.diedev.firex.service.interfaces.IServiceRequestService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +35,7 @@ import java.util.Map;
 public class ServiceRequestController {
 
     private final IServiceRequestService serviceRequestService;
+    private final IRecordExportService exportService;
 
     /**
      * POST /api/service-requests
@@ -181,4 +190,39 @@ public class ServiceRequestController {
 
         return ResponseEntity.ok(ApiResponse.success("Estadísticas obtenidas", stats));
     }
-}
\ No newline at end of file
+
+    /**
+     * GET /api/service-requests/export?from=2026-10-01&to=2026-10-31&format=csv&gzip=true&afterId=...
+     * Exportar las solicitudes creadas en un rango de días en NDJSON o CSV (ADMIN)
+     * Mismo funcionamiento que /api/orders/export: memoria constante y reanudable con afterId
+     *
+     * @param from Primer día (inclusive)
+     * @param to Último día (inclusive)
+     * @param format ndjson o csv
+     * @param gzip true para descargar comprimido (.gz)
+     * @param afterId ID de la última solicitud recibida (opcional, para reanudar)
+     * @return Archivo con una solicitud por línea
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRequests(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) String afterId) {
+
+        log.info("GET /api/service-requests/export?from={}&to={}&format={}&gzip={}&afterId={}",
+                from, to, format, gzip, afterId);
+
+        DataFormat dataFormat = DataFormat.from(format);
+        ExportRange range = exportService.serviceRequestRange(from, to, afterId);
+        String filename = "service-requests-" + from + "_" + to + "." + dataFormat.getExtension() + (gzip ? ".gz" : "");
+
+        return ResponseEntity.ok()
+                .contentType(gzip
+                        ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(dataFormat.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(output -> exportService.exportServiceRequests(output, dataFormat, range, gzip));
+    }
+}
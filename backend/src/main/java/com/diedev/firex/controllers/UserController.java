@@ -5,6 +5,7 @@ import com.diedev.firex.dto.request.RegisterRequest;
 import com.diedev.firex.dto.response.ApiResponse;
 import com.diedev.firex.dto.response.LoginResponse;
 import com.diedev.firex.dto.response.UserResponse;
+import com.diedev.firex.service.interfaces.ICartService;
 import com.diedev.firex.service.interfaces.IUserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -26,10 +27,12 @@ import java.util.List;
 public class UserController {
 
     private final IUserService userService;
+    private final ICartService cartService;
 
     /**
      * POST /api/users/login
      * Autenticar usuario
+     * Si incluye guestCartToken, el carrito de invitado se une al del usuario
      *
      * @param request Credenciales de login
      * @return LoginResponse con datos del usuario (sin password)
@@ -39,6 +42,15 @@ public class UserController {
         log.info("POST /api/users/login - Email: {}", request.getEmail());
 
         LoginResponse response = userService.login(request);
+
+        // El carrito de invitado se une al del usuario; si falla, el login no se ve afectado
+        if (request.getGuestCartToken() != null && !request.getGuestCartToken().isBlank()) {
+            try {
+                response.setCart(cartService.mergeGuestCart(response.getUser().getId(), request.getGuestCartToken()));
+            } catch (RuntimeException e) {
+                log.warn("No se pudo unir el carrito de invitado al iniciar sesión: {}", e.getMessage());
+            }
+        }
         return ResponseEntity.ok(response);
     }
 
@@ -0,0 +1,24 @@
+package com.diedev.firex.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Lote de operaciones sobre el carrito, aplicadas en orden y de forma atómica
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+
+    @NotEmpty(message = "Debe incluir al menos una operación")
+    @Size(max = 100, message = "El lote no puede tener más de 100 operaciones")
+    @Valid
+    private List<CartOperationRequest> operations;
+}
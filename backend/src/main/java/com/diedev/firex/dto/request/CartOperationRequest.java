@@ -0,0 +1,27 @@
+package com.diedev.firex.dto.request;
+
+import com.diedev.firex.enums.CartOperationType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Una operación de un lote sobre el carrito (quantity no aplica para REMOVE)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationRequest {
+
+    @NotNull(message = "La acción es requerida")
+    private CartOperationType action;
+
+    @NotBlank(message = "El ID del producto es requerido")
+    private String productId;
+
+    @Min(value = 1, message = "La cantidad debe ser al menos 1")
+    private Integer quantity;
+}
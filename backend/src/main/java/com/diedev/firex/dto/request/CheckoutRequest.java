@@ -0,0 +1,17 @@
+package com.diedev.firex.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequest {
+
+    @NotBlank(message = "La dirección de envío es requerida")
+    @Size(max = 300, message = "La dirección de envío no puede superar 300 caracteres")
+    private String shippingAddress;
+}
@@ -0,0 +1,21 @@
+package com.diedev.firex.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rango validado de una exportación: [from, to) por createdAt y, si se reanuda,
+ * la clave (createdAt, _id) del último registro recibido
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportRange {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private LocalDateTime afterCreatedAt;
+    private String afterId;
+}
@@ -17,4 +17,7 @@ public class LoginRequest {
 
     @NotBlank(message = "La contraseña es requerida")
     private String password;
+
+    // Opcional: carrito de invitado a unir con el del usuario al iniciar sesión
+    private String guestCartToken;
 }
\ No newline at end of file
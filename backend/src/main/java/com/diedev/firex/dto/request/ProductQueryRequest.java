@@ -0,0 +1,37 @@
+package com.diedev.firex.dto.request;
+
+import com.diedev.firex.util.CursorUtils;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros combinables del catálogo (todos opcionales), recibidos como query params
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductQueryRequest {
+
+    private String categoryId;
+
+    @Min(value = 0, message = "El precio mínimo no puede ser negativo")
+    private BigDecimal minPrice;
+
+    @Min(value = 0, message = "El precio máximo no puede ser negativo")
+    private BigDecimal maxPrice;
+
+    private Boolean inStock;
+
+    private String keyword;
+
+    private String cursor;
+
+    @Min(value = 1, message = "El tamaño de página debe ser al menos 1")
+    @Max(value = CursorUtils.MAX_PAGE_SIZE, message = "El tamaño de página no puede superar 100")
+    private Integer size = CursorUtils.DEFAULT_PAGE_SIZE;
+}
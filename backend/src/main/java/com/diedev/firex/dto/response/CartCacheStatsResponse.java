@@ -0,0 +1,27 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartCacheStatsResponse {
+    private boolean enabled;
+    private int size;
+    private int dirty;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long flushes;
+    private long flushedCarts;
+    private long failedFlushes;
+    private int lastBatchSize;
+    private int maxBatchSize;
+    private double avgBatchSize;
+    private long lastLagMillis;
+    private long maxLagMillis;
+}
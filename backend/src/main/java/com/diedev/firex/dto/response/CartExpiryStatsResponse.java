@@ -0,0 +1,27 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartExpiryStatsResponse {
+    private String mode;
+    private int expiryDays;
+    private int activeWindowDays;
+    private long totalCarts;
+    private long activeCarts;
+    private long recentlyActiveCarts;
+    private long expiredCarts;
+    private boolean sweeping;
+    private long sweptCarts;
+    private long lastSweepDeleted;
+    private long lastSweepMillis;
+    private LocalDateTime lastSweepAt;
+}
@@ -0,0 +1,26 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartRepricingStatsResponse {
+    private boolean enabled;
+    private boolean running;
+    private int pendingProducts;
+    private long batches;
+    private long productsRepriced;
+    private long cartsRepriced;
+    private long cachedCartsRepriced;
+    private long failures;
+    private int lastBatchProducts;
+    private long lastBatchCarts;
+    private long lastBatchMillis;
+    private double lastCartsPerSecond;
+    private long totalMillis;
+}
@@ -0,0 +1,24 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogStatsResponse {
+    private long version;
+    private Instant builtAt;
+    private int products;
+    private int categories;
+    private long hits;
+    private long misses;
+    private long rebuilds;
+    private long patches;
+    private long lastRebuildMillis;
+}
@@ -0,0 +1,24 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyStatsResponse {
+    private boolean enabled;
+    private int localEntries;
+    private int localCapacity;
+    private long ttlHours;
+    private long claims;
+    private long stored;
+    private long released;
+    private long localReplays;
+    private long mongoReplays;
+    private long inProgressConflicts;
+    private long fingerprintMismatches;
+}
@@ -13,4 +13,6 @@ public class LoginResponse {
     private boolean success;
     private String message;
     private UserResponse user;
+    // Carrito unido, solo si el login incluyó guestCartToken
+    private CartResponse cart;
 }
@@ -0,0 +1,20 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemResponse {
+    private String productId;
+    private String productName;
+    private BigDecimal price;
+    private Integer quantity;
+    private BigDecimal subtotal;
+}
@@ -0,0 +1,26 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderResponse {
+    private String id;
+    private String userId;
+    private List<OrderItemResponse> items;
+    private Integer totalItems;
+    private BigDecimal totalAmount;
+    private String status;
+    private String shippingAddress;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStatsResponse {
+    private boolean enabled;
+    private boolean running;
+    private List<String> subscribers;
+    private long pending;
+    private long oldestPendingAgeMillis;
+    private long appended;
+    private long appendFailures;
+    private long dispatched;
+    private long deliveryFailures;
+    private long deadLettered;
+    private long batches;
+    private int lastBatchSize;
+    private long lastBatchMillis;
+    private long lastLagMillis;
+    private long maxLagMillis;
+    private double averageLagMillis;
+}
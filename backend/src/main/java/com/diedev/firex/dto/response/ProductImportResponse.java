@@ -0,0 +1,26 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de productos
+ * errors se limita a los primeros errores; errorsTruncated indica si hubo más
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+    private int totalRows;
+    private int imported;
+    private int failed;
+    private int batches;
+    private long durationMillis;
+    private List<ImportRowErrorResponse> errors;
+    private boolean errorsTruncated;
+}
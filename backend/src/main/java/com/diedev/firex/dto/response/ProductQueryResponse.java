@@ -0,0 +1,21 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductQueryResponse {
+    private List<ProductResponse> items;
+    private int total;
+    private boolean hasMore;
+    private String nextCursor;
+    private List<FacetCountResponse> categories;
+    private List<FacetCountResponse> priceRanges;
+}
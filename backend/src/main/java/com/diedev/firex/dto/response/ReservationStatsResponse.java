@@ -0,0 +1,23 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationStatsResponse {
+    private boolean enabled;
+    private boolean loaded;
+    private long ttlSeconds;
+    private int products;
+    private int reservations;
+    private long reservedUnits;
+    private long rejected;
+    private long expired;
+    private int pendingWrites;
+    private long failedWrites;
+}
@@ -0,0 +1,23 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesComparisonResponse {
+    private String period;
+    private SalesRollupResponse current;
+    private SalesRollupResponse previous;
+    private BigDecimal revenueChange;
+    // null si el periodo anterior no tuvo ventas
+    private Double revenueChangePercent;
+    private long ordersChange;
+    private long unitsChange;
+}
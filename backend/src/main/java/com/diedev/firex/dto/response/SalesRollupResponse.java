@@ -0,0 +1,29 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupResponse {
+    private String period;
+    private String periodKey;
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+    private BigDecimal averageOrderValue;
+    private Map<String, Long> statusCounts;
+    private List<SalesLineResponse> topProducts;
+    private List<SalesLineResponse> categories;
+}
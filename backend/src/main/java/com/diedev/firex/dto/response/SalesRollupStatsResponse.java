@@ -0,0 +1,28 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupStatsResponse {
+    private boolean enabled;
+    private int pendingDocuments;
+    private long events;
+    private long flushes;
+    private long documentsWritten;
+    private long failures;
+    private long lastFlushMillis;
+    private boolean rebuilding;
+    private long rebuilds;
+    private long lastRebuildOrders;
+    private long lastRebuildDocuments;
+    private long lastRebuildMillis;
+    private LocalDateTime lastRebuildAt;
+}
@@ -0,0 +1,18 @@
+package com.diedev.firex.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelsResponse {
+    private int lowThreshold;
+    private int available;
+    private int low;
+    private int out;
+    private long events;
+}
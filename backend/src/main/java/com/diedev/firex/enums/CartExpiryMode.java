@@ -0,0 +1,13 @@
+package com.diedev.firex.enums;
+
+/**
+ * Cómo se eliminan los carritos abandonados (sin actividad por más de los días configurados)
+ */
+public enum CartExpiryMode {
+    /** No se eliminan */
+    OFF,
+    /** Índice TTL sobre lastActivityAt: Mongo los borra solo */
+    TTL,
+    /** Tarea programada que borra por rangos de _id con límite de borrados por segundo */
+    SWEEPER
+}
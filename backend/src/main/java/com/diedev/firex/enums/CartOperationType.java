@@ -0,0 +1,7 @@
+package com.diedev.firex.enums;
+
+public enum CartOperationType {
+    ADD,     // Suma la cantidad a la que ya hay en el carrito
+    UPDATE,  // Reemplaza la cantidad (agrega el producto si no está)
+    REMOVE   // Quita el producto del carrito
+}
@@ -0,0 +1,42 @@
+package com.diedev.firex.enums;
+
+import com.diedev.firex.exception.BadRequestException;
+
+/**
+ * Formatos de archivo para importación/exportación masiva
+ */
+public enum DataFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    DataFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Resuelve el formato desde un parámetro ("csv", "ndjson") o un Content-Type
+     */
+    public static DataFormat from(String value) {
+        if (value != null) {
+            String lower = value.toLowerCase();
+            for (DataFormat format : values()) {
+                if (lower.equals(format.extension) || lower.startsWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        throw new BadRequestException("Formato no soportado: " + value + " (use ndjson o csv)");
+    }
+}
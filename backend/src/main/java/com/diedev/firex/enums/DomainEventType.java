@@ -0,0 +1,22 @@
+package com.diedev.firex.enums;
+
+/**
+ * Eventos de dominio que se registran en el outbox, con el tipo de agregado al que pertenecen
+ * (el orden de entrega se garantiza por agregado: tipo + id)
+ */
+public enum DomainEventType {
+    SERVICE_REQUEST_STATUS_CHANGED("ServiceRequest"),
+    ORDER_CREATED("Order"),
+    ORDER_STATUS_CHANGED("Order"),
+    PRODUCT_STOCK_CHANGED("Product");
+
+    private final String aggregateType;
+
+    DomainEventType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+}
@@ -0,0 +1,10 @@
+package com.diedev.firex.enums;
+
+/**
+ * Estado de un evento del outbox: FAILED agotó los reintentos y queda para revisión
+ */
+public enum OutboxStatus {
+    PENDING,
+    DISPATCHED,
+    FAILED
+}
@@ -0,0 +1,68 @@
+package com.diedev.firex.enums;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Granularidad de los acumulados de ventas (ver SalesRollup).
+ * Las semanas son ISO (lunes a domingo) y se identifican como 2026-W42
+ */
+public enum SalesPeriod {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * Primer día del periodo que contiene la fecha
+     */
+    public LocalDate startOf(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Primer día del periodo siguiente
+     */
+    public LocalDate next(LocalDate start) {
+        return switch (this) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
+
+    /**
+     * Primer día del periodo anterior
+     */
+    public LocalDate previous(LocalDate start) {
+        return switch (this) {
+            case DAY -> start.minusDays(1);
+            case WEEK -> start.minusWeeks(1);
+            case MONTH -> start.minusMonths(1);
+        };
+    }
+
+    /**
+     * Clave legible del periodo: 2026-10-16, 2026-W42 o 2026-10
+     */
+    public String key(LocalDate start) {
+        return switch (this) {
+            case DAY -> start.toString();
+            case WEEK -> String.format("%d-W%02d",
+                    start.get(IsoFields.WEEK_BASED_YEAR), start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH -> String.format("%d-%02d", start.getYear(), start.getMonthValue());
+        };
+    }
+
+    /**
+     * _id del documento acumulado del periodo, ej: MONTH:2026-10
+     */
+    public String rollupId(LocalDate start) {
+        return name() + ":" + key(start);
+    }
+}
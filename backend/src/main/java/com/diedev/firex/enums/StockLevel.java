@@ -0,0 +1,17 @@
+package com.diedev.firex.enums;
+
+/**
+ * Estado de inventario de un producto según su stock y el umbral de stock bajo
+ */
+public enum StockLevel {
+    AVAILABLE,
+    LOW,
+    OUT;
+
+    public static StockLevel of(Integer stock, int lowThreshold) {
+        if (stock == null || stock <= 0) {
+            return OUT;
+        }
+        return stock <= lowThreshold ? LOW : AVAILABLE;
+    }
+}
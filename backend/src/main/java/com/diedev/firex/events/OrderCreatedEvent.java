@@ -0,0 +1,16 @@
+package com.diedev.firex.events;
+
+import com.diedev.firex.models.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Se creó un pedido (checkout): los acumulados de ventas deben sumarlo
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OrderCreatedEvent {
+    private final Order order;
+}
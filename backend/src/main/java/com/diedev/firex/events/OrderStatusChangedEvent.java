@@ -0,0 +1,19 @@
+package com.diedev.firex.events;
+
+import com.diedev.firex.enums.OrderStatus;
+import com.diedev.firex.models.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Un pedido cambió de estado (order ya tiene el estado nuevo)
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private final Order order;
+    private final OrderStatus previousStatus;
+    private final OrderStatus newStatus;
+}
@@ -0,0 +1,20 @@
+package com.diedev.firex.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * Cambió el precio de un producto: los carritos que lo tienen deben actualizar su precio y totales
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductPriceChangedEvent {
+    private final String productId;
+    private final String productName;
+    private final BigDecimal previousPrice;
+    private final BigDecimal newPrice;
+}
@@ -0,0 +1,77 @@
+package com.diedev.firex.events;
+
+import com.diedev.firex.enums.DomainEventType;
+import com.diedev.firex.models.Notification;
+import com.diedev.firex.models.OutboxEvent;
+import com.diedev.firex.outbox.OutboxSubscriber;
+import com.diedev.firex.repositories.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Notifica al usuario los cambios de estado de sus solicitudes de servicio y pedidos.
+ * El id de la notificación se deriva del evento: si el outbox lo entrega de nuevo,
+ * se sobrescribe la misma notificación en lugar de duplicarla.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatusNotificationSubscriber implements OutboxSubscriber {
+
+    private static final Set<DomainEventType> TYPES = EnumSet.of(
+            DomainEventType.SERVICE_REQUEST_STATUS_CHANGED,
+            DomainEventType.ORDER_CREATED,
+            DomainEventType.ORDER_STATUS_CHANGED
+    );
+
+    private final NotificationRepository notificationRepository;
+
+    @Override
+    public String name() {
+        return "notifications";
+    }
+
+    @Override
+    public boolean supports(DomainEventType type) {
+        return TYPES.contains(type);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        Map<String, Object> payload = event.getPayload();
+        Object userId = payload.get("userId");
+        if (userId == null) {
+            return;
+        }
+
+        String message;
+        String type;
+        switch (event.getType()) {
+            case SERVICE_REQUEST_STATUS_CHANGED -> {
+                message = "Tu solicitud " + payload.get("requestId") + " cambió a " + payload.get("newStatus");
+                type = "FINALIZADO".equals(payload.get("newStatus")) ? "SUCCESS" : "INFO";
+            }
+            case ORDER_CREATED -> {
+                message = "Recibimos tu pedido " + event.getAggregateId() + " por $" + payload.get("totalAmount");
+                type = "SUCCESS";
+            }
+            default -> {
+                message = "Tu pedido " + event.getAggregateId() + " cambió a " + payload.get("newStatus");
+                type = "CANCELLED".equals(payload.get("newStatus")) ? "WARNING" : "INFO";
+            }
+        }
+
+        Notification notification = new Notification();
+        notification.setId("outbox-" + event.getId());
+        notification.setUserId(userId.toString());
+        notification.setMessage(message);
+        notification.setType(type);
+        notification.setRead(false);
+        notification.setCreatedAt(LocalDateTime.now());
+        notificationRepository.save(notification);
+    }
+}
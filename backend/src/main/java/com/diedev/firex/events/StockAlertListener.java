@@ -0,0 +1,27 @@
+package com.diedev.firex.events;
+
+import com.diedev.firex.enums.StockLevel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Alertas de inventario a partir de los cruces de umbral de stock
+ */
+@Slf4j
+@Component
+public class StockAlertListener {
+
+    @EventListener
+    public void onStockLevelChanged(StockLevelChangedEvent event) {
+        if (event.getNewLevel() == StockLevel.OUT) {
+            log.warn("⚠️ Producto agotado: {} ({})", event.getProductName(), event.getProductId());
+        } else if (event.getNewLevel() == StockLevel.LOW) {
+            log.warn("⚠️ Stock bajo: {} ({}) - quedan {} unidades (umbral: {})",
+                    event.getProductName(), event.getProductId(), event.getStock(), event.getLowThreshold());
+        } else if (event.getNewLevel() == StockLevel.AVAILABLE && event.getPreviousLevel() != null) {
+            log.info("✅ Stock repuesto: {} ({}) - {} unidades",
+                    event.getProductName(), event.getProductId(), event.getStock());
+        }
+    }
+}
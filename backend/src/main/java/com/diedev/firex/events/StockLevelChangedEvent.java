@@ -0,0 +1,22 @@
+package com.diedev.firex.events;
+
+import com.diedev.firex.enums.StockLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Un producto cruzó el umbral de stock (ej: AVAILABLE -> LOW, LOW -> OUT, OUT -> AVAILABLE)
+ * previousLevel es null cuando el producto es nuevo; newLevel es null cuando se eliminó
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class StockLevelChangedEvent {
+    private final String productId;
+    private final String productName;
+    private final StockLevel previousLevel;
+    private final StockLevel newLevel;
+    private final Integer stock;
+    private final int lowThreshold;
+}
@@ -0,0 +1,259 @@
+package com.diedev.firex.idempotency;
+
+import com.diedev.firex.dto.response.ApiResponse;
+import com.diedev.firex.models.IdempotencyRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Soporte del header Idempotency-Key en las peticiones que modifican datos (POST, PUT, PATCH, DELETE).
+ * La primera petición con una clave se ejecuta y, si responde 2xx, su respuesta queda guardada:
+ * los reintentos (ej: la app móvil que no recibió la respuesta) la reciben de nuevo sin volver a
+ * ejecutar la lógica. Si falla, la clave se libera y el reintento se ejecuta normalmente.
+ * La clave se asocia a método + ruta + usuario, y el cuerpo se compara por huella:
+ * reutilizar la clave con otro cuerpo responde 422, y un reintento mientras la original sigue en curso, 409.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final int maxBodyBytes;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             ObjectMapper objectMapper,
+                             @Value("${firex.idempotency.max-body-bytes:1048576}") int maxBodyBytes) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.maxBodyBytes = Math.max(1, maxBodyBytes);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !store.isEnabled()
+                || !METHODS.contains(request.getMethod())
+                || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "El header " + HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "El cuerpo supera el máximo admitido con " + HEADER + " (" + maxBodyBytes + " bytes)");
+            return;
+        }
+
+        String path = request.getRequestURI();
+        String id = sha256((request.getMethod() + ' ' + path + '\n'
+                + nullToEmpty(request.getHeader("User-Id")) + '\n'
+                + nullToEmpty(request.getHeader("User-Email")) + '\n'
+                + key).getBytes(StandardCharsets.UTF_8));
+        String fingerprint = fingerprint(body, request.getQueryString());
+
+        // 1. Reintento de una respuesta ya guardada en esta instancia: sin consultas
+        Optional<IdempotencyRecord> local = store.findLocal(id);
+        if (local.isPresent()) {
+            if (replayIfMatches(local.get(), fingerprint, response)) {
+                store.recordLocalReplay();
+            }
+            return;
+        }
+
+        // 2. Reclamar la clave (un insert); si ya existe, responder según su estado
+        Optional<IdempotencyRecord> existing = store.claim(id, request.getMethod(), path, fingerprint);
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            if (record.isCompleted()) {
+                if (replayIfMatches(record, fingerprint, response)) {
+                    store.recordMongoReplay();
+                }
+            } else if (!record.getFingerprint().equals(fingerprint)) {
+                rejectMismatch(response);
+            } else {
+                store.recordInProgressConflict();
+                writeError(response, HttpStatus.CONFLICT,
+                        "La petición con esta " + HEADER + " todavía se está procesando. Intenta de nuevo en unos segundos");
+            }
+            return;
+        }
+
+        // 3. Ejecutar la petición original y guardar su respuesta si fue exitosa
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+            int status = cachingResponse.getStatus();
+            if (status >= 200 && status < 300 && !request.isAsyncStarted()) {
+                store.complete(id, status, cachingResponse.getContentType(),
+                        new String(cachingResponse.getContentAsByteArray(), StandardCharsets.UTF_8));
+                stored = true;
+            }
+        } finally {
+            // Error, respuesta no exitosa o async: el reintento debe ejecutarse de nuevo
+            if (!stored) {
+                store.release(id);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private boolean replayIfMatches(IdempotencyRecord record, String fingerprint, HttpServletResponse response)
+            throws IOException {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            rejectMismatch(response);
+            return false;
+        }
+        response.setStatus(record.getResponseStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getResponseBody() != null) {
+            byte[] body = record.getResponseBody().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+        return true;
+    }
+
+    private void rejectMismatch(HttpServletResponse response) throws IOException {
+        store.recordFingerprintMismatch();
+        writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                "La " + HEADER + " ya se usó con una petición distinta");
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    private static String fingerprint(byte[] body, String queryString) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(body);
+            digest.update((byte) 0);
+            if (queryString != null) {
+                digest.update(queryString.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Petición con el cuerpo ya leído, para que el controlador lo pueda volver a leer
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.diedev.firex.idempotency;
+
+import com.diedev.firex.dto.response.IdempotencyStatsResponse;
+import com.diedev.firex.models.IdempotencyRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registros de Idempotency-Key en dos niveles:
+ * - cache local LRU acotado con las respuestas completadas: un reintento a la misma instancia
+ *   se responde sin ninguna consulta
+ * - colección idempotency_keys con índice TTL: comparte las claves entre instancias y reinicios.
+ * Reclamar una clave es un insert (el _id único decide quién ejecuta), sin leer antes.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+    private final int localCapacity;
+
+    // ✅ LRU por orden de acceso; se recorta al superar la capacidad
+    private final Map<String, IdempotencyRecord> local;
+
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder localReplays = new LongAdder();
+    private final LongAdder mongoReplays = new LongAdder();
+    private final LongAdder inProgressConflicts = new LongAdder();
+    private final LongAdder fingerprintMismatches = new LongAdder();
+
+    public IdempotencyStore(MongoTemplate mongoTemplate,
+                            @Value("${firex.idempotency.enabled:true}") boolean enabled,
+                            @Value("${firex.idempotency.ttl-hours:24}") long ttlHours,
+                            @Value("${firex.idempotency.lock-timeout-seconds:60}") long lockTimeoutSeconds,
+                            @Value("${firex.idempotency.local-cache-size:10000}") int localCapacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.ttl = Duration.ofHours(Math.max(1, ttlHours));
+        this.lockTimeout = Duration.ofSeconds(Math.max(1, lockTimeoutSeconds));
+        this.localCapacity = Math.max(1, localCapacity);
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > IdempotencyStore.this.localCapacity;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Respuesta completada en el cache local (sin consultas)
+     */
+    public Optional<IdempotencyRecord> findLocal(String id) {
+        IdempotencyRecord record;
+        synchronized (local) {
+            record = local.get(id);
+            if (record != null && isExpired(record)) {
+                local.remove(id);
+                record = null;
+            }
+        }
+        return Optional.ofNullable(record);
+    }
+
+    /**
+     * Intenta reclamar la clave para ejecutar la petición (un insert)
+     *
+     * @return vacío si se reclamó; si no, el registro existente (completado o en curso)
+     */
+    public Optional<IdempotencyRecord> claim(String id, String method, String path, String fingerprint) {
+        Date now = new Date();
+        IdempotencyRecord record = new IdempotencyRecord(id, method, path, fingerprint, false, null, null, null,
+                now, new Date(now.getTime() + lockTimeout.toMillis()));
+        try {
+            mongoTemplate.insert(record);
+            claims.increment();
+            return Optional.empty();
+        } catch (DuplicateKeyException e) {
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing == null || (!existing.isCompleted() && isExpired(existing))) {
+                // Se venció o la instancia que la reclamó se cayó: se libera y se vuelve a intentar una vez
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("completed").is(false)),
+                        IdempotencyRecord.class);
+                try {
+                    mongoTemplate.insert(record);
+                    claims.increment();
+                    return Optional.empty();
+                } catch (DuplicateKeyException again) {
+                    // Otra petición la reclamó entre medio: queda en curso para este reintento
+                    existing = Optional.ofNullable(mongoTemplate.findById(id, IdempotencyRecord.class)).orElse(record);
+                }
+            }
+            if (existing.isCompleted()) {
+                remember(existing);
+            }
+            return Optional.of(existing);
+        }
+    }
+
+    /**
+     * Guarda la respuesta de la petición reclamada
+     */
+    public void complete(String id, int status, String contentType, String body) {
+        Date now = new Date();
+        Date expiresAt = new Date(now.getTime() + ttl.toMillis());
+        Update update = new Update()
+                .set("completed", true)
+                .set("responseStatus", status)
+                .set("contentType", contentType)
+                .set("responseBody", body)
+                .set("expiresAt", expiresAt);
+        IdempotencyRecord record = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true),
+                IdempotencyRecord.class);
+        if (record != null) {
+            remember(record);
+        }
+        stored.increment();
+    }
+
+    /**
+     * Libera la clave (la petición falló): un reintento vuelve a ejecutarla
+     */
+    public void release(String id) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("completed").is(false)),
+                    IdempotencyRecord.class);
+            released.increment();
+        } catch (RuntimeException e) {
+            // Se libera sola cuando vence el tiempo máximo de ejecución
+            log.warn("No se pudo liberar la Idempotency-Key {}: {}", id, e.getMessage());
+        }
+    }
+
+    void recordLocalReplay() {
+        localReplays.increment();
+    }
+
+    void recordMongoReplay() {
+        mongoReplays.increment();
+    }
+
+    void recordInProgressConflict() {
+        inProgressConflicts.increment();
+    }
+
+    void recordFingerprintMismatch() {
+        fingerprintMismatches.increment();
+    }
+
+    public IdempotencyStatsResponse getStats() {
+        int entries;
+        synchronized (local) {
+            entries = local.size();
+        }
+        return IdempotencyStatsResponse.builder()
+                .enabled(enabled)
+                .localEntries(entries)
+                .localCapacity(localCapacity)
+                .ttlHours(ttl.toHours())
+                .claims(claims.sum())
+                .stored(stored.sum())
+                .released(released.sum())
+                .localReplays(localReplays.sum())
+                .mongoReplays(mongoReplays.sum())
+                .inProgressConflicts(inProgressConflicts.sum())
+                .fingerprintMismatches(fingerprintMismatches.sum())
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private void remember(IdempotencyRecord record) {
+        synchronized (local) {
+            local.put(record.getId(), record);
+        }
+    }
+
+    private static boolean isExpired(IdempotencyRecord record) {
+        return record.getExpiresAt() != null && record.getExpiresAt().before(new Date());
+    }
+}
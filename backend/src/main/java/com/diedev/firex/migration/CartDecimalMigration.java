@@ -0,0 +1,83 @@
+package com.diedev.firex.migration;
+
+import com.diedev.firex.models.Cart;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Migra los montos de los carritos (totalPrice, items.price, items.subtotal) de String a Decimal128.
+ * Las escrituras atómicas del carrito calculan los totales con $sum en el servidor,
+ * que ignora los valores String. Igual que PriceDecimalMigration: un solo updateMany
+ * con pipeline, idempotente.
+ */
+@Slf4j
+@Component
+public class CartDecimalMigration {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public CartDecimalMigration(MongoTemplate mongoTemplate,
+                                @Value("${firex.migrations.cart-decimal128.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            log.info("Migración de montos del carrito a Decimal128 deshabilitada");
+            return;
+        }
+        CompletableFuture.runAsync(this::migrate).exceptionally(ex -> {
+            log.warn("No se pudieron migrar los montos de los carritos a Decimal128: {}", ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Convierte los montos String a Decimal128
+     *
+     * @return Cantidad de carritos migrados
+     */
+    public long migrate() {
+        Document item = new Document("$mergeObjects", List.of("$$i", new Document()
+                .append("price", new Document("$toDecimal", "$$i.price"))
+                .append("subtotal", new Document("$toDecimal", "$$i.subtotal"))));
+
+        Document set = new Document("$set", new Document()
+                .append("totalPrice", new Document("$toDecimal", "$totalPrice"))
+                .append("items", new Document("$map", new Document()
+                        .append("input", new Document("$ifNull", List.of("$items", List.of())))
+                        .append("as", "i")
+                        .append("in", item))));
+
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Cart.class))
+                .updateMany(
+                        Filters.or(
+                                Filters.type("totalPrice", BsonType.STRING),
+                                Filters.type("items.price", BsonType.STRING),
+                                Filters.type("items.subtotal", BsonType.STRING)
+                        ),
+                        List.of(set)
+                );
+
+        if (result.getModifiedCount() > 0) {
+            log.info("✅ Montos de carritos migrados a Decimal128: {} carritos", result.getModifiedCount());
+        } else {
+            log.debug("Migración de carritos: no hay montos String");
+        }
+        return result.getModifiedCount();
+    }
+}
@@ -0,0 +1,72 @@
+package com.diedev.firex.migration;
+
+import com.diedev.firex.models.Producto;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Migra el precio de los productos guardados como String a Decimal128.
+ * Antes el BigDecimal se guardaba como texto, por lo que los rangos de precio
+ * se comparaban lexicográficamente ("100" < "20") y no podían usar un índice numérico.
+ * La conversión la hace Mongo en un solo updateMany con pipeline ($toDecimal),
+ * sin traer los documentos a la aplicación. Es idempotente: solo toca precios tipo String.
+ */
+@Slf4j
+@Component
+public class PriceDecimalMigration {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public PriceDecimalMigration(MongoTemplate mongoTemplate,
+                                 @Value("${firex.migrations.price-decimal128.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Se ejecuta en segundo plano para no retrasar el arranque
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            log.info("Migración de precios a Decimal128 deshabilitada");
+            return;
+        }
+        CompletableFuture.runAsync(this::migrate).exceptionally(ex -> {
+            log.warn("No se pudo migrar el precio de los productos a Decimal128: {}", ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Convierte los precios String a Decimal128
+     *
+     * @return Cantidad de productos migrados
+     */
+    public long migrate() {
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Producto.class))
+                .updateMany(
+                        Filters.type("price", BsonType.STRING),
+                        List.of(new Document("$set", new Document("price", new Document("$toDecimal", "$price"))))
+                );
+
+        if (result.getModifiedCount() > 0) {
+            log.info("✅ Precios migrados a Decimal128: {} productos", result.getModifiedCount());
+        } else {
+            log.debug("Migración de precios: no hay productos con precio String");
+        }
+        return result.getModifiedCount();
+    }
+}
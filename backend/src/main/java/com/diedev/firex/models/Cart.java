@@ -5,13 +5,20 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "carts")
+// ✅ Índice multikey: encontrar los carritos que tienen un producto (ej: al cambiar su precio)
+@CompoundIndex(name = "items_product_idx", def = "{'items.productId': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,11 +27,21 @@ public class Cart {
     @Id
     private String id;
 
+    // ✅ Un carrito por usuario: las escrituras atómicas filtran por userId
+    @Indexed(unique = true)
     private String userId;
 
     private List<CartItem> items = new ArrayList<>();
 
     private Integer totalItems = 0;
 
+    // ✅ Decimal128 para poder usar $inc/$sum en el servidor
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal totalPrice = BigDecimal.ZERO;
+
+    // ✅ Se incrementa en cada escritura: permite reemplazar los items solo si nadie cambió el carrito
+    private Long revision;
+
+    // ✅ Última modificación del carrito: los carritos abandonados expiran (ver CartExpiryJob)
+    private LocalDateTime lastActivityAt;
 }
@@ -3,6 +3,8 @@ package com.diedev.firex.models;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 
@@ -13,7 +15,12 @@ public class CartItem {
 
     private String productId;
     private String productName;
+
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
+
     private Integer quantity;
+
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal subtotal;
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.diedev.firex.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Respuesta guardada de una petición con Idempotency-Key (ver IdempotencyFilter).
+ * Mientras la petición original se ejecuta el registro queda sin completar (reclamado).
+ */
+@Document(collection = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /** SHA-256 de método + ruta + usuario + clave */
+    @Id
+    private String id;
+
+    private String method;
+    private String path;
+
+    // SHA-256 del cuerpo y la query: la misma clave con otra petición es un error del cliente
+    private String fingerprint;
+
+    private boolean completed;
+    private Integer responseStatus;
+    private String contentType;
+    private String responseBody;
+
+    private Date createdAt;
+
+    // ✅ Índice TTL: completadas viven el TTL configurado; reclamadas solo el tiempo máximo de ejecución
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+}
@@ -5,7 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,6 +16,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "orders")
+// ✅ Exportación por rango de fechas: recorre (createdAt, _id) y se puede reanudar desde el último _id
+@CompoundIndex(name = "created_id_idx", def = "{'createdAt': 1, '_id': 1}")
+// ✅ Historial por usuario paginado por (createdAt, _id), con y sin filtro de estado: sin sort en memoria
+@CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "user_status_created_idx", def = "{'userId': 1, 'status': 1, 'createdAt': -1, '_id': -1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,7 +33,13 @@ public class Order {
 
     private List<OrderItem> items = new ArrayList<>();
 
+    // ✅ Unidades del pedido: el resumen del historial se lee sin traer los items
+    private Integer totalItems;
+
+    // ✅ Decimal128: se guarda como número para poder sumar ventas en el servidor
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal totalAmount;
+
     private OrderStatus status;
     private String shippingAddress;
 
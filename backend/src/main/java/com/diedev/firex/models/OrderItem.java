@@ -3,6 +3,8 @@ package com.diedev.firex.models;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 
@@ -13,7 +15,15 @@ public class OrderItem {
 
     private String productId;
     private String productName;
+
+    // ✅ Categoría al momento de la compra (ventas por categoría, ver SalesRollup)
+    private String categoryId;
+
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
+
     private Integer quantity;
+
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal subtotal;
 }
@@ -0,0 +1,51 @@
+package com.diedev.firex.models;
+
+import com.diedev.firex.enums.DomainEventType;
+import com.diedev.firex.enums.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evento de dominio pendiente de entregar a los suscriptores (ver OutboxRelay).
+ * El _id (ObjectId) da el orden de entrega.
+ */
+@Document(collection = "outbox_events")
+// ✅ Lectura de pendientes en orden: {status: PENDING} ordenado por _id
+@CompoundIndex(name = "status_id_idx", def = "{'status': 1, '_id': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    private DomainEventType type;
+    private String aggregateId;
+    private Map<String, Object> payload;
+
+    private OutboxStatus status;
+    private int attempts;
+    private Date nextAttemptAt;
+    private String lastError;
+
+    // Suscriptores que ya lo procesaron: un reintento solo se entrega a los que fallaron
+    private List<String> deliveredTo = new ArrayList<>();
+
+    private Date createdAt;
+    private Date dispatchedAt;
+
+    // ✅ Índice TTL: solo los entregados tienen expiresAt (los pendientes y fallidos se conservan)
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+}
@@ -5,6 +5,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 
@@ -16,6 +18,8 @@ import java.math.BigDecimal;
 @Document(collection = "products")
 @CompoundIndex(name = "category_stock_idx", def = "{'categoryId': 1, 'stock': -1}")
 @CompoundIndex(name = "name_category_idx", def = "{'name': 1, 'categoryId': 1}")
+@CompoundIndex(name = "category_id_idx", def = "{'categoryId': 1, '_id': 1}")
+@CompoundIndex(name = "price_id_idx", def = "{'price': 1, '_id': 1}")
 public class Producto {
 
     @Id
@@ -26,6 +30,8 @@ public class Producto {
 
     private String description;
 
+    // ✅ Decimal128: se guarda como número (no como String) para comparar y ordenar correctamente
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
 
     @Indexed
@@ -0,0 +1,25 @@
+package com.diedev.firex.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+
+/**
+ * Ventas de un producto o categoría dentro de un acumulado
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesLine {
+
+    private String name;
+
+    private long units;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,54 @@
+package com.diedev.firex.models;
+
+import com.diedev.firex.enums.SalesPeriod;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Acumulado de ventas de un día, semana o mes (según la fecha de creación de los pedidos).
+ * Se mantiene con $inc a medida que se crean pedidos o cambian de estado (ver SalesRollupJob);
+ * los pedidos cancelados solo cuentan en statusCounts.
+ */
+@Document(collection = "sales_rollups")
+// ✅ Rango de periodos de una granularidad (gráficos por día/semana/mes)
+@CompoundIndex(name = "period_start_idx", def = "{'period': 1, 'periodStart': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+
+    // ✅ <PERIODO>:<clave>, ej: DAY:2026-10-16, WEEK:2026-W42, MONTH:2026-10
+    @Id
+    private String id;
+
+    private SalesPeriod period;
+    private String periodKey;
+    private LocalDate periodStart;
+
+    private long orders;
+    private long units;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Pedidos por estado (incluye cancelados)
+    private Map<String, Long> statusCounts = new HashMap<>();
+
+    // Por productId y por categoryId
+    private Map<String, SalesLine> products = new HashMap<>();
+    private Map<String, SalesLine> categories = new HashMap<>();
+
+    private LocalDateTime updatedAt;
+}
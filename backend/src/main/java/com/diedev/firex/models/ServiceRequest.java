@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -12,6 +13,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "service_requests")
+// ✅ Extractos por fecha de creación (ver RecordExportServiceImpl)
+@CompoundIndex(name = "created_id_idx", def = "{'createdAt': 1, '_id': 1}")
+// ✅ Validación de solicitud duplicada (una PENDIENTE por usuario y fecha)
+@CompoundIndex(name = "email_status_fecha_idx", def = "{'userEmail': 1, 'status': 1, 'fecha': 1}")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,40 @@
+package com.diedev.firex.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.Date;
+
+/**
+ * Reserva de stock de un item del carrito (una por usuario y producto).
+ * Nombres de campo cortos: es un registro de alto volumen que solo se lee al arrancar.
+ */
+@Document(collection = "stock_reservations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+
+    /** userId + "|" + productId */
+    @Id
+    private String id;
+
+    @Field("u")
+    private String userId;
+
+    @Field("p")
+    private String productId;
+
+    @Field("q")
+    private Integer quantity;
+
+    // ✅ Índice TTL: Mongo borra las reservas vencidas que no alcanzaron a liberarse
+    @Field("e")
+    @Indexed(expireAfter = "0s")
+    private Date expiresAt;
+}
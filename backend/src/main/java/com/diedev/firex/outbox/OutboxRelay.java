@@ -0,0 +1,304 @@
+package com.diedev.firex.outbox;
+
+import com.diedev.firex.dto.response.OutboxStatsResponse;
+import com.diedev.firex.enums.OutboxStatus;
+import com.diedev.firex.models.OutboxEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entrega los eventos del outbox a los suscriptores en proceso, por lotes y en orden de _id.
+ * - Al menos una vez: un evento se marca entregado después de que todos sus suscriptores lo procesaron
+ * - En orden por agregado: si un evento falla (o espera su reintento), los siguientes del mismo
+ *   agregado no se entregan en ese lote; los de otros agregados sí
+ * - Reintentos con espera exponencial; al agotarlos el evento pasa a FAILED y deja de bloquear su agregado
+ * Se despierta al registrar eventos y además sondea periódicamente (reintentos y eventos de otras instancias).
+ * Supone un solo relay activo: con varias instancias, habilitarlo solo en una.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final MongoTemplate mongoTemplate;
+    private final List<OutboxSubscriber> subscribers;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBase;
+    private final Duration retention;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder appendFailures = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder deliveryFailures = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder totalLagMillis = new LongAdder();
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public OutboxRelay(MongoTemplate mongoTemplate,
+                       List<OutboxSubscriber> subscribers,
+                       @Value("${firex.outbox.enabled:true}") boolean enabled,
+                       @Value("${firex.outbox.batch-size:100}") int batchSize,
+                       @Value("${firex.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${firex.outbox.retry-base-ms:1000}") long retryBaseMillis,
+                       @Value("${firex.outbox.retention-days:7}") long retentionDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.subscribers = subscribers;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBase = Duration.ofMillis(Math.max(1, retryBaseMillis));
+        this.retention = Duration.ofDays(Math.max(1, retentionDays));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sondeo periódico: reintentos vencidos y eventos que no avisaron (ej: escritos antes de un reinicio)
+     */
+    @Scheduled(fixedDelayString = "${firex.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void appended(int count) {
+        appended.add(count);
+        signalled.set(true);
+        start();
+    }
+
+    void recordAppendFailures(int count) {
+        appendFailures.add(count);
+    }
+
+    public OutboxStatsResponse getStats() {
+        Query pendingQuery = Query.query(Criteria.where("status").is(OutboxStatus.PENDING));
+        long pending = mongoTemplate.count(pendingQuery, OutboxEvent.class);
+        OutboxEvent oldest = pending > 0
+                ? mongoTemplate.findOne(pendingQuery.with(Sort.by(Sort.Direction.ASC, "_id")), OutboxEvent.class)
+                : null;
+        long count = dispatched.sum();
+        return OutboxStatsResponse.builder()
+                .enabled(enabled)
+                .running(running.get())
+                .subscribers(subscribers.stream().map(OutboxSubscriber::name).toList())
+                .pending(pending)
+                .oldestPendingAgeMillis(oldest != null ? lagOf(oldest, System.currentTimeMillis()) : 0)
+                .appended(appended.sum())
+                .appendFailures(appendFailures.sum())
+                .dispatched(count)
+                .deliveryFailures(deliveryFailures.sum())
+                .deadLettered(deadLettered.sum())
+                .batches(batches.sum())
+                .lastBatchSize(lastBatchSize)
+                .lastBatchMillis(lastBatchMillis)
+                .lastLagMillis(lastLagMillis)
+                .maxLagMillis(maxLagMillis)
+                .averageLagMillis(count > 0 ? (double) totalLagMillis.sum() / count : 0)
+                .build();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private void start() {
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            boolean more;
+            do {
+                signalled.set(false);
+                more = dispatchBatch();
+            } while (more || signalled.get());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo leer el outbox: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Entrega un lote de eventos pendientes.
+     * Si la primera página solo tiene eventos de agregados bloqueados (uno que falló y los que esperan
+     * detrás de él), se sigue leyendo por _id con los mismos bloqueos hasta avanzar o llegar al final:
+     * así un agregado atascado no detiene a los demás
+     *
+     * @return true si el lote estaba lleno y avanzó (probablemente quedan más)
+     */
+    private boolean dispatchBatch() {
+        long start = System.currentTimeMillis();
+        Date now = new Date();
+        Set<String> blocked = new HashSet<>();
+        List<String> delivered = new ArrayList<>();
+        int progressed = 0;
+        int read = 0;
+        boolean fullPage = false;
+        ObjectId lastSeenId = null;
+
+        do {
+            Criteria criteria = Criteria.where("status").is(OutboxStatus.PENDING);
+            if (lastSeenId != null) {
+                criteria = criteria.and("_id").gt(lastSeenId);
+            }
+            List<OutboxEvent> events = mongoTemplate.find(Query.query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "_id"))
+                    .limit(batchSize), OutboxEvent.class);
+            if (events.isEmpty()) {
+                break;
+            }
+            read += events.size();
+            fullPage = events.size() == batchSize;
+            lastSeenId = new ObjectId(events.get(events.size() - 1).getId());
+
+            for (OutboxEvent event : events) {
+                String aggregate = event.getType().getAggregateType() + ":" + event.getAggregateId();
+                if (blocked.contains(aggregate)) {
+                    continue;
+                }
+                if (event.getNextAttemptAt() != null && event.getNextAttemptAt().after(now)) {
+                    // Esperando su reintento: los siguientes del agregado esperan con él
+                    blocked.add(aggregate);
+                    continue;
+                }
+                if (deliver(event)) {
+                    delivered.add(event.getId());
+                    recordLag(event, now.getTime());
+                    progressed++;
+                } else if (event.getStatus() == OutboxStatus.FAILED) {
+                    progressed++;
+                } else {
+                    blocked.add(aggregate);
+                }
+            }
+        } while (progressed == 0 && fullPage);
+
+        if (read == 0) {
+            return false;
+        }
+
+        // ✅ Un solo updateMulti marca entregado todo el lote; si falla, los eventos se reentregan
+        if (!delivered.isEmpty()) {
+            Date dispatchedAt = new Date();
+            mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(delivered)),
+                    new Update()
+                            .set("status", OutboxStatus.DISPATCHED)
+                            .set("dispatchedAt", dispatchedAt)
+                            .set("expiresAt", new Date(dispatchedAt.getTime() + retention.toMillis())),
+                    OutboxEvent.class);
+        }
+
+        batches.increment();
+        lastBatchSize = delivered.size();
+        lastBatchMillis = System.currentTimeMillis() - start;
+        log.debug("Outbox: {} eventos entregados de {} leídos ({} ms)", delivered.size(), read, lastBatchMillis);
+        return fullPage && progressed > 0;
+    }
+
+    /**
+     * Entrega el evento a los suscriptores que aún no lo procesaron
+     *
+     * @return true si todos lo procesaron
+     */
+    private boolean deliver(OutboxEvent event) {
+        List<String> deliveredTo = event.getDeliveredTo() != null ? new ArrayList<>(event.getDeliveredTo()) : new ArrayList<>();
+        RuntimeException failure = null;
+        String failedSubscriber = null;
+        for (OutboxSubscriber subscriber : subscribers) {
+            if (!subscriber.supports(event.getType()) || deliveredTo.contains(subscriber.name())) {
+                continue;
+            }
+            try {
+                subscriber.handle(event);
+                deliveredTo.add(subscriber.name());
+            } catch (RuntimeException e) {
+                failure = e;
+                failedSubscriber = subscriber.name();
+                break;
+            }
+        }
+        if (failure == null) {
+            return true;
+        }
+
+        deliveryFailures.increment();
+        int attempts = event.getAttempts() + 1;
+        String error = failedSubscriber + ": " + failure.getMessage();
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("deliveredTo", deliveredTo)
+                .set("lastError", error);
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxStatus.FAILED);
+            update.set("status", OutboxStatus.FAILED);
+            deadLettered.increment();
+            log.error("Evento {} ({} de {}) descartado tras {} intentos: {}",
+                    event.getId(), event.getType(), event.getAggregateId(), attempts, error);
+        } else {
+            long delay = retryBase.toMillis() << Math.min(attempts - 1, 16);
+            update.set("nextAttemptAt", new Date(System.currentTimeMillis() + delay));
+            log.warn("Evento {} ({} de {}) falló, reintento {} en {} ms: {}",
+                    event.getId(), event.getType(), event.getAggregateId(), attempts, delay, error);
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(event.getId())), update, OutboxEvent.class);
+        return false;
+    }
+
+    private void recordLag(OutboxEvent event, long now) {
+        long lag = lagOf(event, now);
+        dispatched.increment();
+        totalLagMillis.add(lag);
+        lastLagMillis = lag;
+        if (lag > maxLagMillis) {
+            maxLagMillis = lag;
+        }
+    }
+
+    private static long lagOf(OutboxEvent event, long now) {
+        return event.getCreatedAt() != null ? Math.max(0, now - event.getCreatedAt().getTime()) : 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.diedev.firex.outbox;
+
+import com.diedev.firex.enums.DomainEventType;
+import com.diedev.firex.models.OutboxEvent;
+
+/**
+ * Suscriptor en proceso de los eventos del outbox.
+ * La entrega es al menos una vez: handle() puede recibir el mismo evento de nuevo
+ * (ej: la instancia se cayó antes de marcarlo entregado), así que debe ser idempotente.
+ * Lanzar una excepción hace que el evento se reintente con espera creciente.
+ */
+public interface OutboxSubscriber {
+
+    /**
+     * Nombre estable: se guarda en el evento para no repetir la entrega a quien ya lo procesó
+     */
+    String name();
+
+    boolean supports(DomainEventType type);
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,70 @@
+package com.diedev.firex.outbox;
+
+import com.diedev.firex.enums.DomainEventType;
+import com.diedev.firex.enums.OutboxStatus;
+import com.diedev.firex.models.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registra eventos de dominio en la colección outbox_events justo después de la escritura que los origina.
+ * Sin replica set no hay transacciones multi-documento, así que el evento se escribe a continuación
+ * de la mutación y no en la misma transacción: si este insert falla se registra el error y la
+ * operación del usuario no se deshace (ya quedó guardada).
+ */
+@Slf4j
+@Component
+public class OutboxWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxRelay relay;
+
+    public OutboxWriter(MongoTemplate mongoTemplate, OutboxRelay relay) {
+        this.mongoTemplate = mongoTemplate;
+        this.relay = relay;
+    }
+
+    /**
+     * Crea un evento pendiente. El _id se genera aquí: en un mismo proceso los ObjectId son
+     * crecientes, así los eventos de un agregado conservan el orden en que ocurrieron
+     */
+    public static OutboxEvent event(DomainEventType type, String aggregateId, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(new ObjectId().toHexString());
+        event.setType(type);
+        event.setAggregateId(aggregateId);
+        event.setPayload(payload);
+        event.setStatus(OutboxStatus.PENDING);
+        event.setCreatedAt(new Date());
+        return event;
+    }
+
+    public void append(DomainEventType type, String aggregateId, Map<String, Object> payload) {
+        appendAll(List.of(event(type, aggregateId, payload)));
+    }
+
+    /**
+     * Guarda varios eventos con un solo insert y avisa al relay, que los entrega sin esperar al siguiente sondeo
+     */
+    public void appendAll(List<OutboxEvent> events) {
+        if (events.isEmpty() || !relay.isEnabled()) {
+            return;
+        }
+        try {
+            mongoTemplate.insertAll(new ArrayList<>(events));
+        } catch (RuntimeException e) {
+            relay.recordAppendFailures(events.size());
+            log.error("No se pudieron registrar {} eventos en el outbox ({} de {}): {}",
+                    events.size(), events.get(0).getType(), events.get(0).getAggregateId(), e.getMessage());
+            return;
+        }
+        relay.appended(events.size());
+    }
+}
@@ -1,14 +1,17 @@
 package com.diedev.firex.repositories;
 
 import com.diedev.firex.models.Cart;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CartRepository extends MongoRepository<Cart, String> {
+public interface CartRepository extends MongoRepository<Cart, String>, CartRepositoryCustom {
 
     /**
      * Buscar carrito por usuario
@@ -36,4 +39,36 @@ public interface CartRepository extends MongoRepository<Cart, String> {
      */
     @Query(value = "{'totalItems': {$gt: 0}}", count = true)
     long countActiveCartsByTotalItemsGreaterThan();
-}
\ No newline at end of file
+
+    /**
+     * Contar carritos activos (con items) modificados desde una fecha
+     * @param since Fecha desde la que se cuenta la actividad
+     * @return Cantidad de carritos con totalItems > 0 y lastActivityAt >= since
+     */
+    @Query(value = "{'totalItems': {$gt: 0}, 'lastActivityAt': {$gte: ?0}}", count = true)
+    long countActiveCartsSince(LocalDateTime since);
+
+    /**
+     * Contar carritos sin actividad desde una fecha (vencidos según la política de expiración)
+     * @param cutoff Fecha límite
+     * @return Cantidad de carritos con lastActivityAt anterior
+     */
+    long countByLastActivityAtBefore(LocalDateTime cutoff);
+
+    /**
+     * Buscar carritos vacíos (solo el _id), para purgarlos por lotes
+     * @param pageable Tamaño del lote
+     * @return Carritos sin items
+     */
+    @Query(value = "{'items.0': {$exists: false}}", fields = "{'_id': 1}")
+    List<Cart> findEmptyCarts(Pageable pageable);
+
+    /**
+     * Eliminar carritos por ID solo si siguen vacíos
+     * (un carrito que recibió un item entre la búsqueda y el borrado se conserva)
+     * @param ids IDs de los carritos
+     * @return Cantidad de carritos eliminados
+     */
+    @Query(value = "{'_id': {$in: ?0}, 'items.0': {$exists: false}}", delete = true)
+    long deleteEmptyCartsByIdIn(List<String> ids);
+}
@@ -0,0 +1,91 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.models.CartItem;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Escrituras atómicas sobre el carrito: cada método es una sola operación
+ * findAndModify en Mongo que devuelve el carrito ya modificado
+ */
+public interface CartRepositoryCustom {
+
+    /**
+     * Agrega un producto o, si ya está en el carrito, reemplaza su cantidad, precio y subtotal.
+     * Si el usuario no tiene carrito lo crea (upsert)
+     * @param userId ID del usuario
+     * @param item Item con su subtotal calculado
+     * @param maxItems Máximo de productos diferentes permitidos
+     * @return Carrito actualizado
+     * @throws org.springframework.dao.DuplicateKeyException si el carrito existe pero está lleno
+     *         y el producto es nuevo (el upsert choca con el índice único de userId)
+     */
+    Cart upsertItem(String userId, CartItem item, int maxItems);
+
+    /**
+     * Quita un producto del carrito
+     * @param userId ID del usuario
+     * @param productId ID del producto
+     * @return Carrito actualizado, o vacío si el producto no está en el carrito
+     */
+    Optional<Cart> pullItem(String userId, String productId);
+
+    /**
+     * Vacía el carrito y devuelve los items que tenía, en una sola operación (ej: al iniciar el checkout).
+     * Dos checkouts simultáneos no pueden tomar los mismos items: el segundo encuentra el carrito vacío
+     * @param userId ID del usuario
+     * @return Carrito tal como estaba antes de vaciarlo, o vacío si no existe o no tiene items
+     */
+    Optional<Cart> claimItems(String userId);
+
+    /**
+     * Devuelve al carrito items tomados con claimItems (ej: el checkout falló).
+     * Los productos que el usuario volvió a agregar entre medio se conservan como están
+     * @param userId ID del usuario
+     * @param items Items a devolver
+     * @return Carrito actualizado
+     */
+    Cart restoreItems(String userId, List<CartItem> items);
+
+    /**
+     * Reemplaza todos los items y totales solo si el carrito sigue en la revisión leída (compare-and-set).
+     * Si el usuario no tiene carrito (expectedRevision null) lo crea
+     * @param userId ID del usuario
+     * @param expectedRevision Revisión leída (null si el carrito no existía)
+     * @param items Nuevos items con sus subtotales
+     * @return Carrito actualizado, o vacío si otra escritura cambió el carrito
+     */
+    Optional<Cart> replaceItems(String userId, Long expectedRevision, List<CartItem> items);
+
+    /**
+     * Guarda el carrito resultante de unir el de invitado con el del usuario y borra el de invitado,
+     * en un solo bulkWrite ordenado: el reemplazo es compare-and-set sobre la revisión leída
+     * (como replaceItems) y si falla el borrado no se ejecuta, así el carrito de invitado nunca se pierde
+     * @param userId ID del usuario
+     * @param expectedRevision Revisión leída del carrito del usuario (null si no existía)
+     * @param items Items unidos y revalidados
+     * @param guestUserId Clave del carrito de invitado
+     * @return false si otra escritura cambió el carrito del usuario (reintentar)
+     */
+    boolean mergeGuestCart(String userId, Long expectedRevision, List<CartItem> items, String guestUserId);
+
+    /**
+     * Vacía el carrito sin leerlo
+     * @param userId ID del usuario
+     * @return true si el carrito existe
+     */
+    boolean clearItems(String userId);
+
+    /**
+     * Actualiza precio, subtotales y totales de todos los carritos que tienen alguno de los productos.
+     * Un solo bulkWrite con un updateMany por producto (usa el índice de items.productId);
+     * los carritos que ya tienen el precio nuevo no se tocan
+     * @param prices Precio nuevo por productId
+     * @return Cantidad de carritos modificados
+     */
+    long repriceItems(Map<String, BigDecimal> prices);
+}
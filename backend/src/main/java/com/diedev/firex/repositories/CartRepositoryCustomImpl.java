@@ -0,0 +1,238 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.models.CartItem;
+import com.diedev.firex.util.Money;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementación con MongoTemplate de las escrituras atómicas del carrito.
+ * Agregar, cambiar la cantidad o quitar un producto son updates con pipeline
+ * ($map / $concatArrays / $filter sobre items y $sum para los totales): el delta de los
+ * totales depende de lo que hay guardado en ese momento, así el servidor lo calcula
+ * en la misma operación y dos clics simultáneos no pisan sus cambios.
+ */
+@RequiredArgsConstructor
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+    private static final FindAndModifyOptions UPSERT_RETURN_NEW = FindAndModifyOptions.options().returnNew(true).upsert(true);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Cart upsertItem(String userId, CartItem item, int maxItems) {
+        // El producto ya está en el carrito, o hay espacio para uno más
+        Query query = new Query(Criteria.where("userId").is(userId).orOperator(
+                Criteria.where("items.productId").is(item.getProductId()),
+                Criteria.where("items." + (maxItems - 1)).exists(false)
+        ));
+
+        Document replaced = new Document("$cond", List.of(
+                new Document("$eq", List.of("$$i.productId", item.getProductId())),
+                new Document("$mergeObjects", List.of("$$i", new Document()
+                        .append("quantity", item.getQuantity())
+                        .append("price", toDecimal128(item.getPrice()))
+                        .append("subtotal", toDecimal128(item.getSubtotal())))),
+                "$$i"
+        ));
+        Document current = new Document("$ifNull", List.of("$items", List.of()));
+        Document items = new Document("$cond", List.of(
+                new Document("$in", List.of(item.getProductId(), new Document("$ifNull", List.of("$items.productId", List.of())))),
+                new Document("$map", new Document()
+                        .append("input", current)
+                        .append("as", "i")
+                        .append("in", replaced)),
+                new Document("$concatArrays", List.of(current, List.of(toDocument(item))))
+        ));
+
+        return mongoTemplate.findAndModify(query, withTotals(items, true), UPSERT_RETURN_NEW, Cart.class);
+    }
+
+    @Override
+    public Optional<Cart> pullItem(String userId, String productId) {
+        Query query = new Query(Criteria.where("userId").is(userId)
+                .and("items.productId").is(productId));
+
+        Document items = new Document("$filter", new Document()
+                .append("input", "$items")
+                .append("as", "i")
+                .append("cond", new Document("$ne", List.of("$$i.productId", productId))));
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, withTotals(items, true), RETURN_NEW, Cart.class));
+    }
+
+    @Override
+    public Optional<Cart> claimItems(String userId) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("items.0").exists(true));
+
+        // Sin returnNew: se necesita lo que había antes de vaciarlo
+        return Optional.ofNullable(mongoTemplate.findAndModify(query,
+                withTotals(new Document("$literal", List.of()), true), FindAndModifyOptions.options(), Cart.class));
+    }
+
+    @Override
+    public Cart restoreItems(String userId, List<CartItem> items) {
+        Query query = new Query(Criteria.where("userId").is(userId));
+
+        List<Document> restored = items.stream().map(CartRepositoryCustomImpl::toDocument).toList();
+        Document current = new Document("$ifNull", List.of("$items", List.of()));
+        Document missing = new Document("$filter", new Document()
+                .append("input", new Document("$literal", restored))
+                .append("as", "r")
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of(
+                        "$$r.productId", new Document("$ifNull", List.of("$items.productId", List.of()))))))));
+
+        return mongoTemplate.findAndModify(query,
+                withTotals(new Document("$concatArrays", List.of(current, missing)), true), UPSERT_RETURN_NEW, Cart.class);
+    }
+
+    @Override
+    public Optional<Cart> replaceItems(String userId, Long expectedRevision, List<CartItem> items) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("revision").is(expectedRevision));
+
+        Update update = replaceItemsUpdate(items, expectedRevision);
+
+        try {
+            // Con upsert: si no hay carrito se crea; si existe en otra revisión el índice único lo rechaza
+            return Optional.of(mongoTemplate.findAndModify(query, update, UPSERT_RETURN_NEW, Cart.class));
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean mergeGuestCart(String userId, Long expectedRevision, List<CartItem> items, String guestUserId) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("revision").is(expectedRevision));
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Cart.class)
+                    .upsert(query, replaceItemsUpdate(items, expectedRevision))
+                    .remove(Query.query(Criteria.where("userId").is(guestUserId)))
+                    .execute();
+            return true;
+        } catch (BulkOperationException e) {
+            // Falló el compare-and-set (el upsert choca con el índice único): el borrado no se ejecutó
+            if (e.getErrors().stream().anyMatch(error -> error.getIndex() == 0 && error.getCode() == DUPLICATE_KEY)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean clearItems(String userId) {
+        Update update = new Update()
+                .set("items", List.of())
+                .set("totalItems", 0)
+                .set("totalPrice", Decimal128.POSITIVE_ZERO)
+                .inc("revision", 1)
+                .currentDate("lastActivityAt");
+
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("userId").is(userId)), update, Cart.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public long repriceItems(Map<String, BigDecimal> prices) {
+        if (prices.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class);
+        for (Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+            Decimal128 price = toDecimal128(entry.getValue());
+            Query query = new Query(Criteria.where("items").elemMatch(
+                    Criteria.where("productId").is(entry.getKey()).and("price").ne(price)));
+
+            Document items = new Document("$map", new Document()
+                    .append("input", "$items")
+                    .append("as", "i")
+                    .append("in", new Document("$cond", List.of(
+                            new Document("$eq", List.of("$$i.productId", entry.getKey())),
+                            new Document("$mergeObjects", List.of("$$i", new Document()
+                                    .append("price", price)
+                                    .append("subtotal", new Document("$multiply", List.of(price, "$$i.quantity"))))),
+                            "$$i"
+                    ))));
+
+            // El cambio de precio no cuenta como actividad del usuario
+            bulk.updateMulti(query, withTotals(items, false));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    /**
+     * Pipeline de 2 etapas: reemplaza items y recalcula los totales (y la revisión) a partir del resultado
+     * @param activity true si es un cambio del usuario (actualiza lastActivityAt)
+     */
+    private static AggregationUpdate withTotals(Document items, boolean activity) {
+        AggregationOperation setItems = context -> new Document("$set", new Document("items", items));
+        Document totals = new Document()
+                .append("totalItems", new Document("$sum", "$items.quantity"))
+                .append("totalPrice", new Document("$sum", "$items.subtotal"))
+                .append("revision", new Document("$add", List.of(new Document("$ifNull", List.of("$revision", 0L)), 1L)));
+        if (activity) {
+            totals.append("lastActivityAt", "$$NOW");
+        }
+        AggregationOperation setTotals = context -> new Document("$set", totals);
+        return AggregationUpdate.from(List.of(setItems, setTotals));
+    }
+
+    /**
+     * $set de items y totales calculados en la aplicación, con nueva revisión y actividad.
+     * La revisión se fija en lugar de $inc: en el upsert de un carrito nuevo el filtro {revision: null}
+     * se copia al documento insertado y $inc sobre null falla
+     */
+    private static Update replaceItemsUpdate(List<CartItem> items, Long expectedRevision) {
+        int totalItems = 0;
+        long totalMinor = 0;
+        List<Document> documents = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            totalItems += item.getQuantity();
+            totalMinor = Math.addExact(totalMinor, Money.toMinor(item.getSubtotal()));
+            documents.add(toDocument(item));
+        }
+
+        return new Update()
+                .set("items", documents)
+                .set("totalItems", totalItems)
+                .set("totalPrice", Money.toDecimal128(totalMinor))
+                .set("revision", expectedRevision != null ? expectedRevision + 1 : 1L)
+                .currentDate("lastActivityAt");
+    }
+
+    private static Document toDocument(CartItem item) {
+        return new Document()
+                .append("productId", item.getProductId())
+                .append("productName", item.getProductName())
+                .append("price", toDecimal128(item.getPrice()))
+                .append("quantity", item.getQuantity())
+                .append("subtotal", toDecimal128(item.getSubtotal()));
+    }
+
+    private static Decimal128 toDecimal128(BigDecimal value) {
+        return new Decimal128(value != null ? value : BigDecimal.ZERO);
+    }
+}
@@ -2,6 +2,8 @@ package com.diedev.firex.repositories;
 
 import com.diedev.firex.models.Order;
 import com.diedev.firex.enums.OrderStatus;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -10,7 +12,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
 
     /**
      * Buscar órdenes por usuario
@@ -21,6 +23,7 @@ public interface OrderRepository extends MongoRepository<Order, String> {
 
     /**
      * Buscar órdenes por usuario ordenadas por fecha (más reciente primero)
+     * Trae todas las órdenes con sus items: para historiales grandes usar findHistoryPageBefore
      * @param userId ID del usuario
      * @return Lista ordenada de órdenes
      */
@@ -43,6 +46,7 @@ public interface OrderRepository extends MongoRepository<Order, String> {
 
     /**
      * Buscar órdenes en un rango de fechas
+     * Carga todo el rango en memoria: para extractos grandes usar RecordExportServiceImpl (cursor)
      * @param startDate Fecha inicio
      * @param endDate Fecha fin
      * @return Lista de órdenes en ese rango
@@ -63,4 +67,35 @@ public interface OrderRepository extends MongoRepository<Order, String> {
      * @return Cantidad de órdenes
      */
     long countByUserId(String userId);
+
+    // ========== HISTORIAL (PAGINACIÓN KEYSET) ==========
+    // Más reciente primero por (createdAt, _id) sobre user_created_idx / user_status_created_idx,
+    // sin los items (resumen para listados)
+
+    /**
+     * Página del historial de un usuario
+     * @param userId ID del usuario
+     * @param beforeCreatedAt Fecha de la última orden de la página anterior
+     * @param beforeId _id de la última orden de la página anterior (desempate)
+     * @param pageable Límite y orden ({createdAt: -1, _id: -1})
+     * @return Órdenes anteriores a (beforeCreatedAt, beforeId), sin items
+     */
+    @Query(value = "{'userId': ?0, $or: [{'createdAt': {$lt: ?1}}, {'createdAt': ?1, '_id': {$lt: ?2}}]}",
+            fields = "{'items': 0}")
+    List<Order> findHistoryPageBefore(String userId, LocalDateTime beforeCreatedAt, ObjectId beforeId,
+                                      Pageable pageable);
+
+    /**
+     * Página del historial de un usuario filtrado por estado (misma condición que findByUserIdAndStatus)
+     * @param userId ID del usuario
+     * @param status Estado de la orden
+     * @param beforeCreatedAt Fecha de la última orden de la página anterior
+     * @param beforeId _id de la última orden de la página anterior (desempate)
+     * @param pageable Límite y orden ({createdAt: -1, _id: -1})
+     * @return Órdenes con ese estado anteriores a (beforeCreatedAt, beforeId), sin items
+     */
+    @Query(value = "{'userId': ?0, 'status': ?1, $or: [{'createdAt': {$lt: ?2}}, {'createdAt': ?2, '_id': {$lt: ?3}}]}",
+            fields = "{'items': 0}")
+    List<Order> findHistoryPageBeforeByStatus(String userId, OrderStatus status, LocalDateTime beforeCreatedAt,
+                                              ObjectId beforeId, Pageable pageable);
 }
@@ -0,0 +1,21 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.enums.OrderStatus;
+import com.diedev.firex.models.Order;
+
+import java.util.Optional;
+
+/**
+ * Escrituras atómicas sobre pedidos
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Cambia el estado solo si el pedido sigue en el estado leído (compare-and-set)
+     * @param id ID del pedido
+     * @param expected Estado leído
+     * @param status Estado nuevo
+     * @return Pedido actualizado, o vacío si otro cambio llegó primero
+     */
+    Optional<Order> updateStatus(String id, OrderStatus expected, OrderStatus status);
+}
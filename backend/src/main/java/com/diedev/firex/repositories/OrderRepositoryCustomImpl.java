@@ -0,0 +1,34 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.enums.OrderStatus;
+import com.diedev.firex.models.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Implementación con MongoTemplate de las escrituras atómicas de pedidos
+ */
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Order> updateStatus(String id, OrderStatus expected, OrderStatus status) {
+        Query query = new Query(Criteria.where("_id").is(id).and("status").is(expected));
+        Update update = new Update()
+                .set("status", status)
+                .set("updatedAt", LocalDateTime.now());
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update, RETURN_NEW, Order.class));
+    }
+}
@@ -1,15 +1,17 @@
 package com.diedev.firex.repositories;
 
 import com.diedev.firex.models.Producto;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends MongoRepository<Producto, String> {
+public interface ProductRepository extends MongoRepository<Producto, String>, ProductRepositoryCustom {
 
     /**
      * Buscar productos por categoría
@@ -35,12 +37,14 @@ public interface ProductRepository extends MongoRepository<Producto, String> {
 
     /**
      * Buscar productos por rango de precio
+     * Los parámetros son Decimal128 porque las consultas @Query no aplican el tipo del campo:
+     * un BigDecimal se enviaría como String y la comparación sería lexicográfica
      * @param minPrice Precio mínimo
      * @param maxPrice Precio máximo
      * @return Lista de productos en ese rango
      */
     @Query("{'price': {$gte: ?0, $lte: ?1}}")
-    List<Producto> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    List<Producto> findByPriceRange(Decimal128 minPrice, Decimal128 maxPrice);
 
     /**
      * Buscar productos con stock bajo
@@ -71,4 +75,49 @@ public interface ProductRepository extends MongoRepository<Producto, String> {
      */
     @Query(value = "{'name': {$regex: ?0, $options: 'i'}}", exists = true)
     boolean existsByNameIgnoreCase(String name);
+
+    // ========== PAGINACIÓN KEYSET ==========
+    // Todas filtran por "después de la última clave vista" y se ordenan por esa clave,
+    // así una página profunda cuesta lo mismo que la primera (sin skip)
+
+    /**
+     * Página de productos ordenada por _id
+     * @param afterId Último _id de la página anterior
+     * @param pageable Límite y orden ({_id: 1})
+     * @return Productos con _id > afterId
+     */
+    @Query("{'_id': {$gt: ?0}}")
+    List<Producto> findPageAfter(ObjectId afterId, Pageable pageable);
+
+    /**
+     * Página de productos con stock disponible ordenada por _id
+     * @param afterId Último _id de la página anterior
+     * @param pageable Límite y orden ({_id: 1})
+     * @return Productos con stock > 0 y _id > afterId
+     */
+    @Query("{'stock': {$gt: 0}, '_id': {$gt: ?0}}")
+    List<Producto> findAvailablePageAfter(ObjectId afterId, Pageable pageable);
+
+    /**
+     * Página de productos de una categoría ordenada por _id (usa category_id_idx)
+     * @param categoryId ID de la categoría
+     * @param afterId Último _id de la página anterior
+     * @param pageable Límite y orden ({_id: 1})
+     * @return Productos de la categoría con _id > afterId
+     */
+    @Query("{'categoryId': ?0, '_id': {$gt: ?1}}")
+    List<Producto> findByCategoryPageAfter(String categoryId, ObjectId afterId, Pageable pageable);
+
+    /**
+     * Página de productos en un rango de precio ordenada por (price, _id) (usa price_id_idx)
+     * @param minPrice Precio mínimo
+     * @param maxPrice Precio máximo
+     * @param afterPrice Precio del último producto de la página anterior
+     * @param afterId _id del último producto de la página anterior (desempate)
+     * @param pageable Límite y orden ({price: 1, _id: 1})
+     * @return Productos en el rango posteriores a (afterPrice, afterId)
+     */
+    @Query("{'price': {$gte: ?0, $lte: ?1}, $or: [{'price': {$gt: ?2}}, {'price': ?2, '_id': {$gt: ?3}}]}")
+    List<Producto> findByPriceRangePageAfter(Decimal128 minPrice, Decimal128 maxPrice,
+                                             Decimal128 afterPrice, ObjectId afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.models.Producto;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Escrituras de productos sin reemplazar el documento: edición de datos y stock del checkout
+ * (un solo bulkWrite por pedido)
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Actualiza los datos editables del producto (nombre, descripción, precio, stock y categoría)
+     * con $set, sin tocar las marcas de los checkouts en curso
+     * @param producto Producto con los datos nuevos
+     * @return Producto actualizado, vacío si ya no existe
+     */
+    Optional<Producto> updateDetails(Producto producto);
+
+    /**
+     * Descuenta las unidades de cada producto solo si le alcanza el stock (stock >= cantidad).
+     * Cada descuento aplicado queda marcado con el pedido, para poder deshacer exactamente esos
+     * con restoreStock si el pedido no se completa
+     * @param orderId ID del pedido que descuenta
+     * @param quantities Cantidad por productId
+     * @return Cantidad de productos descontados (menor que quantities.size() si a alguno no le alcanzó)
+     */
+    int decrementStock(String orderId, Map<String, Integer> quantities);
+
+    /**
+     * Devuelve las unidades descontadas por el pedido (solo en los productos que tienen su marca)
+     * @param orderId ID del pedido
+     * @param quantities Cantidad por productId, la misma usada en decrementStock
+     * @return Cantidad de productos devueltos
+     */
+    int restoreStock(String orderId, Map<String, Integer> quantities);
+
+    /**
+     * Quita la marca del pedido en los productos descontados, una vez guardado el pedido
+     * @param orderId ID del pedido
+     * @param productIds Productos del pedido
+     * @return Cantidad de productos de los que se quitó la marca
+     */
+    int releaseStockHolds(String orderId, Collection<String> productIds);
+}
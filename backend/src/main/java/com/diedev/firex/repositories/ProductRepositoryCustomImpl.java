@@ -0,0 +1,78 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.models.Producto;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementación con MongoTemplate de las escrituras de productos que no reemplazan el documento.
+ * El resultado de un bulkWrite solo trae totales, no qué operación coincidió: por eso cada
+ * descuento agrega el ID del pedido a stockHolds y la compensación filtra por esa marca en vez
+ * de suponer qué productos se descontaron. La marca se quita al guardar el pedido o al compensar,
+ * así el arreglo solo tiene los checkouts en curso.
+ */
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Producto> updateDetails(Producto producto) {
+        // ✅ $set de los campos editables: no pisa stockHolds de un checkout en curso
+        Query query = new Query(Criteria.where("_id").is(producto.getId()));
+        Update update = new Update()
+                .set("name", producto.getName())
+                .set("description", producto.getDescription())
+                .set("price", producto.getPrice() != null ? new Decimal128(producto.getPrice()) : null)
+                .set("stock", producto.getStock())
+                .set("categoryId", producto.getCategoryId());
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update, RETURN_NEW, Producto.class));
+    }
+
+    @Override
+    public int decrementStock(String orderId, Map<String, Integer> quantities) {
+        // UNORDERED: los descuentos son independientes, el servidor puede aplicarlos en paralelo
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+        quantities.forEach((productId, quantity) -> {
+            Query query = new Query(Criteria.where("_id").is(productId).and("stock").gte(quantity));
+            Update update = new Update()
+                    .inc("stock", -quantity)
+                    .push("stockHolds", orderId);
+            bulk.updateOne(query, update);
+        });
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public int restoreStock(String orderId, Map<String, Integer> quantities) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+        quantities.forEach((productId, quantity) -> {
+            // $pull en la misma operación: un reintento de la compensación no devuelve dos veces
+            Query query = new Query(Criteria.where("_id").is(productId).and("stockHolds").is(orderId));
+            Update update = new Update()
+                    .inc("stock", quantity)
+                    .pull("stockHolds", orderId);
+            bulk.updateOne(query, update);
+        });
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public int releaseStockHolds(String orderId, Collection<String> productIds) {
+        Query query = new Query(Criteria.where("_id").in(productIds).and("stockHolds").is(orderId));
+        return (int) mongoTemplate.updateMulti(query, new Update().pull("stockHolds", orderId), Producto.class)
+                .getModifiedCount();
+    }
+}
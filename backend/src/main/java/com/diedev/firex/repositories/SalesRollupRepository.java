@@ -0,0 +1,24 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.enums.SalesPeriod;
+import com.diedev.firex.models.SalesRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends MongoRepository<SalesRollup, String> {
+
+    /**
+     * Acumulados de una granularidad en un rango de fechas (usa period_start_idx)
+     * @param period Granularidad
+     * @param from Inicio del primer periodo (inclusive)
+     * @param to Inicio del último periodo (inclusive)
+     * @return Acumulados ordenados por periodStart
+     */
+    @Query(value = "{'period': ?0, 'periodStart': {$gte: ?1, $lte: ?2}}", sort = "{'periodStart': 1}")
+    List<SalesRollup> findByPeriodBetween(SalesPeriod period, LocalDate from, LocalDate to);
+}
@@ -63,6 +63,16 @@ public interface ServiceRequestRepository extends MongoRepository<ServiceRequest
      */
     List<ServiceRequest> findByUserEmailAndStatus(String userEmail, ServiceRequestStatus status);
 
+    /**
+     * Verificar si el usuario ya tiene una solicitud en ese estado para la fecha
+     * (usa el índice email_status_fecha_idx, sin cargar documentos)
+     * @param userEmail Email del usuario
+     * @param fecha Fecha de la solicitud (YYYY-MM-DD)
+     * @param status Estado de la solicitud
+     * @return true si existe
+     */
+    boolean existsByUserEmailAndFechaAndStatus(String userEmail, String fecha, ServiceRequestStatus status);
+
     /**
      * Buscar solicitudes por tipo de extintor
      * @param tipo Tipo de extintor (ABC, CO2, H2O, K)
@@ -79,6 +89,7 @@ public interface ServiceRequestRepository extends MongoRepository<ServiceRequest
 
     /**
      * Buscar solicitudes en un rango de fechas de creación
+     * Devuelve la lista completa; los extractos mensuales van por GET /api/service-requests/export
      * @param startDate Fecha inicio
      * @param endDate Fecha fin
      * @return Lista de solicitudes en ese rango
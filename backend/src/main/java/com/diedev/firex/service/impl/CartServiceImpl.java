@@ -1,10 +1,14 @@
 package com.diedev.firex.service.impl;
 
+import com.diedev.firex.cart.CartWriteBehindCache;
+import com.diedev.firex.cart.StockReservationLedger;
+import com.diedev.firex.dto.request.CartBatchRequest;
 import com.diedev.firex.dto.request.CartItemRequest;
+import com.diedev.firex.dto.request.CartOperationRequest;
 import com.diedev.firex.dto.response.CartItemResponse;
 import com.diedev.firex.dto.response.CartResponse;
+import com.diedev.firex.enums.CartOperationType;
 import com.diedev.firex.exception.BadRequestException;
-import com.diedev.firex.exception.InsufficientStockException;
 import com.diedev.firex.exception.ResourceNotFoundException;
 import com.diedev.firex.models.Cart;
 import com.diedev.firex.models.CartItem;
@@ -12,20 +16,31 @@ import com.diedev.firex.models.Producto;
 import com.diedev.firex.repositories.CartRepository;
 import com.diedev.firex.repositories.ProductRepository;
 import com.diedev.firex.service.interfaces.ICartService;
+import com.diedev.firex.util.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Implementación del servicio de carrito de compras
  * ✅ ARREGLADO: Validaciones mejoradas y límites de cantidad
+ * ✅ Con write-behind habilitado los carritos activos viven en memoria (ver CartWriteBehindCache);
+ *    si no, las escrituras son operaciones atómicas en Mongo (ver CartRepositoryCustom)
+ * ✅ Las unidades de cada item quedan reservadas mientras el carrito tenga actividad (ver StockReservationLedger)
  */
 @Slf4j
 @Service
@@ -34,18 +49,31 @@ public class CartServiceImpl implements ICartService {
 
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
+    private final CartWriteBehindCache cartCache;
+    private final StockReservationLedger reservationLedger;
 
     // ✅ Constante: Límite máximo de items por producto en el carrito
     private static final int MAX_QUANTITY_PER_ITEM = 100;
     private static final int MAX_ITEMS_IN_CART = 50;
+    private static final int MAX_WRITE_ATTEMPTS = 2;
+    private static final int MAX_BATCH_OPERATIONS = 100;
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    // ✅ Los carritos de invitado se guardan con userId = prefijo + token anónimo
+    private static final String GUEST_PREFIX = "guest-";
 
     @Override
     @Transactional(readOnly = true)
     public CartResponse getCartByUserId(String userId) {
         log.debug("Obteniendo carrito del usuario: {}", userId);
 
+        reservationLedger.touch(userId);
+        if (cartCache.isEnabled()) {
+            return cartCache.read(userId, this::mapToCartResponse);
+        }
+
+        // ✅ Carrito virtual: si el usuario no tiene carrito se responde uno vacío sin guardarlo
         Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> createEmptyCart(userId));
+                .orElseGet(() -> emptyCart(userId));
 
         return mapToCartResponse(cart);
     }
@@ -62,107 +90,373 @@ public class CartServiceImpl implements ICartService {
             );
         }
 
-        // ✅ VALIDACIÓN 2: Producto existe y tiene stock ANTES de hacer cambios
+        // ✅ VALIDACIÓN 2: Producto existe ANTES de hacer cambios
         Producto producto = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", request.getProductId()));
 
-        // Verificar que el producto esté disponible
-        if (producto.getStock() <= 0) {
-            throw new InsufficientStockException(
-                    String.format("El producto '%s' está agotado", producto.getName())
-            );
+        // ✅ VALIDACIÓN 3: Reservar las unidades (stock menos lo reservado por otros carritos, sin ir a Mongo)
+        Map<String, Integer> previous = reservationLedger.reserve(userId,
+                Map.of(producto.getId(), request.getQuantity()), Map.of(producto.getId(), producto));
+
+        // ✅ Actualizar precio por si cambió
+        CartItem item = toCartItem(producto, request.getQuantity());
+
+        try {
+            CartResponse response = writeItem(userId, item);
+            reservationLedger.touch(userId);
+            log.info("✅ Item agregado/actualizado: {} (cantidad: {})", producto.getName(), request.getQuantity());
+            return response;
+        } catch (RuntimeException e) {
+            // El carrito no cambió: devolver la reserva a como estaba
+            reservationLedger.restore(userId, previous);
+            throw e;
         }
+    }
 
-        if (producto.getStock() < request.getQuantity()) {
-            throw new InsufficientStockException(
-                    producto.getName(),
-                    request.getQuantity(),
-                    producto.getStock()
-            );
+    private CartResponse writeItem(String userId, CartItem item) {
+        // ✅ Write-behind: el cambio se aplica en memoria y se escribe agrupado con los siguientes
+        if (cartCache.isEnabled()) {
+            return cartCache.update(userId, cart -> {
+                upsertItemInMemory(cart, item);
+                return mapToCartResponse(cart);
+            });
         }
 
-        // Obtener o crear carrito
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> createEmptyCart(userId));
+        // ✅ Una sola operación atómica en Mongo: agrega o reemplaza el item y recalcula totales.
+        //    Si el usuario aún no tiene carrito, la misma operación lo crea (upsert)
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Cart cart = cartRepository.upsertItem(userId, item, MAX_ITEMS_IN_CART);
+                return mapToCartResponse(cart);
+            } catch (DuplicateKeyException e) {
+                // El carrito existe pero no coincidió con el filtro: está lleno y el producto es nuevo,
+                // u otra petición lo creó en paralelo (en ese caso el reintento sí coincide)
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw new BadRequestException(
+                            String.format("El carrito no puede tener más de %d productos diferentes", MAX_ITEMS_IN_CART)
+                    );
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public CartResponse removeItem(String userId, String productId) {
+        log.info("Eliminando item del carrito del usuario: {}", userId);
 
-        // ✅ VALIDACIÓN 3: Límite de items diferentes en el carrito
-        if (cart.getItems().size() >= MAX_ITEMS_IN_CART) {
-            Optional<CartItem> existingItem = cart.getItems().stream()
-                    .filter(item -> item.getProductId().equals(request.getProductId()))
-                    .findFirst();
+        if (cartCache.isEnabled()) {
+            CartResponse response = cartCache.updateIfPresent(userId, cart -> {
+                if (!cart.getItems().removeIf(item -> item.getProductId().equals(productId))) {
+                    throw new ResourceNotFoundException("Item en carrito", "productId", productId);
+                }
+                recalculateCartTotals(cart);
+                return mapToCartResponse(cart);
+            }).orElseThrow(() -> new ResourceNotFoundException("Carrito", "userId", userId));
+
+            reservationLedger.release(userId, productId);
+            log.info("✅ Item eliminado del carrito: {}", productId);
+            return response;
+        }
 
-            if (existingItem.isEmpty()) {
-                throw new BadRequestException(
-                        String.format("El carrito no puede tener más de %d productos diferentes", MAX_ITEMS_IN_CART)
-                );
+        // ✅ Una sola operación atómica: quita el item y recalcula totales en el servidor
+        Optional<Cart> updated = cartRepository.pullItem(userId, productId);
+        if (updated.isEmpty()) {
+            if (!cartRepository.existsByUserId(userId)) {
+                throw new ResourceNotFoundException("Carrito", "userId", userId);
             }
+            throw new ResourceNotFoundException("Item en carrito", "productId", productId);
         }
 
-        // Buscar si el item ya existe
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(item -> item.getProductId().equals(request.getProductId()))
-                .findFirst();
+        reservationLedger.release(userId, productId);
+        log.info("✅ Item eliminado del carrito: {}", productId);
+        return mapToCartResponse(updated.get());
+    }
 
-        if (existingItem.isPresent()) {
-            // Actualizar cantidad del item existente
-            CartItem item = existingItem.get();
-            int newQuantity = request.getQuantity();
-
-            // Validar stock nuevamente con la nueva cantidad
-            if (producto.getStock() < newQuantity) {
-                throw new InsufficientStockException(
-                        producto.getName(),
-                        newQuantity,
-                        producto.getStock()
-                );
+    @Override
+    @Transactional
+    public List<CartItemResponse> claimItems(String userId) {
+        log.info("Tomando los items del carrito del usuario para el checkout: {}", userId);
+
+        List<CartItem> claimed;
+        if (cartCache.isEnabled()) {
+            // El lock del carrito en memoria hace atómico leer y vaciar
+            claimed = cartCache.updateIfPresent(userId, cart -> {
+                List<CartItem> items = new ArrayList<>(cart.getItems());
+                cart.getItems().clear();
+                recalculateCartTotals(cart);
+                return items;
+            }).orElseGet(List::of);
+        } else {
+            // ✅ Un solo findAndModify: el carrito se vacía y se reciben los items que tenía
+            claimed = cartRepository.claimItems(userId)
+                    .map(Cart::getItems)
+                    .orElseGet(List::of);
+        }
+
+        List<CartItemResponse> items = new ArrayList<>(claimed.size());
+        for (CartItem item : claimed) {
+            items.add(mapToCartItemResponse(item));
+        }
+        return items;
+    }
+
+    @Override
+    public CartResponse restoreItems(String userId, List<CartItemResponse> items) {
+        log.info("Devolviendo {} items al carrito del usuario: {}", items.size(), userId);
+
+        List<CartItem> restored = new ArrayList<>(items.size());
+        for (CartItemResponse item : items) {
+            restored.add(new CartItem(item.getProductId(), item.getProductName(), item.getPrice(),
+                    item.getQuantity(), item.getSubtotal()));
+        }
+
+        if (cartCache.isEnabled()) {
+            return cartCache.update(userId, cart -> {
+                Set<String> present = new HashSet<>();
+                cart.getItems().forEach(item -> present.add(item.getProductId()));
+                restored.stream()
+                        .filter(item -> !present.contains(item.getProductId()))
+                        .forEach(cart.getItems()::add);
+                recalculateCartTotals(cart);
+                return mapToCartResponse(cart);
+            });
+        }
+        return mapToCartResponse(cartRepository.restoreItems(userId, restored));
+    }
+
+    @Override
+    public void releaseReservations(String userId, Collection<String> productIds) {
+        productIds.forEach(productId -> reservationLedger.release(userId, productId));
+    }
+
+    @Override
+    @Transactional
+    public CartResponse applyOperations(String userId, CartBatchRequest request) {
+        List<CartOperationRequest> operations = request.getOperations();
+        log.info("Aplicando {} operaciones al carrito del usuario: {}", operations != null ? operations.size() : 0, userId);
+
+        if (operations == null || operations.isEmpty()) {
+            throw new BadRequestException("Debe incluir al menos una operación");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new BadRequestException(
+                    String.format("El lote no puede tener más de %d operaciones", MAX_BATCH_OPERATIONS)
+            );
+        }
+
+        // ✅ Todos los productos del lote en una sola consulta
+        Set<String> productIds = new HashSet<>();
+        for (CartOperationRequest operation : operations) {
+            validateOperation(operation);
+            if (operation.getAction() != CartOperationType.REMOVE) {
+                productIds.add(operation.getProductId());
             }
+        }
+        Map<String, Producto> productos = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(producto -> productos.put(producto.getId(), producto));
+        for (String productId : productIds) {
+            if (!productos.containsKey(productId)) {
+                throw new ResourceNotFoundException("Producto", "id", productId);
+            }
+        }
 
-            item.setQuantity(newQuantity);
-            item.setPrice(producto.getPrice()); // ✅ Actualizar precio por si cambió
-            item.setSubtotal(producto.getPrice().multiply(BigDecimal.valueOf(newQuantity)));
+        // Reservas que tenía el usuario antes del lote, para deshacerlas si la escritura falla
+        Map<String, Integer> previous = new HashMap<>();
+        try {
+            CartResponse response = writeOperations(userId, operations, productos, previous);
+            for (CartOperationRequest operation : operations) {
+                if (operation.getAction() == CartOperationType.REMOVE && !productIds.contains(operation.getProductId())) {
+                    reservationLedger.release(userId, operation.getProductId());
+                }
+            }
+            reservationLedger.touch(userId);
+            log.info("✅ Lote aplicado al carrito de {}: {} operaciones", userId, operations.size());
+            return response;
+        } catch (RuntimeException e) {
+            reservationLedger.restore(userId, previous);
+            throw e;
+        }
+    }
 
-            log.info("✅ Item actualizado: {} (cantidad: {})", producto.getName(), newQuantity);
-        } else {
-            // Agregar nuevo item
-            CartItem newItem = new CartItem();
-            newItem.setProductId(producto.getId());
-            newItem.setProductName(producto.getName());
-            newItem.setPrice(producto.getPrice());
-            newItem.setQuantity(request.getQuantity());
-            newItem.setSubtotal(producto.getPrice().multiply(BigDecimal.valueOf(request.getQuantity())));
+    private CartResponse writeOperations(String userId, List<CartOperationRequest> operations,
+                                         Map<String, Producto> productos, Map<String, Integer> previous) {
+        if (cartCache.isEnabled()) {
+            return cartCache.update(userId, cart -> {
+                List<CartItem> items = applyOperations(cart.getItems(), operations, productos);
+                reserveItems(userId, items, productos, previous);
+                cart.setItems(items);
+                recalculateCartTotals(cart);
+                return mapToCartResponse(cart);
+            });
+        }
+
+        // ✅ Una sola escritura atómica: reemplaza los items solo si el carrito no cambió desde la lectura
+        for (int attempt = 0; attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+            Cart current = cartRepository.findByUserId(userId).orElseGet(() -> emptyCart(userId));
+            List<CartItem> items = applyOperations(current.getItems(), operations, productos);
+            reserveItems(userId, items, productos, previous);
 
-            cart.getItems().add(newItem);
-            log.info("✅ Nuevo item agregado: {} (cantidad: {})", producto.getName(), request.getQuantity());
+            Optional<Cart> updated = cartRepository.replaceItems(userId, current.getRevision(), items);
+            if (updated.isPresent()) {
+                return mapToCartResponse(updated.get());
+            }
+            log.debug("Carrito de {} modificado en paralelo, reintentando lote", userId);
         }
 
-        // Recalcular totales
-        recalculateCartTotals(cart);
+        throw new BadRequestException("El carrito cambió mientras se aplicaban los cambios, intente de nuevo");
+    }
 
-        Cart savedCart = cartRepository.save(cart);
-        return mapToCartResponse(savedCart);
+    /**
+     * Reserva las cantidades finales de los productos agregados/actualizados por el lote (o por la unión).
+     * Guarda en previous lo que había antes de la primera reserva (un reintento no lo pisa).
+     */
+    private void reserveItems(String userId, List<CartItem> items, Map<String, Producto> productos,
+                              Map<String, Integer> previous) {
+        // Un producto agregado y luego quitado en el mismo lote queda en 0 (se libera)
+        Map<String, Integer> quantities = new HashMap<>();
+        productos.keySet().forEach(productId -> quantities.put(productId, 0));
+        for (CartItem item : items) {
+            if (productos.containsKey(item.getProductId())) {
+                quantities.put(item.getProductId(), item.getQuantity());
+            }
+        }
+        reservationLedger.reserve(userId, quantities, productos).forEach(previous::putIfAbsent);
+    }
+
+    @Override
+    public CartResponse createGuestCart() {
+        String guestUserId = GUEST_PREFIX + UUID.randomUUID();
+        log.info("Carrito de invitado creado: {}", guestUserId);
+
+        // Virtual como cualquier carrito vacío: se guarda con el primer item
+        return mapToCartResponse(emptyCart(guestUserId));
     }
 
     @Override
     @Transactional
-    public CartResponse removeItem(String userId, String productId) {
-        log.info("Eliminando item del carrito del usuario: {}", userId);
+    public CartResponse mergeGuestCart(String userId, String guestToken) {
+        if (guestToken == null || guestToken.isBlank()) {
+            throw new BadRequestException("El token del carrito de invitado es requerido");
+        }
+        if (userId.startsWith(GUEST_PREFIX)) {
+            throw new BadRequestException("Solo se puede unir un carrito de invitado al carrito de un usuario");
+        }
+        String guestUserId = guestToken.startsWith(GUEST_PREFIX) ? guestToken : GUEST_PREFIX + guestToken;
+        log.info("Uniendo carrito de invitado {} al carrito del usuario: {}", guestUserId, userId);
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Carrito", "userId", userId));
+        // Con write-behind el carrito de invitado puede tener cambios solo en memoria: escribirlos y sacarlo
+        if (cartCache.isEnabled()) {
+            cartCache.evict(guestUserId);
+        }
+        Cart guest = cartRepository.findByUserId(guestUserId).orElse(null);
+        if (guest == null || guest.getItems().isEmpty()) {
+            if (guest != null) {
+                cartRepository.deleteByUserId(guestUserId);
+            }
+            return getCartByUserId(userId);
+        }
 
-        boolean removed = cart.getItems().removeIf(item -> item.getProductId().equals(productId));
+        // Las unidades del invitado pasan al usuario: liberarlas para que cuenten como disponibles
+        // (se guardan sus cantidades para devolvérselas si la unión falla: el carrito de invitado sigue)
+        Map<String, Integer> guestHeld = new HashMap<>();
+        for (CartItem item : guest.getItems()) {
+            guestHeld.put(item.getProductId(), reservationLedger.heldBy(guestUserId, item.getProductId()));
+        }
+        reservationLedger.releaseAll(guestUserId);
+
+        Map<String, Integer> previous = new HashMap<>();
+        try {
+            CartResponse response;
+            if (cartCache.isEnabled()) {
+                // ✅ El carrito unido se escribe antes de borrar el de invitado: si falla, el invitado conserva sus items
+                response = cartCache.updateAndWrite(userId, cart -> {
+                    cart.setItems(mergeItems(userId, cart.getItems(), guest.getItems(), previous));
+                    recalculateCartTotals(cart);
+                    return mapToCartResponse(cart);
+                });
+                deleteMergedGuestCart(guestUserId);
+            } else {
+                response = writeMerge(userId, guest, guestUserId, previous);
+            }
 
-        if (!removed) {
-            throw new ResourceNotFoundException("Item en carrito", "productId", productId);
+            reservationLedger.touch(userId);
+            log.info("✅ Carrito de invitado unido: {} items en el carrito de {}", response.getItems().size(), userId);
+            return response;
+        } catch (RuntimeException e) {
+            // Primero se devuelven las unidades que tomó el usuario, luego las del invitado
+            reservationLedger.restore(userId, previous);
+            reservationLedger.restore(guestUserId, guestHeld);
+            throw e;
         }
+    }
 
-        // Recalcular totales
-        recalculateCartTotals(cart);
+    /**
+     * Borra el carrito de invitado ya unido. La unión ya es durable: si el borrado falla no se deshace,
+     * el carrito de invitado queda sin reservas y lo elimina la expiración de carritos inactivos
+     */
+    private void deleteMergedGuestCart(String guestUserId) {
+        try {
+            cartRepository.deleteByUserId(guestUserId);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo borrar el carrito de invitado {} ya unido: {}", guestUserId, e.getMessage());
+        }
+    }
 
-        Cart savedCart = cartRepository.save(cart);
-        log.info("✅ Item eliminado del carrito: {}", productId);
+    private CartResponse writeMerge(String userId, Cart guest, String guestUserId, Map<String, Integer> previous) {
+        // ✅ Carrito unido y borrado del de invitado en un solo bulkWrite, compare-and-set sobre la revisión
+        for (int attempt = 0; attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+            Cart current = cartRepository.findByUserId(userId).orElseGet(() -> emptyCart(userId));
+            List<CartItem> items = mergeItems(userId, current.getItems(), guest.getItems(), previous);
+
+            if (cartRepository.mergeGuestCart(userId, current.getRevision(), items, guestUserId)) {
+                current.setItems(items);
+                recalculateCartTotals(current);
+                return mapToCartResponse(current);
+            }
+            log.debug("Carrito de {} modificado en paralelo, reintentando unión", userId);
+        }
 
-        return mapToCartResponse(savedCart);
+        throw new BadRequestException("El carrito cambió mientras se unía el carrito de invitado, intente de nuevo");
+    }
+
+    /**
+     * Une los items del usuario y del invitado en una sola pasada con un mapa por productId
+     * (si ambos tienen el producto se suman las cantidades) y revalida contra los productos actuales,
+     * traídos en una sola consulta: precio y nombre vigentes, cantidad recortada al máximo por item
+     * y al stock disponible, y se descartan los productos eliminados o agotados.
+     * No lanza error por stock: al iniciar sesión se conserva todo lo que se pueda.
+     */
+    private List<CartItem> mergeItems(String userId, List<CartItem> userItems, List<CartItem> guestItems,
+                                      Map<String, Integer> previous) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem item : userItems) {
+            quantities.put(item.getProductId(), item.getQuantity());
+        }
+        for (CartItem item : guestItems) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Map<String, Producto> productos = new HashMap<>();
+        productRepository.findAllById(quantities.keySet()).forEach(producto -> productos.put(producto.getId(), producto));
+
+        List<CartItem> items = new ArrayList<>(Math.min(quantities.size(), MAX_ITEMS_IN_CART));
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            Producto producto = productos.get(entry.getKey());
+            if (producto == null || items.size() >= MAX_ITEMS_IN_CART) {
+                continue;
+            }
+            int available = reservationLedger.isEnabled()
+                    ? reservationLedger.available(producto) + reservationLedger.heldBy(userId, producto.getId())
+                    : producto.getStock();
+            int quantity = Math.min(entry.getValue(), Math.min(MAX_QUANTITY_PER_ITEM, available));
+            if (quantity > 0) {
+                items.add(toCartItem(producto, quantity));
+            }
+        }
+
+        reserveItems(userId, items, productos, previous);
+        return items;
     }
 
     @Override
@@ -170,59 +464,166 @@ public class CartServiceImpl implements ICartService {
     public void clearCart(String userId) {
         log.info("Vaciando carrito del usuario: {}", userId);
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Carrito", "userId", userId));
+        if (cartCache.isEnabled()) {
+            cartCache.updateIfPresent(userId, cart -> {
+                cart.getItems().clear();
+                cart.setTotalItems(0);
+                cart.setTotalPrice(BigDecimal.ZERO);
+                return cart.getId();
+            }).orElseThrow(() -> new ResourceNotFoundException("Carrito", "userId", userId));
+
+            reservationLedger.releaseAll(userId);
+            log.info("✅ Carrito vaciado exitosamente: {}", userId);
+            return;
+        }
 
-        cart.getItems().clear();
-        cart.setTotalItems(0);
-        cart.setTotalPrice(BigDecimal.ZERO);
+        // ✅ $set directo, sin leer el carrito
+        if (!cartRepository.clearItems(userId)) {
+            throw new ResourceNotFoundException("Carrito", "userId", userId);
+        }
 
-        cartRepository.save(cart);
+        reservationLedger.releaseAll(userId);
         log.info("✅ Carrito vaciado exitosamente: {}", userId);
     }
 
     // ========== MÉTODOS HELPER ==========
 
     /**
-     * Crea un carrito vacío para un usuario
+     * Carrito vacío en memoria (no se guarda: el documento se crea con la primera modificación)
      */
-    private Cart createEmptyCart(String userId) {
+    private Cart emptyCart(String userId) {
         Cart cart = new Cart();
         cart.setUserId(userId);
         cart.setItems(new ArrayList<>());
         cart.setTotalItems(0);
         cart.setTotalPrice(BigDecimal.ZERO);
+        return cart;
+    }
 
-        Cart saved = cartRepository.save(cart);
-        log.info("✅ Carrito vacío creado para usuario: {}", userId);
-        return saved;
+    private void validateOperation(CartOperationRequest operation) {
+        if (operation == null || operation.getAction() == null) {
+            throw new BadRequestException("La acción es requerida");
+        }
+        if (operation.getProductId() == null || operation.getProductId().isBlank()) {
+            throw new BadRequestException("El ID del producto es requerido");
+        }
+        if (operation.getAction() != CartOperationType.REMOVE &&
+                (operation.getQuantity() == null || operation.getQuantity() < 1)) {
+            throw new BadRequestException("La cantidad debe ser al menos 1");
+        }
     }
 
     /**
-     * Recalcula los totales del carrito
+     * Aplica las operaciones en orden sobre una copia de los items y valida el resultado
+     * (cantidades y límite de productos; el stock lo valida la reserva) antes de devolverlo;
+     * no modifica la lista original
      */
-    private void recalculateCartTotals(Cart cart) {
-        int totalItems = cart.getItems().stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+    private List<CartItem> applyOperations(List<CartItem> currentItems, List<CartOperationRequest> operations,
+                                           Map<String, Producto> productos) {
+        Map<String, CartItem> items = new LinkedHashMap<>();
+        for (CartItem item : currentItems) {
+            items.put(item.getProductId(), new CartItem(item.getProductId(), item.getProductName(),
+                    item.getPrice(), item.getQuantity(), item.getSubtotal()));
+        }
 
-        BigDecimal totalPrice = cart.getItems().stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Set<String> touched = new HashSet<>();
+        for (CartOperationRequest operation : operations) {
+            String productId = operation.getProductId();
+            if (operation.getAction() == CartOperationType.REMOVE) {
+                if (items.remove(productId) == null) {
+                    throw new ResourceNotFoundException("Item en carrito", "productId", productId);
+                }
+                touched.remove(productId);
+                continue;
+            }
+
+            CartItem existing = items.get(productId);
+            int quantity = operation.getAction() == CartOperationType.ADD && existing != null
+                    ? existing.getQuantity() + operation.getQuantity()
+                    : operation.getQuantity();
+            items.put(productId, toCartItem(productos.get(productId), quantity));
+            touched.add(productId);
+        }
+
+        // Validar las cantidades finales de todos los productos tocados
+        for (String productId : touched) {
+            int quantity = items.get(productId).getQuantity();
+            if (quantity > MAX_QUANTITY_PER_ITEM) {
+                throw new BadRequestException(
+                        String.format("La cantidad máxima por producto es %d", MAX_QUANTITY_PER_ITEM)
+                );
+            }
+        }
+
+        if (items.size() > MAX_ITEMS_IN_CART) {
+            throw new BadRequestException(
+                    String.format("El carrito no puede tener más de %d productos diferentes", MAX_ITEMS_IN_CART)
+            );
+        }
+
+        return new ArrayList<>(items.values());
+    }
+
+    private CartItem toCartItem(Producto producto, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(producto.getId());
+        item.setProductName(producto.getName());
+        item.setPrice(producto.getPrice());
+        item.setQuantity(quantity);
+        item.setSubtotal(Money.toBigDecimal(Money.subtotal(Money.toMinor(producto.getPrice()), quantity)));
+        return item;
+    }
+
+    /**
+     * Agrega o reemplaza un item en el carrito en memoria (valida antes de modificar)
+     */
+    private void upsertItemInMemory(Cart cart, CartItem item) {
+        Optional<CartItem> existingItem = cart.getItems().stream()
+                .filter(i -> i.getProductId().equals(item.getProductId()))
+                .findFirst();
+
+        if (existingItem.isPresent()) {
+            CartItem existing = existingItem.get();
+            existing.setQuantity(item.getQuantity());
+            existing.setPrice(item.getPrice());
+            existing.setSubtotal(item.getSubtotal());
+        } else {
+            if (cart.getItems().size() >= MAX_ITEMS_IN_CART) {
+                throw new BadRequestException(
+                        String.format("El carrito no puede tener más de %d productos diferentes", MAX_ITEMS_IN_CART)
+                );
+            }
+            cart.getItems().add(item);
+        }
+
+        recalculateCartTotals(cart);
+    }
+
+    /**
+     * Recalcula los totales del carrito en una sola pasada, sumando centavos en un long (ver Money)
+     */
+    private void recalculateCartTotals(Cart cart) {
+        int totalItems = 0;
+        long totalMinor = 0;
+        for (CartItem item : cart.getItems()) {
+            totalItems += item.getQuantity();
+            totalMinor = Math.addExact(totalMinor, Money.toMinor(item.getSubtotal()));
+        }
 
         cart.setTotalItems(totalItems);
-        cart.setTotalPrice(totalPrice);
+        cart.setTotalPrice(Money.toBigDecimal(totalMinor));
 
-        log.debug("Totales recalculados - Items: {}, Precio: ${}", totalItems, totalPrice);
+        log.debug("Totales recalculados - Items: {}, Precio: ${}", totalItems, cart.getTotalPrice());
     }
 
     /**
      * Mapea Cart a CartResponse
      */
     private CartResponse mapToCartResponse(Cart cart) {
-        List<CartItemResponse> items = cart.getItems().stream()
-                .map(this::mapToCartItemResponse)
-                .collect(Collectors.toList());
+        List<CartItemResponse> items = new ArrayList<>(cart.getItems().size());
+        for (CartItem item : cart.getItems()) {
+            items.add(mapToCartItemResponse(item));
+        }
 
         return CartResponse.builder()
                 .id(cart.getId())
@@ -237,12 +638,7 @@ public class CartServiceImpl implements ICartService {
      * Mapea CartItem a CartItemResponse
      */
     private CartItemResponse mapToCartItemResponse(CartItem item) {
-        return CartItemResponse.builder()
-                .productId(item.getProductId())
-                .productName(item.getProductName())
-                .price(item.getPrice())
-                .quantity(item.getQuantity())
-                .subtotal(item.getSubtotal())
-                .build();
+        return new CartItemResponse(item.getProductId(), item.getProductName(), item.getPrice(),
+                item.getQuantity(), item.getSubtotal());
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.diedev.firex.service.impl;
 
+import com.diedev.firex.catalog.CategoryCache;
+import com.diedev.firex.catalog.ProductCatalogCache;
 import com.diedev.firex.dto.request.CategoryRequest;
 import com.diedev.firex.dto.response.CategoryResponse;
 import com.diedev.firex.exception.BadRequestException;
@@ -23,12 +25,15 @@ public class CategoryServiceImpl implements ICategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final CategoryCache categoryCache;
+    private final ProductCatalogCache catalogCache;
 
     @Override
     public List<CategoryResponse> getAllCategories() {
         log.debug("Obteniendo todas las categorías");
 
-        return categoryRepository.findAllByOrderByNameAsc().stream()
+        // ✅ Desde el CategoryCache (ya ordenadas por nombre)
+        return categoryCache.getAll().stream()
                 .map(this::mapToCategoryResponse)
                 .collect(Collectors.toList());
     }
@@ -37,7 +42,7 @@ public class CategoryServiceImpl implements ICategoryService {
     public CategoryResponse getCategoryById(String id) {
         log.debug("Buscando categoría por ID: {}", id);
 
-        Categoria categoria = categoryRepository.findById(id)
+        Categoria categoria = categoryCache.find(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", id));
 
         return mapToCategoryResponse(categoria);
@@ -58,6 +63,8 @@ public class CategoryServiceImpl implements ICategoryService {
         categoria.setDescription(request.getDescription());
 
         Categoria savedCategory = categoryRepository.save(categoria);
+        categoryCache.put(savedCategory);
+        catalogCache.upsertCategory(savedCategory);
         log.info("Categoría creada exitosamente: {}", savedCategory.getName());
 
         return mapToCategoryResponse(savedCategory);
@@ -81,6 +88,8 @@ public class CategoryServiceImpl implements ICategoryService {
         categoria.setDescription(request.getDescription());
 
         Categoria updatedCategory = categoryRepository.save(categoria);
+        categoryCache.put(updatedCategory);
+        catalogCache.upsertCategory(updatedCategory);
         log.info("Categoría actualizada exitosamente: {}", updatedCategory.getName());
 
         return mapToCategoryResponse(updatedCategory);
@@ -104,6 +113,8 @@ public class CategoryServiceImpl implements ICategoryService {
         }
 
         categoryRepository.deleteById(id);
+        categoryCache.remove(id);
+        catalogCache.removeCategory(id);
         log.info("Categoría eliminada exitosamente: {}", id);
     }
 
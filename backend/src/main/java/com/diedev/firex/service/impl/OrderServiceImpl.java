@@ -0,0 +1,403 @@
+package com.diedev.firex.service.impl;
+
+import com.diedev.firex.catalog.ProductCatalogCache;
+import com.diedev.firex.dto.request.CheckoutRequest;
+import com.diedev.firex.dto.request.UpdateStatusRequest;
+import com.diedev.firex.dto.response.CartItemResponse;
+import com.diedev.firex.dto.response.CursorPage;
+import com.diedev.firex.dto.response.OrderItemResponse;
+import com.diedev.firex.dto.response.OrderResponse;
+import com.diedev.firex.dto.response.OrderSummaryResponse;
+import com.diedev.firex.enums.DomainEventType;
+import com.diedev.firex.enums.OrderStatus;
+import com.diedev.firex.events.OrderCreatedEvent;
+import com.diedev.firex.events.OrderStatusChangedEvent;
+import com.diedev.firex.exception.BadRequestException;
+import com.diedev.firex.exception.InsufficientStockException;
+import com.diedev.firex.exception.ResourceNotFoundException;
+import com.diedev.firex.models.Order;
+import com.diedev.firex.models.OrderItem;
+import com.diedev.firex.models.OutboxEvent;
+import com.diedev.firex.models.Producto;
+import com.diedev.firex.outbox.OutboxWriter;
+import com.diedev.firex.repositories.OrderRepository;
+import com.diedev.firex.repositories.ProductRepository;
+import com.diedev.firex.service.interfaces.ICartService;
+import com.diedev.firex.service.interfaces.IOrderService;
+import com.diedev.firex.util.CursorUtils;
+import com.diedev.firex.util.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del servicio de pedidos
+ * ✅ Checkout: el carrito se convierte en un pedido con precios vigentes y el stock se descuenta
+ *    con un solo bulkWrite de $inc condicionados (stock >= cantidad), así nunca queda negativo
+ *    aunque haya muchos checkouts a la vez sobre el mismo producto
+ * ✅ Historial por usuario con paginación keyset sobre (createdAt, _id) y resumen sin items
+ * ✅ Sin transacciones multi-documento (no hay MongoTransactionManager): si un producto no alcanza
+ *    o el pedido no se guarda, se devuelven solo los descuentos marcados con el pedido (compensación)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderServiceImpl implements IOrderService {
+
+    // ✅ Cursor inicial del historial: antes de cualquier fecha y _id reales
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final ObjectId MAX_OBJECT_ID = new ObjectId("ffffffffffffffffffffffff");
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final ICartService cartService;
+    private final ProductCatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxWriter outboxWriter;
+
+    // ✅ Transiciones permitidas: COMPLETED y CANCELLED son finales
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = Map.of(
+            OrderStatus.PENDING, EnumSet.of(OrderStatus.PROCESSING, OrderStatus.CANCELLED),
+            OrderStatus.PROCESSING, EnumSet.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED),
+            OrderStatus.COMPLETED, EnumSet.noneOf(OrderStatus.class),
+            OrderStatus.CANCELLED, EnumSet.noneOf(OrderStatus.class)
+    );
+
+    @Override
+    public OrderResponse checkout(String userId, CheckoutRequest request) {
+        log.info("Checkout del carrito del usuario: {}", userId);
+        long start = System.currentTimeMillis();
+
+        if (request.getShippingAddress() == null || request.getShippingAddress().isBlank()) {
+            throw new BadRequestException("La dirección de envío es requerida");
+        }
+
+        // ✅ Se toman los items vaciando el carrito en una sola operación: un doble envío del mismo
+        // carrito encuentra el segundo checkout sin items y no descuenta el stock dos veces
+        List<CartItemResponse> claimed = cartService.claimItems(userId);
+        if (claimed.isEmpty()) {
+            throw new BadRequestException("El carrito está vacío");
+        }
+
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemResponse item : claimed) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        Order saved;
+        try {
+            saved = placeOrder(userId, request.getShippingAddress().trim(), quantities);
+        } catch (RuntimeException e) {
+            returnClaimedItems(userId, claimed);
+            throw e;
+        }
+
+        eventPublisher.publishEvent(new OrderCreatedEvent(saved));
+
+        Map<String, Integer> deltas = new HashMap<>(quantities.size() * 2);
+        quantities.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+        catalogCache.adjustStock(deltas);
+        appendCheckoutEvents(saved, quantities);
+
+        cartService.releaseReservations(userId, quantities.keySet());
+
+        log.info("✅ Pedido creado: {} ({} productos, total ${}, {} ms)",
+                saved.getId(), quantities.size(), saved.getTotalAmount(), System.currentTimeMillis() - start);
+        return mapToOrderResponse(saved);
+    }
+
+    @Override
+    public CursorPage<OrderSummaryResponse> getOrderHistory(String userId, String status, String cursor, int size) {
+        log.debug("Historial de pedidos del usuario: {} (estado: {}, cursor: {}, size: {})", userId, status, cursor, size);
+
+        int pageSize = CursorUtils.validatePageSize(size);
+
+        // Sin cursor se empieza después de la orden más nueva posible
+        LocalDateTime beforeCreatedAt = HISTORY_START;
+        ObjectId beforeId = MAX_OBJECT_ID;
+        String[] keyed = CursorUtils.decodeKeyed(cursor);
+        if (keyed != null) {
+            beforeCreatedAt = parseCreatedAt(keyed[0]);
+            beforeId = new ObjectId(keyed[1]);
+        }
+
+        Pageable pageable = PageRequest.of(0, pageSize + 1, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        List<Order> orders = status == null || status.isBlank()
+                ? orderRepository.findHistoryPageBefore(userId, beforeCreatedAt, beforeId, pageable)
+                : orderRepository.findHistoryPageBeforeByStatus(userId, parseStatus(status), beforeCreatedAt, beforeId, pageable);
+
+        boolean hasMore = orders.size() > pageSize;
+        List<Order> page = hasMore ? orders.subList(0, pageSize) : orders;
+
+        List<OrderSummaryResponse> items = new ArrayList<>(page.size());
+        for (Order order : page) {
+            items.add(mapToOrderSummaryResponse(order));
+        }
+
+        Order last = hasMore ? page.get(page.size() - 1) : null;
+        return CursorPage.<OrderSummaryResponse>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(last != null ? CursorUtils.encode(last.getCreatedAt().toString(), last.getId()) : null)
+                .build();
+    }
+
+    @Override
+    public OrderResponse updateOrderStatus(String id, UpdateStatusRequest request) {
+        log.info("Actualizando estado del pedido {} a {}", id, request.getStatus());
+
+        OrderStatus next = parseStatus(request.getStatus());
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Pedido", "id", id));
+
+        OrderStatus previous = order.getStatus();
+        if (previous == next) {
+            return mapToOrderResponse(order);
+        }
+        if (previous == null || !TRANSITIONS.get(previous).contains(next)) {
+            throw new BadRequestException(
+                    String.format("No se puede cambiar un pedido de %s a %s", previous, next)
+            );
+        }
+
+        // ✅ Compare-and-set: dos cambios simultáneos no pueden partir del mismo estado
+        Order updated = orderRepository.updateStatus(id, previous, next)
+                .orElseThrow(() -> new BadRequestException("El pedido cambió de estado mientras se actualizaba, intenta de nuevo"));
+
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(updated, previous, next));
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", updated.getUserId());
+        payload.put("previousStatus", previous.name());
+        payload.put("newStatus", next.name());
+        outboxWriter.append(DomainEventType.ORDER_STATUS_CHANGED, updated.getId(), payload);
+        log.info("✅ Pedido {}: {} -> {}", id, previous, next);
+        return mapToOrderResponse(updated);
+    }
+
+    @Override
+    public OrderResponse getOrderById(String id) {
+        log.debug("Buscando pedido: {}", id);
+
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Pedido", "id", id));
+
+        return mapToOrderResponse(order);
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    /**
+     * Registra el pedido creado y el descuento de stock de cada producto en el outbox (un solo insert)
+     */
+    private void appendCheckoutEvents(Order order, Map<String, Integer> quantities) {
+        List<OutboxEvent> events = new ArrayList<>(quantities.size() + 1);
+
+        Map<String, Object> created = new LinkedHashMap<>();
+        created.put("userId", order.getUserId());
+        created.put("status", order.getStatus().name());
+        created.put("totalAmount", order.getTotalAmount().toPlainString());
+        created.put("totalItems", order.getTotalItems());
+        events.add(OutboxWriter.event(DomainEventType.ORDER_CREATED, order.getId(), created));
+
+        quantities.forEach((productId, quantity) -> {
+            Map<String, Object> stock = new LinkedHashMap<>();
+            stock.put("delta", -quantity);
+            stock.put("reason", "CHECKOUT");
+            stock.put("orderId", order.getId());
+            events.add(OutboxWriter.event(DomainEventType.PRODUCT_STOCK_CHANGED, productId, stock));
+        });
+
+        outboxWriter.appendAll(events);
+    }
+
+    /**
+     * Arma el pedido con el precio vigente de cada producto (totales en centavos, ver Money).
+     * El ID se genera aquí porque marca los descuentos de stock antes de guardar el pedido
+     */
+    private Order buildOrder(String userId, String shippingAddress, Map<String, Integer> quantities,
+                             Map<String, Producto> productos) {
+        List<OrderItem> items = new ArrayList<>(quantities.size());
+        long totalMinor = 0;
+        int totalItems = 0;
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            Producto producto = productos.get(entry.getKey());
+            if (producto == null) {
+                throw new BadRequestException("Un producto del carrito ya no está disponible: " + entry.getKey());
+            }
+
+            long priceMinor = Money.toMinor(producto.getPrice());
+            long subtotalMinor = Money.subtotal(priceMinor, entry.getValue());
+            totalMinor = Math.addExact(totalMinor, subtotalMinor);
+            totalItems += entry.getValue();
+            items.add(new OrderItem(producto.getId(), producto.getName(), producto.getCategoryId(), Money.toBigDecimal(priceMinor),
+                    entry.getValue(), Money.toBigDecimal(subtotalMinor)));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Order order = new Order();
+        order.setId(new ObjectId().toHexString());
+        order.setUserId(userId);
+        order.setItems(items);
+        order.setTotalItems(totalItems);
+        order.setTotalAmount(Money.toBigDecimal(totalMinor));
+        order.setStatus(OrderStatus.PENDING);
+        order.setShippingAddress(shippingAddress);
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+        return order;
+    }
+
+    /**
+     * Descuenta el stock y guarda el pedido a partir de los items ya tomados del carrito
+     */
+    private Order placeOrder(String userId, String shippingAddress, Map<String, Integer> quantities) {
+        // ✅ Una sola consulta: precios y nombres vigentes de todos los productos del carrito
+        Map<String, Producto> productos = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getId, producto -> producto));
+
+        Order order = buildOrder(userId, shippingAddress, quantities, productos);
+
+        // ✅ Descuento atómico en lote: a cada producto solo se le descuenta si le alcanza el stock
+        int decremented = productRepository.decrementStock(order.getId(), quantities);
+        if (decremented < quantities.size()) {
+            compensate(order.getId(), quantities);
+            throw insufficientStock(quantities, productos);
+        }
+
+        Order saved;
+        try {
+            saved = orderRepository.insert(order);
+        } catch (RuntimeException e) {
+            log.error("No se pudo guardar el pedido {}, devolviendo el stock: {}", order.getId(), e.getMessage());
+            compensate(order.getId(), quantities);
+            throw e;
+        }
+
+        releaseStockHolds(saved.getId(), quantities.keySet());
+        return saved;
+    }
+
+    /**
+     * El pedido ya está guardado: las marcas del descuento ya no se necesitan.
+     * Si falla solo queda una marca de más en el producto, el pedido sigue siendo válido
+     */
+    private void releaseStockHolds(String orderId, Collection<String> productIds) {
+        try {
+            productRepository.releaseStockHolds(orderId, productIds);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron quitar las marcas de stock del pedido {}: {}", orderId, e.getMessage());
+        }
+    }
+
+    /**
+     * El checkout falló: los items vuelven al carrito para que el usuario pueda corregir y reintentar
+     */
+    private void returnClaimedItems(String userId, List<CartItemResponse> claimed) {
+        try {
+            cartService.restoreItems(userId, claimed);
+        } catch (RuntimeException e) {
+            log.error("No se pudieron devolver {} items al carrito de {}: {}", claimed.size(), userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve el stock descontado por el pedido. Si falla queda registrado en el log para corregirlo
+     * a mano: el error de la compra es el que se informa al cliente
+     */
+    private void compensate(String orderId, Map<String, Integer> quantities) {
+        try {
+            int restored = productRepository.restoreStock(orderId, quantities);
+            log.info("Stock devuelto del pedido {}: {} productos", orderId, restored);
+        } catch (RuntimeException e) {
+            log.error("No se pudo devolver el stock del pedido {} ({}): {}", orderId, quantities, e.getMessage());
+        }
+    }
+
+    /**
+     * Error con los productos que no alcanzaron según la lectura previa; si entre medio otro
+     * checkout se llevó las unidades, el mensaje es genérico
+     */
+    private InsufficientStockException insufficientStock(Map<String, Integer> quantities, Map<String, Producto> productos) {
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            Producto producto = productos.get(entry.getKey());
+            int stock = producto.getStock() != null ? producto.getStock() : 0;
+            if (stock < entry.getValue()) {
+                return new InsufficientStockException(producto.getName(), entry.getValue(), stock);
+            }
+        }
+        return new InsufficientStockException("Stock insuficiente para uno o más productos del carrito, intenta de nuevo");
+    }
+
+    private OrderStatus parseStatus(String status) {
+        try {
+            return OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(
+                    "Estado inválido: " + status + ". Valores válidos: " +
+                            Arrays.stream(OrderStatus.values()).map(Enum::name).collect(Collectors.joining(", "))
+            );
+        }
+    }
+
+    private static LocalDateTime parseCreatedAt(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+
+    private OrderSummaryResponse mapToOrderSummaryResponse(Order order) {
+        return OrderSummaryResponse.builder()
+                .id(order.getId())
+                .totalItems(order.getTotalItems())
+                .totalAmount(order.getTotalAmount())
+                .status(order.getStatus() != null ? order.getStatus().name() : null)
+                .shippingAddress(order.getShippingAddress())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+
+    private OrderResponse mapToOrderResponse(Order order) {
+        List<OrderItemResponse> items = new ArrayList<>(order.getItems().size());
+        int totalItems = 0;
+        for (OrderItem item : order.getItems()) {
+            totalItems += item.getQuantity();
+            items.add(new OrderItemResponse(item.getProductId(), item.getProductName(), item.getPrice(),
+                    item.getQuantity(), item.getSubtotal()));
+        }
+
+        return OrderResponse.builder()
+                .id(order.getId())
+                .userId(order.getUserId())
+                .items(items)
+                .totalItems(totalItems)
+                .totalAmount(order.getTotalAmount())
+                .status(order.getStatus() != null ? order.getStatus().name() : null)
+                .shippingAddress(order.getShippingAddress())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
+}
@@ -1,28 +1,53 @@
 package com.diedev.firex.service.impl;
 
+import com.diedev.firex.catalog.CatalogSnapshot;
+import com.diedev.firex.catalog.CategoryCache;
+import com.diedev.firex.catalog.ProductCatalogCache;
+import com.diedev.firex.catalog.ProductFacetIndex;
+import com.diedev.firex.catalog.ProductSearchIndex;
+import com.diedev.firex.catalog.ProductSuggestionIndex;
+import com.diedev.firex.catalog.StockLevelIndex;
+import com.diedev.firex.dto.request.ProductQueryRequest;
 import com.diedev.firex.dto.request.ProductRequest;
 import com.diedev.firex.dto.response.CategoryResponse;
+import com.diedev.firex.dto.response.CursorPage;
+import com.diedev.firex.dto.response.ProductQueryResponse;
 import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.dto.response.SuggestionResponse;
+import com.diedev.firex.enums.DomainEventType;
+import com.diedev.firex.events.ProductPriceChangedEvent;
 import com.diedev.firex.exception.BadRequestException;
 import com.diedev.firex.exception.ResourceNotFoundException;
 import com.diedev.firex.models.Categoria;
 import com.diedev.firex.models.Producto;
-import com.diedev.firex.repositories.CategoryRepository;
+import com.diedev.firex.outbox.OutboxWriter;
 import com.diedev.firex.repositories.ProductRepository;
 import com.diedev.firex.service.interfaces.IProductService;
+import com.diedev.firex.util.CursorUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementación del servicio de productos
- * ✅ ARREGLADO: Eliminadas las consultas N+1 usando cache de categorías
+ * ✅ ARREGLADO: Eliminadas las consultas N+1 usando cache de categorías (CategoryCache)
+ * ✅ Los listados se sirven desde la foto en memoria del catálogo (ProductCatalogCache)
  */
 @Slf4j
 @Service
@@ -30,21 +55,22 @@ import java.util.stream.Collectors;
 public class ProductServiceImpl implements IProductService {
 
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestionIndex suggestionIndex;
+    private final ProductFacetIndex facetIndex;
+    private final StockLevelIndex stockIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxWriter outboxWriter;
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductResponse> getAllProducts() {
         log.debug("Obteniendo todos los productos");
 
-        List<Producto> productos = productRepository.findAll();
-
-        // ✅ ARREGLO: Cargar todas las categorías UNA SOLA VEZ
-        Map<String, Categoria> categoriaCache = loadCategoryCache(productos);
-
-        return productos.stream()
-                .map(producto -> mapToProductResponse(producto, categoriaCache))
-                .collect(Collectors.toList());
+        // ✅ Servido desde la foto en memoria del catálogo (sin consultas a Mongo)
+        return catalogCache.snapshot().getProducts();
     }
 
     @Override
@@ -64,7 +90,7 @@ public class ProductServiceImpl implements IProductService {
         log.info("Creando nuevo producto: {}", request.getName());
 
         // Validar que la categoría existe
-        Categoria categoria = categoryRepository.findById(request.getCategoryId())
+        Categoria categoria = categoryCache.find(request.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", request.getCategoryId()));
 
         // Validar nombre duplicado
@@ -85,9 +111,9 @@ public class ProductServiceImpl implements IProductService {
         producto.setCategoryId(request.getCategoryId());
 
         Producto savedProduct = productRepository.save(producto);
-        log.info("✅ Producto creado con ID: {}", savedProduct.getId());
+        log.info("✅ Producto creado con ID: {} en categoría: {}", savedProduct.getId(), categoria.getName());
 
-        return mapToProductResponse(savedProduct, categoria);
+        return catalogCache.upsert(savedProduct);
     }
 
     @Override
@@ -99,12 +125,9 @@ public class ProductServiceImpl implements IProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
 
         // Validar categoría si cambió
-        Categoria categoria;
-        if (!producto.getCategoryId().equals(request.getCategoryId())) {
-            categoria = categoryRepository.findById(request.getCategoryId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", request.getCategoryId()));
-        } else {
-            categoria = categoryRepository.findById(request.getCategoryId()).orElse(null);
+        if (!producto.getCategoryId().equals(request.getCategoryId()) &&
+                categoryCache.find(request.getCategoryId()).isEmpty()) {
+            throw new ResourceNotFoundException("Categoría", "id", request.getCategoryId());
         }
 
         // Validar nombre duplicado si cambió
@@ -118,16 +141,37 @@ public class ProductServiceImpl implements IProductService {
             throw new BadRequestException("El precio debe ser mayor a 0");
         }
 
+        BigDecimal previousPrice = producto.getPrice();
+        Integer previousStock = producto.getStock();
+
         producto.setName(request.getName().trim());
         producto.setDescription(request.getDescription() != null ? request.getDescription().trim() : null);
         producto.setPrice(request.getPrice());
         producto.setStock(request.getStock());
         producto.setCategoryId(request.getCategoryId());
 
-        Producto updatedProduct = productRepository.save(producto);
+        // ✅ $set de los campos editados en vez de save(): no reemplaza el documento
+        Producto updatedProduct = productRepository.updateDetails(producto)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
         log.info("✅ Producto actualizado exitosamente: {}", updatedProduct.getName());
 
-        return mapToProductResponse(updatedProduct, categoria);
+        // ✅ Los carritos que tienen el producto se actualizan en segundo plano (ver CartRepricingJob)
+        if (previousPrice == null || previousPrice.compareTo(updatedProduct.getPrice()) != 0) {
+            eventPublisher.publishEvent(new ProductPriceChangedEvent(
+                    updatedProduct.getId(), updatedProduct.getName(), previousPrice, updatedProduct.getPrice()));
+        }
+
+        if (!Objects.equals(previousStock, updatedProduct.getStock())) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("previousStock", previousStock);
+            payload.put("stock", updatedProduct.getStock());
+            payload.put("delta", (updatedProduct.getStock() != null ? updatedProduct.getStock() : 0)
+                    - (previousStock != null ? previousStock : 0));
+            payload.put("reason", "UPDATE");
+            outboxWriter.append(DomainEventType.PRODUCT_STOCK_CHANGED, updatedProduct.getId(), payload);
+        }
+
+        return catalogCache.upsert(updatedProduct);
     }
 
     @Override
@@ -140,6 +184,7 @@ public class ProductServiceImpl implements IProductService {
         }
 
         productRepository.deleteById(id);
+        catalogCache.remove(id);
         log.info("✅ Producto eliminado exitosamente: {}", id);
     }
 
@@ -148,15 +193,14 @@ public class ProductServiceImpl implements IProductService {
     public List<ProductResponse> getProductsByCategory(String categoryId) {
         log.debug("Buscando productos por categoría: {}", categoryId);
 
-        // Validar que la categoría existe
-        Categoria categoria = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Categoría", "id", categoryId));
+        CatalogSnapshot snapshot = catalogCache.snapshot();
 
-        List<Producto> productos = productRepository.findByCategoryId(categoryId);
+        // Validar que la categoría existe
+        if (snapshot.getCategory(categoryId) == null) {
+            throw new ResourceNotFoundException("Categoría", "id", categoryId);
+        }
 
-        return productos.stream()
-                .map(producto -> mapToProductResponse(producto, categoria))
-                .collect(Collectors.toList());
+        return snapshot.getProductsByCategory(categoryId);
     }
 
     @Override
@@ -164,12 +208,8 @@ public class ProductServiceImpl implements IProductService {
     public List<ProductResponse> searchProducts(String keyword) {
         log.debug("Buscando productos con keyword: {}", keyword);
 
-        List<Producto> productos = productRepository.findByNameContaining(keyword);
-        Map<String, Categoria> categoriaCache = loadCategoryCache(productos);
-
-        return productos.stream()
-                .map(producto -> mapToProductResponse(producto, categoriaCache))
-                .collect(Collectors.toList());
+        // ✅ Índice invertido en memoria con ranking (sin $regex sobre la colección)
+        return searchIndex.search(keyword);
     }
 
     @Override
@@ -177,53 +217,279 @@ public class ProductServiceImpl implements IProductService {
     public List<ProductResponse> getAvailableProducts() {
         log.debug("Obteniendo productos disponibles (stock > 0)");
 
-        List<Producto> productos = productRepository.findAvailableProducts();
-        Map<String, Categoria> categoriaCache = loadCategoryCache(productos);
+        return catalogCache.snapshot().getAvailableProducts();
+    }
 
-        return productos.stream()
-                .map(producto -> mapToProductResponse(producto, categoriaCache))
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getLowStockProducts(Integer threshold) {
+        int limit = resolveLowStockThreshold(threshold);
+        log.debug("Obteniendo productos con stock bajo (threshold: {})", limit);
+
+        // ✅ Rango del índice de stock (sin recorrer el catálogo)
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        return toProducts(snapshot, stockIndex.lowStock(limit, null, Integer.MAX_VALUE)).toList();
+    }
+
+    @Override
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        log.debug("Sugerencias para prefijo: {}", prefix);
+
+        if (limit < 1 || limit > ProductSuggestionIndex.MAX_SUGGESTIONS) {
+            throw new BadRequestException(
+                    String.format("El límite de sugerencias debe estar entre 1 y %d", ProductSuggestionIndex.MAX_SUGGESTIONS)
+            );
+        }
+
+        // ✅ Trie en memoria: sin consultas a Mongo por cada tecla
+        return suggestionIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public ProductQueryResponse queryProducts(ProductQueryRequest query) {
+        log.debug("Consultando catálogo con filtros: {}", query);
+
+        if (query.getMinPrice() != null && query.getMaxPrice() != null &&
+                query.getMinPrice().compareTo(query.getMaxPrice()) > 0) {
+            throw new BadRequestException("El precio mínimo no puede ser mayor al precio máximo");
+        }
+
+        if (query.getCategoryId() != null && !query.getCategoryId().isBlank() &&
+                categoryCache.find(query.getCategoryId()).isEmpty()) {
+            throw new ResourceNotFoundException("Categoría", "id", query.getCategoryId());
+        }
+
+        // ✅ Filtros y facetas evaluados sobre índices de bits en memoria
+        return facetIndex.query(query);
+    }
+
+    // ========== PAGINACIÓN KEYSET ==========
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getProductsPage(String cursor, int size) {
+        log.debug("Obteniendo página de productos (cursor: {}, size: {})", cursor, size);
+
+        int pageSize = CursorUtils.validatePageSize(size);
+        List<Producto> productos = productRepository.findPageAfter(CursorUtils.decodeId(cursor), pageById(pageSize));
+
+        return toCursorPage(productos, pageSize, producto -> CursorUtils.encode(producto.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getAvailableProductsPage(String cursor, int size) {
+        log.debug("Obteniendo página de productos disponibles (cursor: {}, size: {})", cursor, size);
+
+        int pageSize = CursorUtils.validatePageSize(size);
+        List<Producto> productos = productRepository.findAvailablePageAfter(CursorUtils.decodeId(cursor), pageById(pageSize));
+
+        return toCursorPage(productos, pageSize, producto -> CursorUtils.encode(producto.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getProductsByCategoryPage(String categoryId, String cursor, int size) {
+        log.debug("Obteniendo página de productos por categoría: {} (cursor: {}, size: {})", categoryId, cursor, size);
+
+        int pageSize = CursorUtils.validatePageSize(size);
+
+        // Validar que la categoría existe
+        if (categoryCache.find(categoryId).isEmpty()) {
+            throw new ResourceNotFoundException("Categoría", "id", categoryId);
+        }
+
+        List<Producto> productos = productRepository.findByCategoryPageAfter(
+                categoryId, CursorUtils.decodeId(cursor), pageById(pageSize));
+
+        return toCursorPage(productos, pageSize, producto -> CursorUtils.encode(producto.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> searchProductsPage(String keyword, String cursor, int size) {
+        log.debug("Buscando página de productos con keyword: {} (cursor: {}, size: {})", keyword, cursor, size);
+
+        int pageSize = CursorUtils.validatePageSize(size);
+        int offset = CursorUtils.decodeOffset(cursor);
+
+        // Resultados rankeados: el cursor guarda la posición dentro del ranking
+        List<ProductResponse> ranked = searchIndex.search(keyword);
+        int from = Math.min(offset, ranked.size());
+        int to = Math.min(from + pageSize, ranked.size());
+        boolean hasMore = to < ranked.size();
+
+        return CursorPage.<ProductResponse>builder()
+                .items(ranked.subList(from, to))
+                .size(to - from)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorUtils.encodeOffset(to) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getLowStockProductsPage(Integer threshold, String cursor, int size) {
+        int limit = resolveLowStockThreshold(threshold);
+        log.debug("Obteniendo página de productos con stock bajo (threshold: {}, cursor: {}, size: {})",
+                limit, cursor, size);
+
+        int pageSize = CursorUtils.validatePageSize(size);
+
+        StockLevelIndex.Entry after = null;
+        String[] keyed = CursorUtils.decodeKeyed(cursor);
+        if (keyed != null) {
+            try {
+                after = new StockLevelIndex.Entry(Long.parseLong(keyed[0]), keyed[1]);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Cursor inválido");
+            }
+        }
+
+        // La foto se pide primero: garantiza que el índice de stock esté cargado
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        List<StockLevelIndex.Entry> entries = stockIndex.lowStock(limit, after, pageSize + 1);
+
+        boolean hasMore = entries.size() > pageSize;
+        List<StockLevelIndex.Entry> page = hasMore ? entries.subList(0, pageSize) : entries;
+        List<ProductResponse> items = toProducts(snapshot, page).collect(Collectors.toList());
+        StockLevelIndex.Entry last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return CursorPage.<ProductResponse>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorUtils.encode(Long.toString(last.getStock()), last.getId()) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getOutOfStockProductsPage(String cursor, int size) {
+        log.debug("Obteniendo página de productos agotados (cursor: {}, size: {})", cursor, size);
+
+        int pageSize = CursorUtils.validatePageSize(size);
+        String afterId = cursor != null && !cursor.isBlank() ? CursorUtils.decodeId(cursor).toHexString() : null;
+
+        CatalogSnapshot snapshot = catalogCache.snapshot();
+        List<String> ids = stockIndex.outOfStock(afterId, pageSize + 1);
+
+        boolean hasMore = ids.size() > pageSize;
+        List<String> page = hasMore ? ids.subList(0, pageSize) : ids;
+        List<ProductResponse> items = page.stream()
+                .map(snapshot::getProduct)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+
+        return CursorPage.<ProductResponse>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorUtils.encode(page.get(page.size() - 1)) : null)
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductResponse> getLowStockProducts(int threshold) {
-        log.debug("Obteniendo productos con stock bajo (threshold: {})", threshold);
+    public CursorPage<ProductResponse> getProductsByPricePage(BigDecimal minPrice, BigDecimal maxPrice,
+                                                             String cursor, int size) {
+        log.debug("Obteniendo página de productos por precio: {} - {} (cursor: {}, size: {})",
+                minPrice, maxPrice, cursor, size);
 
+        int pageSize = CursorUtils.validatePageSize(size);
+
+        if (minPrice != null && minPrice.compareTo(BigDecimal.ZERO) < 0) {
+            throw new BadRequestException("El precio mínimo no puede ser negativo");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new BadRequestException("El precio mínimo no puede ser mayor al precio máximo");
+        }
+
+        // Sin cursor se empieza antes del primer precio posible
+        Decimal128 afterPrice = Decimal128.NEGATIVE_INFINITY;
+        ObjectId afterId = CursorUtils.decodeId(null);
+        String[] keyed = CursorUtils.decodeKeyed(cursor);
+        if (keyed != null) {
+            afterPrice = toDecimal128(parsePrice(keyed[0]));
+            afterId = new ObjectId(keyed[1]);
+        }
+
+        List<Producto> productos = productRepository.findByPriceRangePageAfter(
+                minPrice != null ? toDecimal128(minPrice) : Decimal128.NEGATIVE_INFINITY,
+                maxPrice != null ? toDecimal128(maxPrice) : Decimal128.POSITIVE_INFINITY,
+                afterPrice,
+                afterId,
+                PageRequest.of(0, pageSize + 1, Sort.by("price", "id"))
+        );
+
+        return toCursorPage(productos, pageSize,
+                producto -> CursorUtils.encode(producto.getPrice().toPlainString(), producto.getId()));
+    }
+
+    // ========== MÉTODOS HELPER MEJORADOS ==========
+
+    private int resolveLowStockThreshold(Integer threshold) {
+        if (threshold == null) {
+            return stockIndex.getLowThreshold();
+        }
         if (threshold < 0) {
             throw new BadRequestException("El umbral debe ser mayor o igual a 0");
         }
+        return threshold;
+    }
 
-        List<Producto> productos = productRepository.findLowStockProducts(threshold);
-        Map<String, Categoria> categoriaCache = loadCategoryCache(productos);
+    /**
+     * Resuelve las entradas del índice de stock contra la foto del catálogo
+     */
+    private Stream<ProductResponse> toProducts(CatalogSnapshot snapshot, List<StockLevelIndex.Entry> entries) {
+        return entries.stream()
+                .map(entry -> snapshot.getProduct(entry.getId()))
+                .filter(Objects::nonNull);
+    }
 
-        return productos.stream()
-                .map(producto -> mapToProductResponse(producto, categoriaCache))
-                .collect(Collectors.toList());
+    private static Decimal128 toDecimal128(BigDecimal value) {
+        try {
+            return new Decimal128(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Precio fuera del rango soportado: " + value.toPlainString());
+        }
     }
 
-    // ========== MÉTODOS HELPER MEJORADOS ==========
+    private static BigDecimal parsePrice(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Pide una página ordenada por _id con un elemento extra para saber si hay más
+     */
+    private Pageable pageById(int pageSize) {
+        return PageRequest.of(0, pageSize + 1, Sort.by("id"));
+    }
 
     /**
-     * ✅ NUEVO: Carga todas las categorías necesarias en UNA consulta
-     * Evita el problema N+1 de consultas a la BD
+     * Recorta el elemento extra y arma el cursor de la siguiente página
      */
-    private Map<String, Categoria> loadCategoryCache(List<Producto> productos) {
-        // Extraer IDs únicos de categorías
-        List<String> categoryIds = productos.stream()
-                .map(Producto::getCategoryId)
-                .distinct()
-                .toList();
-
-        // Cargar todas las categorías en UNA consulta
-        List<Categoria> categorias = categoryRepository.findAllById(categoryIds);
-
-        // Convertir a Map para acceso O(1)
-        Map<String, Categoria> cache = new HashMap<>();
-        categorias.forEach(cat -> cache.put(cat.getId(), cat));
-
-        log.debug("✅ Cache de categorías cargado: {} categorías", cache.size());
-        return cache;
+    private CursorPage<ProductResponse> toCursorPage(List<Producto> productos, int pageSize,
+                                                     Function<Producto, String> cursorOf) {
+        boolean hasMore = productos.size() > pageSize;
+        List<Producto> page = hasMore ? productos.subList(0, pageSize) : productos;
+
+        // ✅ Categorías desde el CategoryCache: la página cuesta una sola consulta
+        Map<String, Categoria> categoriaCache = categoryCache.asMap();
+        List<ProductResponse> items = page.stream()
+                .map(producto -> mapToProductResponse(producto, categoriaCache))
+                .collect(Collectors.toList());
+
+        return CursorPage.<ProductResponse>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? cursorOf.apply(page.get(page.size() - 1)) : null)
+                .build();
     }
 
     /**
@@ -257,15 +523,10 @@ public class ProductServiceImpl implements IProductService {
     }
 
     /**
-     * Mapea producto cargando la categoría (solo para operaciones individuales)
+     * Mapea producto tomando la categoría del CategoryCache (sin consulta adicional)
      */
     private ProductResponse mapToProductResponseWithCategory(Producto producto) {
-        Categoria categoria = null;
-
-        if (producto.getCategoryId() != null && !producto.getCategoryId().isBlank()) {
-            categoria = categoryRepository.findById(producto.getCategoryId()).orElse(null);
-        }
-
+        Categoria categoria = categoryCache.find(producto.getCategoryId()).orElse(null);
         return mapToProductResponse(producto, categoria);
     }
 
@@ -0,0 +1,369 @@
+package com.diedev.firex.service.impl;
+
+import com.diedev.firex.catalog.CategoryCache;
+import com.diedev.firex.catalog.ProductCatalogCache;
+import com.diedev.firex.dto.request.ProductRequest;
+import com.diedev.firex.dto.response.ImportRowErrorResponse;
+import com.diedev.firex.dto.response.ProductImportResponse;
+import com.diedev.firex.enums.DataFormat;
+import com.diedev.firex.exception.BadRequestException;
+import com.diedev.firex.models.Categoria;
+import com.diedev.firex.models.Producto;
+import com.diedev.firex.service.interfaces.IProductTransferService;
+import com.diedev.firex.util.CsvUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Importación y exportación masiva de productos en NDJSON o CSV.
+ * La importación lee el archivo línea por línea: cada fila se valida contra el cache de
+ * categorías y un conjunto en memoria con los nombres existentes (sin consultas por fila),
+ * y las filas válidas se insertan en lotes bulkWrite no ordenados. Los errores se reportan por fila.
+ * La exportación recorre un cursor de Mongo y escribe cada producto a medida que llega.
+ */
+@Slf4j
+@Service
+public class ProductTransferServiceImpl implements IProductTransferService {
+
+    /** Máximo de errores detallados en la respuesta; el resto solo se cuenta */
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final String[] CSV_COLUMNS = {
+            "id", "name", "description", "price", "stock", "categoryId", "categoryName"
+    };
+    private static final String[] CSV_REQUIRED_COLUMNS = {"name", "price", "stock", "categoryId"};
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final CategoryCache categoryCache;
+    private final ProductCatalogCache catalogCache;
+    private final int batchSize;
+
+    public ProductTransferServiceImpl(MongoTemplate mongoTemplate,
+                                      ObjectMapper objectMapper,
+                                      CategoryCache categoryCache,
+                                      ProductCatalogCache catalogCache,
+                                      @Value("${firex.products.import.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.categoryCache = categoryCache;
+        this.catalogCache = catalogCache;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream input, DataFormat format) {
+        log.info("Importando productos en formato {}", format);
+        long start = System.currentTimeMillis();
+
+        Map<String, Categoria> categorias = categoryCache.asMap();
+        Set<String> existingNames = catalogCache.snapshot().getProducts().stream()
+                .map(product -> nameKey(product.getName()))
+                .collect(Collectors.toCollection(HashSet::new));
+
+        ImportState state = new ImportState();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> csvHeader = null;
+            String line;
+            int row = 0;
+
+            while ((line = reader.readLine()) != null) {
+                row++;
+                if (row == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == DataFormat.CSV && csvHeader == null) {
+                    csvHeader = parseCsvHeader(line);
+                    continue;
+                }
+
+                state.totalRows++;
+                ProductRequest request = null;
+                try {
+                    request = format == DataFormat.CSV ? parseCsvRow(line, csvHeader) : parseJsonRow(line);
+                    Producto producto = toProducto(request, categorias, existingNames);
+                    state.add(row, producto);
+                } catch (BadRequestException e) {
+                    state.error(row, request != null ? request.getName() : null, e.getMessage());
+                    continue;
+                }
+
+                if (state.pending.size() >= batchSize) {
+                    flush(state);
+                }
+            }
+            flush(state);
+        } catch (IOException e) {
+            throw new BadRequestException("No se pudo leer el archivo: " + e.getMessage());
+        } finally {
+            // Una sola recarga del catálogo en vez de un parche por producto
+            if (state.imported > 0) {
+                catalogCache.invalidate();
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("✅ Importación terminada: {} filas, {} importados, {} con error, {} lotes ({} ms)",
+                state.totalRows, state.imported, state.failed, state.batches, duration);
+
+        return ProductImportResponse.builder()
+                .totalRows(state.totalRows)
+                .imported(state.imported)
+                .failed(state.failed)
+                .batches(state.batches)
+                .durationMillis(duration)
+                .errors(state.errors)
+                .errorsTruncated(state.failed > state.errors.size())
+                .build();
+    }
+
+    @Override
+    public void exportProducts(OutputStream output, DataFormat format) {
+        log.info("Exportando productos en formato {}", format);
+        long start = System.currentTimeMillis();
+
+        Map<String, Categoria> categorias = categoryCache.asMap();
+        Query query = new Query().with(Sort.by("id")).cursorBatchSize(batchSize);
+        int count = 0;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try (Stream<Producto> productos = mongoTemplate.stream(query, Producto.class)) {
+            if (format == DataFormat.CSV) {
+                writer.write(CsvUtils.formatLine((Object[]) CSV_COLUMNS));
+                writer.write('\n');
+            }
+
+            Iterator<Producto> iterator = productos.iterator();
+            while (iterator.hasNext()) {
+                Producto producto = iterator.next();
+                Categoria categoria = categorias.get(producto.getCategoryId());
+                String categoryName = categoria != null ? categoria.getName() : null;
+
+                if (format == DataFormat.CSV) {
+                    writer.write(CsvUtils.formatLine(
+                            producto.getId(),
+                            producto.getName(),
+                            producto.getDescription(),
+                            producto.getPrice() != null ? producto.getPrice().toPlainString() : null,
+                            producto.getStock(),
+                            producto.getCategoryId(),
+                            categoryName
+                    ));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(toExportRow(producto, categoryName)));
+                }
+                writer.write('\n');
+                count++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la exportación de productos", e);
+        }
+
+        log.info("✅ Exportación terminada: {} productos ({} ms)", count, System.currentTimeMillis() - start);
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    /**
+     * Inserta el lote pendiente; con modo no ordenado un error no detiene el resto del lote
+     */
+    private void flush(ImportState state) {
+        if (state.pending.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class);
+        bulk.insert(state.pending);
+
+        try {
+            BulkWriteResult result = bulk.execute();
+            state.imported += result.getInsertedCount();
+        } catch (BulkOperationException e) {
+            state.imported += e.getResult().getInsertedCount();
+            for (BulkWriteError error : e.getErrors()) {
+                Producto producto = state.pending.get(error.getIndex());
+                String message = error.getCode() == DUPLICATE_KEY
+                        ? "Ya existe un producto con ese nombre"
+                        : error.getMessage();
+                state.error(state.pendingRows.get(error.getIndex()), producto.getName(), message);
+            }
+        }
+
+        state.batches++;
+        log.debug("Lote {} de importación escrito: {} productos", state.batches, state.pending.size());
+        state.pending.clear();
+        state.pendingRows.clear();
+    }
+
+    /**
+     * Aplica las mismas validaciones que la creación individual de productos
+     */
+    private Producto toProducto(ProductRequest request, Map<String, Categoria> categorias, Set<String> existingNames) {
+        String name = request.getName() != null ? request.getName().trim() : "";
+        if (name.length() < 3 || name.length() > 100) {
+            throw new BadRequestException("El nombre debe tener entre 3 y 100 caracteres");
+        }
+        if (request.getDescription() != null && request.getDescription().trim().length() > 500) {
+            throw new BadRequestException("La descripción no puede exceder 500 caracteres");
+        }
+        if (request.getPrice() == null || request.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BadRequestException("El precio debe ser mayor a 0");
+        }
+        if (request.getStock() == null || request.getStock() < 0) {
+            throw new BadRequestException("El stock no puede ser negativo");
+        }
+        if (request.getCategoryId() == null || !categorias.containsKey(request.getCategoryId())) {
+            throw new BadRequestException("Categoría no encontrada: " + request.getCategoryId());
+        }
+        // También detecta nombres repetidos dentro del mismo archivo
+        if (!existingNames.add(nameKey(name))) {
+            throw new BadRequestException("Ya existe un producto con ese nombre");
+        }
+
+        Producto producto = new Producto();
+        producto.setName(name);
+        producto.setDescription(request.getDescription() != null ? request.getDescription().trim() : null);
+        producto.setPrice(request.getPrice());
+        producto.setStock(request.getStock());
+        producto.setCategoryId(request.getCategoryId());
+        return producto;
+    }
+
+    private ProductRequest parseJsonRow(String line) {
+        try {
+            return objectMapper.readValue(line, ProductRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> parseCsvHeader(String line) {
+        List<String> columns = CsvUtils.parseLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim(), i);
+        }
+        for (String required : CSV_REQUIRED_COLUMNS) {
+            if (!header.containsKey(required)) {
+                throw new BadRequestException("Falta la columna requerida en el CSV: " + required);
+            }
+        }
+        return header;
+    }
+
+    private ProductRequest parseCsvRow(String line, Map<String, Integer> header) {
+        List<String> fields = CsvUtils.parseLine(line);
+
+        ProductRequest request = new ProductRequest();
+        request.setName(column(fields, header, "name"));
+        request.setDescription(column(fields, header, "description"));
+        request.setCategoryId(column(fields, header, "categoryId"));
+
+        String price = column(fields, header, "price");
+        String stock = column(fields, header, "stock");
+        try {
+            request.setPrice(price != null ? new BigDecimal(price) : null);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Precio inválido: " + price);
+        }
+        try {
+            request.setStock(stock != null ? Integer.valueOf(stock) : null);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Stock inválido: " + stock);
+        }
+        return request;
+    }
+
+    private static String column(List<String> fields, Map<String, Integer> header, String name) {
+        Integer idx = header.get(name);
+        if (idx == null || idx >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(idx).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Map<String, Object> toExportRow(Producto producto, String categoryName) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", producto.getId());
+        row.put("name", producto.getName());
+        row.put("description", producto.getDescription());
+        row.put("price", producto.getPrice());
+        row.put("stock", producto.getStock());
+        row.put("categoryId", producto.getCategoryId());
+        row.put("categoryName", categoryName);
+        return row;
+    }
+
+    private static String nameKey(String name) {
+        return name != null ? name.trim().toLowerCase() : "";
+    }
+
+    /**
+     * Acumuladores de una importación en curso
+     */
+    private static final class ImportState {
+        private final List<Producto> pending = new ArrayList<>();
+        private final List<Integer> pendingRows = new ArrayList<>();
+        private final List<ImportRowErrorResponse> errors = new ArrayList<>();
+        private int totalRows;
+        private int imported;
+        private int failed;
+        private int batches;
+
+        private void add(int row, Producto producto) {
+            pending.add(producto);
+            pendingRows.add(row);
+        }
+
+        private void error(int row, String name, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ImportRowErrorResponse.builder()
+                        .row(row)
+                        .name(name)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
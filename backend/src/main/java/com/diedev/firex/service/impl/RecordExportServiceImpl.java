@@ -0,0 +1,222 @@
+package com.diedev.firex.service.impl;
+
+import com.diedev.firex.dto.request.ExportRange;
+import com.diedev.firex.enums.DataFormat;
+import com.diedev.firex.exception.BadRequestException;
+import com.diedev.firex.models.Order;
+import com.diedev.firex.models.OrderItem;
+import com.diedev.firex.models.ServiceRequest;
+import com.diedev.firex.service.interfaces.IRecordExportService;
+import com.diedev.firex.util.CsvUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación de pedidos y solicitudes de servicio por rango de fechas (extractos contables) en NDJSON o CSV.
+ * Los documentos se leen de un cursor de Mongo en lotes de batch-size y se escriben a medida que llegan:
+ * la memoria no depende del tamaño del mes, y si el cliente lee despacio la escritura se bloquea
+ * y el cursor no pide el siguiente lote (contrapresión natural).
+ * El orden es (createdAt, _id) sobre created_id_idx; una descarga cortada se reanuda con el _id
+ * del último registro recibido.
+ */
+@Slf4j
+@Service
+public class RecordExportServiceImpl implements IRecordExportService {
+
+    private static final String[] ORDER_CSV_COLUMNS = {
+            "id", "userId", "status", "totalItems", "totalAmount", "shippingAddress", "items", "createdAt", "updatedAt"
+    };
+    private static final String[] SERVICE_REQUEST_CSV_COLUMNS = {
+            "id", "requestId", "userId", "userEmail", "tipo", "estadoExtintor", "fecha", "franja",
+            "direccion", "telefono", "observaciones", "status", "createdAt", "updatedAt"
+    };
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public RecordExportServiceImpl(MongoTemplate mongoTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${firex.exports.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public ExportRange orderRange(LocalDate from, LocalDate to, String afterId) {
+        return resolveRange(from, to, afterId, Order.class, Order::getCreatedAt);
+    }
+
+    @Override
+    public ExportRange serviceRequestRange(LocalDate from, LocalDate to, String afterId) {
+        return resolveRange(from, to, afterId, ServiceRequest.class, ServiceRequest::getCreatedAt);
+    }
+
+    @Override
+    public long exportOrders(OutputStream output, DataFormat format, ExportRange range, boolean gzip) {
+        return export(output, format, range, gzip, Order.class, ORDER_CSV_COLUMNS, order -> new Object[]{
+                order.getId(),
+                order.getUserId(),
+                order.getStatus(),
+                order.getTotalItems(),
+                order.getTotalAmount() != null ? order.getTotalAmount().toPlainString() : null,
+                order.getShippingAddress(),
+                formatItems(order),
+                order.getCreatedAt(),
+                order.getUpdatedAt()
+        });
+    }
+
+    @Override
+    public long exportServiceRequests(OutputStream output, DataFormat format, ExportRange range, boolean gzip) {
+        return export(output, format, range, gzip, ServiceRequest.class, SERVICE_REQUEST_CSV_COLUMNS, request -> new Object[]{
+                request.getId(),
+                request.getRequestId(),
+                request.getUserId(),
+                request.getUserEmail(),
+                request.getTipo(),
+                request.getEstadoExtintor(),
+                request.getFecha(),
+                request.getFranja(),
+                request.getDireccion(),
+                request.getTelefono(),
+                request.getObservaciones(),
+                request.getStatus(),
+                request.getCreatedAt(),
+                request.getUpdatedAt()
+        });
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    /**
+     * Valida el rango (días completos: desde "from" hasta el final de "to") y, si se reanuda,
+     * busca la fecha del último registro recibido (una consulta por _id)
+     */
+    private <T> ExportRange resolveRange(LocalDate from, LocalDate to, String afterId, Class<T> type,
+                                         Function<T, LocalDateTime> createdAtOf) {
+        if (from == null || to == null) {
+            throw new BadRequestException("Las fechas inicial y final son requeridas");
+        }
+        if (from.isAfter(to)) {
+            throw new BadRequestException("La fecha inicial no puede ser posterior a la final");
+        }
+
+        ExportRange range = new ExportRange(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), null, null);
+        if (afterId == null || afterId.isBlank()) {
+            return range;
+        }
+
+        if (!ObjectId.isValid(afterId)) {
+            throw new BadRequestException("afterId inválido: " + afterId);
+        }
+        Query query = Query.query(Criteria.where("_id").is(afterId));
+        query.fields().include("createdAt");
+        T last = mongoTemplate.findOne(query, type);
+        LocalDateTime createdAt = last != null ? createdAtOf.apply(last) : null;
+        if (createdAt == null) {
+            throw new BadRequestException("No se encontró el registro para reanudar la exportación: " + afterId);
+        }
+
+        range.setAfterCreatedAt(createdAt);
+        range.setAfterId(afterId);
+        return range;
+    }
+
+    private <T> long export(OutputStream output, DataFormat format, ExportRange range, boolean gzip,
+                            Class<T> type, String[] csvColumns, Function<T, Object[]> csvRow) {
+        String collection = mongoTemplate.getCollectionName(type);
+        log.info("Exportando {} en formato {} ({} a {}{}{})", collection, format, range.getFrom(), range.getTo(),
+                range.getAfterId() != null ? ", después de " + range.getAfterId() : "", gzip ? ", gzip" : "");
+        long start = System.currentTimeMillis();
+
+        Criteria criteria = Criteria.where("createdAt").gte(range.getFrom()).lt(range.getTo());
+        if (range.getAfterId() != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").gt(range.getAfterCreatedAt()),
+                    Criteria.where("createdAt").is(range.getAfterCreatedAt()).and("_id").gt(range.getAfterId())
+            );
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by("createdAt", "id"))
+                .cursorBatchSize(batchSize);
+
+        long count = 0;
+        try {
+            GZIPOutputStream compressed = gzip ? new GZIPOutputStream(output, 8192) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    compressed != null ? compressed : output, StandardCharsets.UTF_8));
+
+            try (Stream<T> documents = mongoTemplate.stream(query, type)) {
+                if (format == DataFormat.CSV) {
+                    writer.write(CsvUtils.formatLine((Object[]) csvColumns));
+                    writer.write('\n');
+                }
+
+                Iterator<T> iterator = documents.iterator();
+                while (iterator.hasNext()) {
+                    T document = iterator.next();
+                    if (format == DataFormat.CSV) {
+                        writer.write(CsvUtils.formatLine(csvRow.apply(document)));
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(document));
+                    }
+                    writer.write('\n');
+                    count++;
+                }
+            }
+
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+        } catch (IOException e) {
+            // Normalmente el cliente cortó la descarga: se reanuda con el último _id recibido
+            throw new UncheckedIOException(String.format("Exportación de %s interrumpida después de %d registros",
+                    collection, count), e);
+        }
+
+        log.info("✅ Exportación de {} terminada: {} registros ({} ms)", collection, count, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    /**
+     * Items del pedido en una sola celda: productId x cantidad = subtotal, separados por "|"
+     */
+    private static String formatItems(Order order) {
+        if (order.getItems() == null || order.getItems().isEmpty()) {
+            return null;
+        }
+        return order.getItems().stream()
+                .map(RecordExportServiceImpl::formatItem)
+                .collect(Collectors.joining("|"));
+    }
+
+    private static String formatItem(OrderItem item) {
+        return item.getProductId() + " x " + item.getQuantity() + " = "
+                + (item.getSubtotal() != null ? item.getSubtotal().toPlainString() : "0");
+    }
+}
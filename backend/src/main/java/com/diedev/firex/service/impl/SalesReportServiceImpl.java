@@ -0,0 +1,202 @@
+package com.diedev.firex.service.impl;
+
+import com.diedev.firex.analytics.SalesRollupJob;
+import com.diedev.firex.dto.response.SalesComparisonResponse;
+import com.diedev.firex.dto.response.SalesLineResponse;
+import com.diedev.firex.dto.response.SalesRollupResponse;
+import com.diedev.firex.enums.SalesPeriod;
+import com.diedev.firex.exception.BadRequestException;
+import com.diedev.firex.models.SalesLine;
+import com.diedev.firex.models.SalesRollup;
+import com.diedev.firex.repositories.SalesRollupRepository;
+import com.diedev.firex.service.interfaces.ISalesReportService;
+import com.diedev.firex.util.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reportes de ventas leídos de los acumulados (sales_rollups), nunca de los pedidos:
+ * un rango de N periodos son N documentos por índice y una comparación son 2 documentos
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesReportServiceImpl implements ISalesReportService {
+
+    private final SalesRollupRepository rollupRepository;
+    private final SalesRollupJob rollupJob;
+
+    private static final int DEFAULT_PERIODS = 30;
+    private static final int MAX_PERIODS = 400;
+    private static final int MAX_TOP = 50;
+
+    @Override
+    public List<SalesRollupResponse> getRollups(String period, LocalDate from, LocalDate to, int top) {
+        SalesPeriod salesPeriod = parsePeriod(period);
+        validateTop(top);
+
+        LocalDate last = salesPeriod.startOf(to != null ? to : LocalDate.now());
+        LocalDate first = from != null ? salesPeriod.startOf(from) : startBefore(salesPeriod, last, DEFAULT_PERIODS - 1);
+        if (first.isAfter(last)) {
+            throw new BadRequestException("La fecha inicial no puede ser posterior a la final");
+        }
+        if (periodsBetween(salesPeriod, first, last) >= MAX_PERIODS) {
+            throw new BadRequestException(String.format("El rango no puede superar %d periodos", MAX_PERIODS));
+        }
+
+        log.debug("Acumulados de ventas {} de {} a {}", salesPeriod, first, last);
+
+        Map<LocalDate, SalesRollup> stored = rollupRepository.findByPeriodBetween(salesPeriod, first, last).stream()
+                .collect(Collectors.toMap(SalesRollup::getPeriodStart, Function.identity(), (a, b) -> a));
+
+        // ✅ Los periodos sin pedidos no tienen documento: se responden en cero para que la serie sea continua
+        List<SalesRollupResponse> result = new ArrayList<>();
+        for (LocalDate start = first; !start.isAfter(last); start = salesPeriod.next(start)) {
+            SalesRollup rollup = stored.get(start);
+            result.add(mapToRollupResponse(rollup != null ? rollup : emptyRollup(salesPeriod, start), top));
+        }
+        return result;
+    }
+
+    @Override
+    public SalesComparisonResponse comparePeriods(String period, LocalDate date, LocalDate against, int top) {
+        SalesPeriod salesPeriod = parsePeriod(period);
+        validateTop(top);
+
+        LocalDate currentStart = salesPeriod.startOf(date != null ? date : LocalDate.now());
+        LocalDate previousStart = against != null ? salesPeriod.startOf(against) : salesPeriod.previous(currentStart);
+
+        // ✅ Una sola consulta por _id para los dos periodos
+        Map<String, SalesRollup> rollups = new HashMap<>();
+        rollupRepository.findAllById(List.of(salesPeriod.rollupId(currentStart), salesPeriod.rollupId(previousStart)))
+                .forEach(rollup -> rollups.put(rollup.getId(), rollup));
+
+        SalesRollup current = rollups.getOrDefault(salesPeriod.rollupId(currentStart), emptyRollup(salesPeriod, currentStart));
+        SalesRollup previous = rollups.getOrDefault(salesPeriod.rollupId(previousStart), emptyRollup(salesPeriod, previousStart));
+
+        BigDecimal revenueChange = Money.toBigDecimal(Money.toMinor(current.getRevenue()) - Money.toMinor(previous.getRevenue()));
+        Double revenueChangePercent = previous.getRevenue().signum() != 0
+                ? revenueChange.multiply(BigDecimal.valueOf(100))
+                        .divide(previous.getRevenue(), 2, RoundingMode.HALF_EVEN)
+                        .doubleValue()
+                : null;
+
+        return SalesComparisonResponse.builder()
+                .period(salesPeriod.name())
+                .current(mapToRollupResponse(current, top))
+                .previous(mapToRollupResponse(previous, top))
+                .revenueChange(revenueChange)
+                .revenueChangePercent(revenueChangePercent)
+                .ordersChange(current.getOrders() - previous.getOrders())
+                .unitsChange(current.getUnits() - previous.getUnits())
+                .build();
+    }
+
+    @Override
+    public boolean rebuildRollups() {
+        if (!rollupJob.isEnabled()) {
+            throw new BadRequestException("Los acumulados de ventas están deshabilitados");
+        }
+        return rollupJob.rebuildAsync();
+    }
+
+    // ========== MÉTODOS HELPER ==========
+
+    private SalesPeriod parsePeriod(String period) {
+        if (period == null || period.isBlank()) {
+            return SalesPeriod.DAY;
+        }
+        try {
+            return SalesPeriod.valueOf(period.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(
+                    "Periodo inválido: " + period + ". Valores válidos: " +
+                            Arrays.stream(SalesPeriod.values()).map(Enum::name).collect(Collectors.joining(", "))
+            );
+        }
+    }
+
+    private void validateTop(int top) {
+        if (top < 1 || top > MAX_TOP) {
+            throw new BadRequestException(String.format("top debe estar entre 1 y %d", MAX_TOP));
+        }
+    }
+
+    private static LocalDate startBefore(SalesPeriod period, LocalDate start, int periods) {
+        LocalDate result = start;
+        for (int i = 0; i < periods; i++) {
+            result = period.previous(result);
+        }
+        return result;
+    }
+
+    private static long periodsBetween(SalesPeriod period, LocalDate first, LocalDate last) {
+        return switch (period) {
+            case DAY -> ChronoUnit.DAYS.between(first, last);
+            case WEEK -> ChronoUnit.WEEKS.between(first, last);
+            case MONTH -> ChronoUnit.MONTHS.between(first, last);
+        };
+    }
+
+    private static SalesRollup emptyRollup(SalesPeriod period, LocalDate start) {
+        SalesRollup rollup = new SalesRollup();
+        rollup.setId(period.rollupId(start));
+        rollup.setPeriod(period);
+        rollup.setPeriodKey(period.key(start));
+        rollup.setPeriodStart(start);
+        return rollup;
+    }
+
+    private SalesRollupResponse mapToRollupResponse(SalesRollup rollup, int top) {
+        BigDecimal revenue = rollup.getRevenue() != null ? rollup.getRevenue() : BigDecimal.ZERO;
+        BigDecimal average = rollup.getOrders() > 0
+                ? Money.toBigDecimal(Money.toMinor(revenue.divide(BigDecimal.valueOf(rollup.getOrders()), Money.SCALE, RoundingMode.HALF_EVEN)))
+                : BigDecimal.ZERO;
+
+        return SalesRollupResponse.builder()
+                .period(rollup.getPeriod().name())
+                .periodKey(rollup.getPeriodKey())
+                .periodStart(rollup.getPeriodStart())
+                .periodEnd(rollup.getPeriod().next(rollup.getPeriodStart()).minusDays(1))
+                .orders(rollup.getOrders())
+                .units(rollup.getUnits())
+                .revenue(revenue)
+                .averageOrderValue(average)
+                .statusCounts(rollup.getStatusCounts())
+                .topProducts(toLines(rollup.getProducts(), top))
+                .categories(toLines(rollup.getCategories(), Integer.MAX_VALUE))
+                .build();
+    }
+
+    /**
+     * Líneas con ventas ordenadas por ingreso (y unidades), las primeras "limit"
+     */
+    private static List<SalesLineResponse> toLines(Map<String, SalesLine> lines, int limit) {
+        if (lines == null || lines.isEmpty()) {
+            return List.of();
+        }
+        return lines.entrySet().stream()
+                .filter(entry -> entry.getValue().getUnits() > 0)
+                .map(entry -> new SalesLineResponse(entry.getKey(), entry.getValue().getName(),
+                        entry.getValue().getUnits(),
+                        entry.getValue().getRevenue() != null ? entry.getValue().getRevenue() : BigDecimal.ZERO))
+                .sorted(Comparator.comparing(SalesLineResponse::getRevenue).reversed()
+                        .thenComparing(Comparator.comparingLong(SalesLineResponse::getUnits).reversed()))
+                .limit(limit)
+                .toList();
+    }
+}
@@ -4,11 +4,13 @@ import com.diedev.firex.dto.request.ServiceRequestRequest;
 import com.diedev.firex.dto.request.UpdateStatusRequest;
 import com.diedev.firex.dto.response.ServiceRequestResponse;
 import com.diedev.firex.dto.response.TimelineResponse;
+import com.diedev.firex.enums.DomainEventType;
 import com.diedev.firex.enums.ServiceRequestStatus;
 import com.diedev.firex.exception.BadRequestException;
 import com.diedev.firex.exception.ResourceNotFoundException;
 import com.diedev.firex.models.ServiceRequest;
 import com.diedev.firex.models.StatusTimeline;
+import com.diedev.firex.outbox.OutboxWriter;
 import com.diedev.firex.repositories.ServiceRequestRepository;
 import com.diedev.firex.service.interfaces.IServiceRequestService;
 import lombok.RequiredArgsConstructor;
@@ -21,7 +23,9 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +38,7 @@ import java.util.stream.Collectors;
 public class ServiceRequestServiceImpl implements IServiceRequestService {
 
     private final ServiceRequestRepository serviceRequestRepository;
+    private final OutboxWriter outboxWriter;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     @Override
@@ -150,7 +155,8 @@ public class ServiceRequestServiceImpl implements IServiceRequestService {
         ServiceRequestStatus newStatus = parseStatus(request.getStatus());
 
         // ✅ VALIDACIÓN: No permitir retroceder estados (excepto casos especiales)
-        validateStatusTransition(serviceRequest.getStatus(), newStatus);
+        ServiceRequestStatus previousStatus = serviceRequest.getStatus();
+        validateStatusTransition(previousStatus, newStatus);
 
         // Actualizar estado
         serviceRequest.setStatus(newStatus);
@@ -166,6 +172,16 @@ public class ServiceRequestServiceImpl implements IServiceRequestService {
         ServiceRequest updated = serviceRequestRepository.save(serviceRequest);
         log.info("✅ Estado actualizado: {} -> {}", id, newStatus);
 
+        // ✅ Notificaciones y demás suscriptores se enteran por el outbox (ver OutboxRelay)
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("requestId", updated.getRequestId());
+        payload.put("userId", updated.getUserId());
+        payload.put("userEmail", updated.getUserEmail());
+        payload.put("previousStatus", previousStatus != null ? previousStatus.name() : null);
+        payload.put("newStatus", newStatus.name());
+        payload.put("updatedBy", updatedBy);
+        outboxWriter.append(DomainEventType.SERVICE_REQUEST_STATUS_CHANGED, updated.getId(), payload);
+
         return mapToServiceRequestResponse(updated);
     }
 
@@ -243,14 +259,12 @@ public class ServiceRequestServiceImpl implements IServiceRequestService {
      * ✅ Valida que no exista solicitud duplicada del mismo usuario en la misma fecha
      */
     private void validateNoDuplicateRequest(String userEmail, String fecha) {
-        List<ServiceRequest> existing = serviceRequestRepository.findByUserEmailAndStatus(
+        boolean duplicada = serviceRequestRepository.existsByUserEmailAndFechaAndStatus(
                 userEmail,
+                fecha,
                 ServiceRequestStatus.PENDIENTE
         );
 
-        boolean duplicada = existing.stream()
-                .anyMatch(req -> req.getFecha().equals(fecha));
-
         if (duplicada) {
             throw new BadRequestException(
                     "Ya tienes una solicitud PENDIENTE para la fecha: " + fecha + ". " +
@@ -1,11 +1,22 @@
 package com.diedev.firex.service.interfaces;
 
+import com.diedev.firex.dto.request.CartBatchRequest;
 import com.diedev.firex.dto.request.CartItemRequest;
+import com.diedev.firex.dto.response.CartItemResponse;
 import com.diedev.firex.dto.response.CartResponse;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ICartService {
     CartResponse getCartByUserId(String userId);
     CartResponse addOrUpdateItem(String userId, CartItemRequest request);
     CartResponse removeItem(String userId, String productId);
+    List<CartItemResponse> claimItems(String userId);
+    CartResponse restoreItems(String userId, List<CartItemResponse> items);
+    void releaseReservations(String userId, Collection<String> productIds);
+    CartResponse applyOperations(String userId, CartBatchRequest request);
+    CartResponse createGuestCart();
+    CartResponse mergeGuestCart(String userId, String guestToken);
     void clearCart(String userId);
 }
\ No newline at end of file
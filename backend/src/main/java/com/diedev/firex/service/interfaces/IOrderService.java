@@ -0,0 +1,14 @@
+package com.diedev.firex.service.interfaces;
+
+import com.diedev.firex.dto.request.CheckoutRequest;
+import com.diedev.firex.dto.request.UpdateStatusRequest;
+import com.diedev.firex.dto.response.CursorPage;
+import com.diedev.firex.dto.response.OrderResponse;
+import com.diedev.firex.dto.response.OrderSummaryResponse;
+
+public interface IOrderService {
+    OrderResponse checkout(String userId, CheckoutRequest request);
+    CursorPage<OrderSummaryResponse> getOrderHistory(String userId, String status, String cursor, int size);
+    OrderResponse getOrderById(String id);
+    OrderResponse updateOrderStatus(String id, UpdateStatusRequest request);
+}
@@ -1,8 +1,13 @@
 package com.diedev.firex.service.interfaces;
 
+import com.diedev.firex.dto.request.ProductQueryRequest;
 import com.diedev.firex.dto.request.ProductRequest;
+import com.diedev.firex.dto.response.CursorPage;
+import com.diedev.firex.dto.response.ProductQueryResponse;
 import com.diedev.firex.dto.response.ProductResponse;
+import com.diedev.firex.dto.response.SuggestionResponse;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface IProductService {
@@ -14,5 +19,14 @@ public interface IProductService {
     List<ProductResponse> getProductsByCategory(String categoryId);
     List<ProductResponse> searchProducts(String keyword);
     List<ProductResponse> getAvailableProducts();
-    List<ProductResponse> getLowStockProducts(int threshold);
+    List<ProductResponse> getLowStockProducts(Integer threshold);
+    CursorPage<ProductResponse> getProductsPage(String cursor, int size);
+    CursorPage<ProductResponse> getAvailableProductsPage(String cursor, int size);
+    CursorPage<ProductResponse> getProductsByCategoryPage(String categoryId, String cursor, int size);
+    CursorPage<ProductResponse> searchProductsPage(String keyword, String cursor, int size);
+    CursorPage<ProductResponse> getLowStockProductsPage(Integer threshold, String cursor, int size);
+    CursorPage<ProductResponse> getOutOfStockProductsPage(String cursor, int size);
+    CursorPage<ProductResponse> getProductsByPricePage(BigDecimal minPrice, BigDecimal maxPrice, String cursor, int size);
+    List<SuggestionResponse> suggest(String prefix, int limit);
+    ProductQueryResponse queryProducts(ProductQueryRequest query);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.diedev.firex.service.interfaces;
+
+import com.diedev.firex.dto.response.ProductImportResponse;
+import com.diedev.firex.enums.DataFormat;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface IProductTransferService {
+    ProductImportResponse importProducts(InputStream input, DataFormat format);
+    void exportProducts(OutputStream output, DataFormat format);
+}
@@ -0,0 +1,14 @@
+package com.diedev.firex.service.interfaces;
+
+import com.diedev.firex.dto.request.ExportRange;
+import com.diedev.firex.enums.DataFormat;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface IRecordExportService {
+    ExportRange orderRange(LocalDate from, LocalDate to, String afterId);
+    ExportRange serviceRequestRange(LocalDate from, LocalDate to, String afterId);
+    long exportOrders(OutputStream output, DataFormat format, ExportRange range, boolean gzip);
+    long exportServiceRequests(OutputStream output, DataFormat format, ExportRange range, boolean gzip);
+}
@@ -0,0 +1,13 @@
+package com.diedev.firex.service.interfaces;
+
+import com.diedev.firex.dto.response.SalesComparisonResponse;
+import com.diedev.firex.dto.response.SalesRollupResponse;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ISalesReportService {
+    List<SalesRollupResponse> getRollups(String period, LocalDate from, LocalDate to, int top);
+    SalesComparisonResponse comparePeriods(String period, LocalDate date, LocalDate against, int top);
+    boolean rebuildRollups();
+}
@@ -0,0 +1,80 @@
+package com.diedev.firex.util;
+
+import com.diedev.firex.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura y escritura de líneas CSV (RFC 4180, separador coma).
+ * Los campos entre comillas pueden contener comas y comillas dobles ("");
+ * no se soportan saltos de línea dentro de un campo, así cada fila es una línea.
+ */
+public class CsvUtils {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    /**
+     * Separa una línea en sus campos
+     */
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == QUOTE) {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                        field.append(QUOTE);
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == QUOTE && field.isEmpty()) {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new BadRequestException("Comillas sin cerrar en la línea CSV");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Arma una línea CSV (sin salto de línea) escapando los campos que lo necesiten
+     */
+    public static String formatLine(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(SEPARATOR);
+            }
+            line.append(escape(values[i]));
+        }
+        return line.toString();
+    }
+
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString().replace('\r', ' ').replace('\n', ' ');
+        if (text.indexOf(SEPARATOR) >= 0 || text.indexOf(QUOTE) >= 0) {
+            return QUOTE + text.replace("\"", "\"\"") + QUOTE;
+        }
+        return text;
+    }
+}
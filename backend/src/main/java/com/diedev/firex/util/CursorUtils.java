@@ -0,0 +1,117 @@
+package com.diedev.firex.util;
+
+import com.diedev.firex.exception.BadRequestException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Codificación de cursores opacos para paginación keyset.
+ * Un cursor guarda la última clave vista: solo el _id, o (sortKey, _id).
+ * Para resultados rankeados en memoria (búsqueda) guarda la posición siguiente.
+ */
+public class CursorUtils {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final char SEPARATOR = '\u0000';
+    private static final ObjectId MIN_OBJECT_ID = new ObjectId("000000000000000000000000");
+
+    /**
+     * Crear cursor a partir del último _id de la página
+     */
+    public static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Crear cursor a partir de la clave de orden y el _id (desempate)
+     */
+    public static String encode(String sortKey, String id) {
+        return encode(sortKey + SEPARATOR + id);
+    }
+
+    /**
+     * Obtener el _id desde un cursor; sin cursor devuelve el menor ObjectId posible
+     */
+    public static ObjectId decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return MIN_OBJECT_ID;
+        }
+        return toObjectId(decode(cursor));
+    }
+
+    /**
+     * Obtener (sortKey, _id) desde un cursor; null si no hay cursor
+     */
+    public static String[] decodeKeyed(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        String raw = decode(cursor);
+        int idx = raw.lastIndexOf(SEPARATOR);
+        if (idx < 0) {
+            throw new BadRequestException("Cursor inválido");
+        }
+
+        String id = raw.substring(idx + 1);
+        toObjectId(id);
+        return new String[]{raw.substring(0, idx), id};
+    }
+
+    /**
+     * Crear cursor a partir de la posición de inicio de la siguiente página
+     */
+    public static String encodeOffset(int offset) {
+        return encode(Integer.toString(offset));
+    }
+
+    /**
+     * Obtener la posición de inicio desde un cursor; sin cursor devuelve 0
+     */
+    public static int decodeOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(decode(cursor));
+            if (offset < 0) {
+                throw new BadRequestException("Cursor inválido");
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Validar y normalizar el tamaño de página
+     */
+    public static int validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException(
+                    String.format("El tamaño de página debe estar entre 1 y %d", MAX_PAGE_SIZE)
+            );
+        }
+        return size;
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+
+    private static ObjectId toObjectId(String id) {
+        if (!ObjectId.isValid(id)) {
+            throw new BadRequestException("Cursor inválido");
+        }
+        return new ObjectId(id);
+    }
+}
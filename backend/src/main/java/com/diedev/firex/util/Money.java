@@ -0,0 +1,129 @@
+package com.diedev.firex.util;
+
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Montos en pesos colombianos como long de unidades menores (centavos, 2 decimales según ISO 4217).
+ * En los recorridos calientes (totales de carrito y pedido) se suman y multiplican longs en lugar de
+ * crear un BigDecimal por operación; la conversión a BigDecimal/Decimal128 se hace solo al guardar
+ * o responder. Las operaciones lanzan ArithmeticException si se desbordan (nunca truncan en silencio).
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Currency CURRENCY = Currency.getInstance("COP");
+    public static final int SCALE = CURRENCY.getDefaultFractionDigits();
+    public static final Money ZERO = new Money(0);
+
+    private static final long FACTOR = pow10(SCALE);
+
+    private final long minor;
+
+    private Money(long minor) {
+        this.minor = minor;
+    }
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    public static Money of(BigDecimal value) {
+        return ofMinor(toMinor(value));
+    }
+
+    public static Money of(Decimal128 value) {
+        return ofMinor(toMinor(value));
+    }
+
+    public long getMinor() {
+        return minor;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minor, other.minor));
+    }
+
+    public Money times(int quantity) {
+        return ofMinor(Math.multiplyExact(minor, quantity));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minor);
+    }
+
+    public Decimal128 toDecimal128() {
+        return new Decimal128(toBigDecimal(minor));
+    }
+
+    // ========== OPERACIONES SOBRE long (sin objetos intermedios) ==========
+
+    /**
+     * Convierte a unidades menores (redondeo bancario si trae más de 2 decimales; null = 0).
+     * Los precios enteros, el caso normal en pesos, no crean objetos.
+     */
+    public static long toMinor(BigDecimal value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.scale() == 0) {
+            return Math.multiplyExact(value.longValueExact(), FACTOR);
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static long toMinor(Decimal128 value) {
+        return value != null ? toMinor(value.bigDecimalValue()) : 0;
+    }
+
+    /**
+     * Precio unitario por cantidad
+     */
+    public static long subtotal(long unitMinor, int quantity) {
+        return Math.multiplyExact(unitMinor, quantity);
+    }
+
+    /**
+     * Convierte a BigDecimal: pesos enteros sin decimales (como se guardaban antes), si no con 2 decimales
+     */
+    public static BigDecimal toBigDecimal(long minor) {
+        if (minor % FACTOR == 0) {
+            return BigDecimal.valueOf(minor / FACTOR);
+        }
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static Decimal128 toDecimal128(long minor) {
+        return new Decimal128(toBigDecimal(minor));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && other.minor == minor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor);
+    }
+
+    @Override
+    public String toString() {
+        return CURRENCY.getCurrencyCode() + " " + toBigDecimal(minor).toPlainString();
+    }
+
+    private static long pow10(int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+}
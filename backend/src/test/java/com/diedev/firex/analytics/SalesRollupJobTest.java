@@ -0,0 +1,138 @@
+package com.diedev.firex.analytics;
+
+import com.diedev.firex.catalog.CategoryCache;
+import com.diedev.firex.catalog.ProductCatalogCache;
+import com.diedev.firex.enums.OrderStatus;
+import com.diedev.firex.events.OrderStatusChangedEvent;
+import com.diedev.firex.models.Order;
+import com.diedev.firex.models.OrderItem;
+import com.diedev.firex.models.SalesRollup;
+import com.diedev.firex.repositories.SalesRollupRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SalesRollupJobTest {
+
+	private static final LocalDateTime CREATED = LocalDateTime.of(2026, 10, 12, 10, 0);
+	private static final String DAY = "DAY:2026-10-12";
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final BulkOperations bulk = mock(BulkOperations.class);
+	private final CategoryCache categoryCache = mock(CategoryCache.class);
+	private final SalesRollupJob job = new SalesRollupJob(mongoTemplate, mock(SalesRollupRepository.class),
+			mock(ProductCatalogCache.class), categoryCache, true);
+
+	SalesRollupJobTest() {
+		MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.setCustomConversions(conversions);
+		converter.afterPropertiesSet();
+		when(mongoTemplate.getConverter()).thenReturn(converter);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class)).thenReturn(bulk);
+		when(categoryCache.asMap()).thenReturn(Map.of());
+	}
+
+	@Test
+	void statusChangeReadByTheCursorAfterItHappenedIsCountedOnce() {
+		Order before = order("o1", OrderStatus.PENDING, CREATED);
+		Order after = order("o1", OrderStatus.CANCELLED, LocalDateTime.now());
+
+		// El cambio llega antes de que el cursor lea el pedido: el cursor ya lo ve cancelado
+		when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenAnswer(invocation -> {
+			job.onOrderStatusChanged(new OrderStatusChangedEvent(after, before.getStatus(), after.getStatus()));
+			return Stream.of(after);
+		});
+
+		assertEquals(1, job.rebuild());
+
+		Document day = written().get(DAY);
+		assertEquals(1L, statusCount(day, OrderStatus.CANCELLED));
+		assertEquals(0L, statusCount(day, OrderStatus.PENDING));
+		assertEquals(0L, day.get("orders"));
+		assertEquals(0, job.getStats().getPendingDocuments());
+	}
+
+	@Test
+	void statusChangeAfterTheCursorReadTheOrderIsAppliedOnce() {
+		Order pending = order("o1", OrderStatus.PENDING, CREATED);
+		Order other = order("o2", OrderStatus.COMPLETED, CREATED);
+		Order cancelled = order("o1", OrderStatus.CANCELLED, LocalDateTime.now());
+
+		// El cursor lee el pedido pendiente y después cambia de estado
+		when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(pending, other).peek(order -> {
+			if (order == other) {
+				job.onOrderStatusChanged(new OrderStatusChangedEvent(cancelled, OrderStatus.PENDING, OrderStatus.CANCELLED));
+			}
+		}));
+
+		assertEquals(2, job.rebuild());
+
+		Document day = written().get(DAY);
+		assertEquals(1L, statusCount(day, OrderStatus.CANCELLED));
+		assertEquals(0L, statusCount(day, OrderStatus.PENDING));
+		assertEquals(1L, statusCount(day, OrderStatus.COMPLETED));
+		assertEquals(1L, day.get("orders"));
+		assertEquals(0, job.getStats().getPendingDocuments());
+	}
+
+	/**
+	 * Documentos escritos por el reemplazo, por _id
+	 */
+	private Map<String, Document> written() {
+		ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+		verify(bulk, times(3)).upsert(queries.capture(), updates.capture());
+
+		Map<String, Document> documents = new HashMap<>();
+		for (int i = 0; i < queries.getAllValues().size(); i++) {
+			documents.put(queries.getAllValues().get(i).getQueryObject().getString("_id"),
+					updates.getAllValues().get(i).getUpdateObject().get("$set", Document.class));
+		}
+		return documents;
+	}
+
+	private static long statusCount(Document rollup, OrderStatus status) {
+		Object count = rollup.get("statusCounts", Document.class).get(status.name());
+		return count != null ? ((Number) count).longValue() : 0;
+	}
+
+	private static Order order(String id, OrderStatus status, LocalDateTime updatedAt) {
+		BigDecimal price = new BigDecimal("150000");
+		Order order = new Order();
+		order.setId(id);
+		order.setUserId("u1");
+		order.setItems(List.of(new OrderItem("p1", "Extintor ABC 10kg", "c1", price, 1, price)));
+		order.setTotalItems(1);
+		order.setTotalAmount(price);
+		order.setStatus(status);
+		order.setCreatedAt(CREATED);
+		order.setUpdatedAt(updatedAt);
+		return order;
+	}
+}
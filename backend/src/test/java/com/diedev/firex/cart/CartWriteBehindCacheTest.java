@@ -0,0 +1,127 @@
+package com.diedev.firex.cart;
+
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.models.CartItem;
+import com.diedev.firex.repositories.CartRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartWriteBehindCacheTest {
+
+	private final CartRepository cartRepository = mock(CartRepository.class);
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final BulkOperations bulk = mock(BulkOperations.class);
+	private final CartWriteBehindCache cache = new CartWriteBehindCache(cartRepository, mongoTemplate, true, 1, 1800, 0, 500);
+
+	CartWriteBehindCacheTest() {
+		when(cartRepository.findByUserId(any())).thenReturn(Optional.empty());
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class)).thenReturn(bulk);
+	}
+
+	@Test
+	void changeMadeWhileTheBulkWriteRunsStaysDirty() {
+		cache.update("u1", cart -> cart.getItems().add(item("p1", 1)));
+
+		// Otro cambio llega después de copiar el carrito y antes de que termine el bulkWrite
+		doAnswer(invocation -> cache.update("u1", cart -> cart.getItems().add(item("p2", 1))))
+				.doReturn(null)
+				.when(bulk).execute();
+
+		cache.flush("u1");
+		assertEquals(1, cache.getStats().getDirty());
+
+		cache.flush("u1");
+		assertEquals(0, cache.getStats().getDirty());
+
+		ArgumentCaptor<Cart> written = ArgumentCaptor.forClass(Cart.class);
+		verify(bulk, times(2)).replaceOne(any(Query.class), written.capture(), any(FindAndReplaceOptions.class));
+		assertEquals(1, written.getAllValues().get(0).getItems().size());
+		assertEquals(2, written.getAllValues().get(1).getItems().size());
+	}
+
+	@Test
+	void failedWriteKeepsTheDirtyCartInTheCache() {
+		cache.update("u1", cart -> cart.getItems().add(item("p1", 2)));
+		when(bulk.execute()).thenThrow(new IllegalStateException("Mongo no disponible"));
+
+		// Ni el evict explícito ni el exceso de tamaño (máximo 1) pueden sacar un carrito sin escribir
+		cache.evict("u1");
+		cache.update("u2", cart -> cart.getItems().add(item("p1", 1)));
+
+		assertEquals(2, cache.getStats().getSize());
+		assertEquals(2, cache.getStats().getDirty());
+		int quantity = cache.read("u1", cart -> cart.getItems().get(0).getQuantity());
+		assertEquals(2, quantity);
+		verify(cartRepository, times(1)).findByUserId("u1");
+	}
+
+	@Test
+	void virtualCartIsNotWrittenUntilItChanges() {
+		boolean empty = cache.read("u1", cart -> cart.getItems().isEmpty());
+		assertTrue(empty);
+		assertEquals(0, cache.getStats().getDirty());
+
+		// Un carrito virtual no cuenta como existente
+		AtomicBoolean called = new AtomicBoolean();
+		assertFalse(cache.updateIfPresent("u1", cart -> called.getAndSet(true)).isPresent());
+		assertFalse(called.get());
+
+		cache.flushAll();
+		verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Cart.class));
+
+		cache.update("u1", cart -> cart.getItems().add(item("p1", 1)));
+		assertTrue(cache.updateIfPresent("u1", cart -> cart.getItems().size()).isPresent());
+		assertEquals(1, cache.getStats().getDirty());
+	}
+
+	@Test
+	void updateAndWriteIsDurableBeforeReturning() {
+		int size = cache.updateAndWrite("u1", cart -> {
+			cart.getItems().add(item("p1", 1));
+			return cart.getItems().size();
+		});
+
+		assertEquals(1, size);
+		assertEquals(0, cache.getStats().getDirty());
+		verify(bulk).execute();
+	}
+
+	@Test
+	void failedUpdateAndWriteUndoesTheChangeInMemory() {
+		cache.update("u1", cart -> cart.getItems().add(item("p1", 1)));
+		when(bulk.execute()).thenThrow(new IllegalStateException("Mongo no disponible"));
+
+		assertThrows(IllegalStateException.class,
+				() -> cache.updateAndWrite("u1", cart -> cart.getItems().add(item("p2", 3))));
+
+		int items = cache.read("u1", cart -> cart.getItems().size());
+		assertEquals(1, items);
+		assertEquals(1, cache.getStats().getDirty());
+	}
+
+	private static CartItem item(String productId, int quantity) {
+		BigDecimal price = new BigDecimal("150000");
+		return new CartItem(productId, "Extintor " + productId, price, quantity, price.multiply(BigDecimal.valueOf(quantity)));
+	}
+}
@@ -0,0 +1,128 @@
+package com.diedev.firex.cart;
+
+import com.diedev.firex.exception.InsufficientStockException;
+import com.diedev.firex.models.Producto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class StockReservationLedgerTest {
+
+	// "p1" y "p2" caen en franjas distintas
+	private final Producto extintor = producto("p1", "Extintor ABC 10kg", 5);
+	private final Producto gabinete = producto("p2", "Gabinete para extintor", 2);
+	private final Map<String, Producto> productos = Map.of("p1", extintor, "p2", gabinete);
+
+	private final StockReservationLedger ledger = ledger(900, 1000);
+
+	@Test
+	void reserveIsAllOrNothingAcrossStripes() {
+		ledger.reserve("u2", Map.of("p2", 1), productos);
+
+		// p1 tiene unidades, p2 no: no se reserva ninguno
+		assertThrows(InsufficientStockException.class,
+				() -> ledger.reserve("u1", quantities("p1", 3, "p2", 2), productos));
+
+		assertEquals(0, ledger.heldBy("u1", "p1"));
+		assertEquals(0, ledger.heldBy("u1", "p2"));
+		assertEquals(0, ledger.getReserved("p1"));
+		assertEquals(1, ledger.getReserved("p2"));
+		assertEquals(5, ledger.available(extintor));
+	}
+
+	@Test
+	void restoreUndoesAReservationWhoseWriteFailed() {
+		ledger.reserve("u1", Map.of("p1", 2), productos);
+
+		Map<String, Integer> previous = ledger.reserve("u1", quantities("p1", 4, "p2", 1), productos);
+		assertEquals(4, ledger.getReserved("p1"));
+		assertEquals(1, ledger.getReserved("p2"));
+
+		// El carrito no se pudo guardar: las reservas vuelven a como estaban
+		ledger.restore("u1", previous);
+
+		assertEquals(2, ledger.heldBy("u1", "p1"));
+		assertEquals(0, ledger.heldBy("u1", "p2"));
+		assertEquals(2, ledger.getReserved("p1"));
+		assertEquals(0, ledger.getReserved("p2"));
+	}
+
+	@Test
+	void reducingAHeldQuantityIsAllowedEvenBelowCurrentStock() {
+		ledger.reserve("u1", Map.of("p1", 5), productos);
+		assertThrows(InsufficientStockException.class, () -> ledger.reserve("u2", Map.of("p1", 1), productos));
+
+		// Otro checkout dejó el stock en 3: bajar de 5 a 4 igual se permite
+		extintor.setStock(3);
+		ledger.reserve("u1", Map.of("p1", 4), productos);
+		assertEquals(4, ledger.heldBy("u1", "p1"));
+		assertEquals(4, ledger.getReserved("p1"));
+
+		// Cantidad 0 libera la reserva
+		ledger.reserve("u1", Map.of("p1", 0), productos);
+		assertEquals(0, ledger.heldBy("u1", "p1"));
+		assertEquals(0, ledger.getReserved("p1"));
+		assertEquals(3, ledger.available(extintor));
+	}
+
+	@Test
+	void tickReleasesExpiredReservations() throws InterruptedException {
+		StockReservationLedger expiring = ledger(0, 1);
+		expiring.reserve("u1", quantities("p1", 3, "p2", 1), productos);
+		assertEquals(3, expiring.getReserved("p1"));
+
+		Thread.sleep(20);
+		expiring.tick();
+
+		assertEquals(0, expiring.heldBy("u1", "p1"));
+		assertEquals(0, expiring.getReserved("p1"));
+		assertEquals(0, expiring.getReserved("p2"));
+		assertEquals(2, expiring.getStats().getExpired());
+		assertEquals(0, expiring.getStats().getReservations());
+	}
+
+	@Test
+	void touchExtendsTheDeadline() throws InterruptedException {
+		StockReservationLedger expiring = ledger(1, 10);
+		expiring.reserve("u1", Map.of("p1", 2), productos);
+
+		Thread.sleep(600);
+		expiring.touch("u1");
+
+		// Pasó el vencimiento original: la reserva sigue porque hubo actividad
+		Thread.sleep(600);
+		expiring.tick();
+		assertEquals(2, expiring.heldBy("u1", "p1"));
+
+		// Sin más actividad vence en su nueva ranura
+		Thread.sleep(600);
+		expiring.tick();
+		assertEquals(0, expiring.heldBy("u1", "p1"));
+		assertEquals(0, expiring.getReserved("p1"));
+	}
+
+	private static StockReservationLedger ledger(long ttlSeconds, long tickMillis) {
+		return new StockReservationLedger(mock(MongoTemplate.class), true, ttlSeconds, tickMillis, 512, 500);
+	}
+
+	private static Map<String, Integer> quantities(String firstId, int first, String secondId, int second) {
+		Map<String, Integer> quantities = new LinkedHashMap<>();
+		quantities.put(firstId, first);
+		quantities.put(secondId, second);
+		return quantities;
+	}
+
+	private static Producto producto(String id, String name, int stock) {
+		Producto producto = new Producto();
+		producto.setId(id);
+		producto.setName(name);
+		producto.setStock(stock);
+		return producto;
+	}
+}
@@ -0,0 +1,45 @@
+package com.diedev.firex.catalog;
+
+import com.diedev.firex.dto.response.ProductResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+	private final ProductSearchIndex.Index index = new ProductSearchIndex.Index(List.of(
+			product("1", "Extintor ABC 10kg", "Polvo químico seco para incendios clase A, B y C"),
+			product("2", "Extintor CO2 5kg", "Dióxido de carbono para equipos eléctricos"),
+			product("3", "Gabinete para extintor", "Metálico con vidrio"),
+			product("4", "Señalización de extintor", "Aviso fotoluminiscente"),
+			product("5", "Soporte de pared", "Para colgar junto al gabinete")
+	));
+
+	@Test
+	void foldsAccentsInQueryAndDocuments() {
+		assertEquals(List.of("1"), ids(index.search(TextNormalizer.tokenize("QUIMICO"))));
+		assertEquals(List.of("4"), ids(index.search(TextNormalizer.tokenize("señalización"))));
+	}
+
+	@Test
+	void requiresAllTermsAndExpandsLastOneByPrefix() {
+		assertEquals(List.of("2"), ids(index.search(TextNormalizer.tokenize("extintor dióx"))));
+		assertTrue(index.search(TextNormalizer.tokenize("extintor manguera")).isEmpty());
+	}
+
+	@Test
+	void ranksNameMatchesAboveDescriptionMatches() {
+		assertEquals(List.of("3", "5"), ids(index.search(TextNormalizer.tokenize("gabinete"))));
+	}
+
+	private static List<String> ids(List<ProductResponse> products) {
+		return products.stream().map(ProductResponse::getId).toList();
+	}
+
+	private static ProductResponse product(String id, String name, String description) {
+		return ProductResponse.builder().id(id).name(name).description(description).build();
+	}
+}
@@ -0,0 +1,28 @@
+package com.diedev.firex.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesPeriodTest {
+
+	@Test
+	void weeksAreIsoAndCrossYearBoundaries() {
+		LocalDate start = SalesPeriod.WEEK.startOf(LocalDate.of(2027, 1, 1));
+
+		assertEquals(LocalDate.of(2026, 12, 28), start);
+		assertEquals("WEEK:2026-W53", SalesPeriod.WEEK.rollupId(start));
+		assertEquals(LocalDate.of(2027, 1, 4), SalesPeriod.WEEK.next(start));
+	}
+
+	@Test
+	void monthsAndDaysUseReadableKeys() {
+		LocalDate start = SalesPeriod.MONTH.startOf(LocalDate.of(2026, 10, 16));
+
+		assertEquals("MONTH:2026-10", SalesPeriod.MONTH.rollupId(start));
+		assertEquals(LocalDate.of(2026, 9, 1), SalesPeriod.MONTH.previous(start));
+		assertEquals("DAY:2026-10-16", SalesPeriod.DAY.rollupId(LocalDate.of(2026, 10, 16)));
+	}
+}
@@ -0,0 +1,107 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.models.Cart;
+import com.diedev.firex.models.CartItem;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartRepositoryCustomImplTest {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final CartRepositoryCustomImpl repository = new CartRepositoryCustomImpl(mongoTemplate);
+
+	private final List<CartItem> items = List.of(
+			new CartItem("p1", "Extintor ABC 10kg", new BigDecimal("150000"), 2, new BigDecimal("300000"))
+	);
+
+	@Test
+	void firstWriteToMissingCartSetsRevisionInsteadOfIncrementingNull() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Cart.class)))
+				.thenReturn(new Cart());
+
+		assertTrue(repository.replaceItems("u1", null, items).isPresent());
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+		verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(Cart.class));
+
+		// El filtro {revision: null} se copia al documento insertado por el upsert
+		assertTrue(query.getValue().getQueryObject().containsKey("revision"));
+		assertNull(query.getValue().getQueryObject().get("revision"));
+		assertTrue(options.getValue().isUpsert());
+
+		Document updateObject = update.getValue().getUpdateObject();
+		assertFalse(updateObject.containsKey("$inc"));
+		assertEquals(1L, updateObject.get("$set", Document.class).get("revision"));
+		assertEquals(2, updateObject.get("$set", Document.class).get("totalItems"));
+	}
+
+	@Test
+	void writeToStoredCartAdvancesTheReadRevision() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Cart.class)))
+				.thenReturn(new Cart());
+
+		repository.replaceItems("u1", 7L, items);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(Cart.class));
+
+		assertEquals(7L, query.getValue().getQueryObject().get("revision"));
+		assertEquals(8L, update.getValue().getUpdateObject().get("$set", Document.class).get("revision"));
+	}
+
+	@Test
+	void guestMergeIntoMissingCartSetsRevisionAndThenRemovesGuestCart() {
+		BulkOperations bulk = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Cart.class)).thenReturn(bulk);
+		when(bulk.upsert(any(Query.class), any(Update.class))).thenReturn(bulk);
+		when(bulk.remove(any(Query.class))).thenReturn(bulk);
+
+		assertTrue(repository.mergeGuestCart("u1", null, items, "guest-abc"));
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(bulk).upsert(any(Query.class), update.capture());
+		assertFalse(update.getValue().getUpdateObject().containsKey("$inc"));
+		assertEquals(1L, update.getValue().getUpdateObject().get("$set", Document.class).get("revision"));
+
+		ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+		verify(bulk).remove(removed.capture());
+		assertEquals("guest-abc", removed.getValue().getQueryObject().get("userId"));
+		verify(bulk).execute();
+	}
+
+	@Test
+	void claimOnlyMatchesCartsWithItemsAndReturnsThemAsTheyWere() {
+		repository.claimItems("u1");
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(), options.capture(), eq(Cart.class));
+
+		// Un segundo checkout del mismo carrito ya no lo encuentra
+		assertEquals(new Document("$exists", true), query.getValue().getQueryObject().get("items.0"));
+		assertFalse(options.getValue().isReturnNew());
+		assertFalse(options.getValue().isUpsert());
+	}
+}
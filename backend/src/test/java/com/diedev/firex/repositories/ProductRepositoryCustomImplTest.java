@@ -0,0 +1,85 @@
+package com.diedev.firex.repositories;
+
+import com.diedev.firex.models.Producto;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductRepositoryCustomImplTest {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final ProductRepositoryCustomImpl repository = new ProductRepositoryCustomImpl(mongoTemplate);
+
+	@Test
+	void decrementMarksEveryProductWithTheOrderWithoutSlicingTheHolds() {
+		BulkOperations bulk = mock(BulkOperations.class);
+		BulkWriteResult result = mock(BulkWriteResult.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Producto.class)).thenReturn(bulk);
+		when(bulk.execute()).thenReturn(result);
+		when(result.getModifiedCount()).thenReturn(1);
+
+		assertEquals(1, repository.decrementStock("o1", Map.of("p1", 2)));
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(bulk).updateOne(any(Query.class), update.capture());
+		Document push = update.getValue().getUpdateObject().get("$push", Document.class);
+		assertEquals("o1", push.get("stockHolds"));
+	}
+
+	@Test
+	void releaseOnlyPullsTheOrderHold() {
+		when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Producto.class)))
+				.thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+		assertEquals(2, repository.releaseStockHolds("o1", List.of("p1", "p2")));
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(Producto.class));
+		assertEquals("o1", query.getValue().getQueryObject().get("stockHolds"));
+		assertEquals(new Document("stockHolds", "o1"), update.getValue().getUpdateObject().get("$pull"));
+	}
+
+	@Test
+	void updateDetailsSetsEditableFieldsAndKeepsTheHolds() {
+		Producto producto = new Producto();
+		producto.setId("p1");
+		producto.setName("Extintor ABC 10kg");
+		producto.setPrice(new BigDecimal("150000"));
+		producto.setStock(8);
+		producto.setCategoryId("c1");
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Producto.class)))
+				.thenReturn(producto);
+
+		assertEquals(producto, repository.updateDetails(producto).orElseThrow());
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(Producto.class));
+		Document updateObject = update.getValue().getUpdateObject();
+		assertEquals(List.of("$set"), List.copyOf(updateObject.keySet()));
+		Document set = updateObject.get("$set", Document.class);
+		assertEquals(8, set.get("stock"));
+		assertEquals(new Decimal128(new BigDecimal("150000")), set.get("price"));
+		assertFalse(set.containsKey("stockHolds"));
+	}
+}
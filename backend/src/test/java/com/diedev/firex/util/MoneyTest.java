@@ -0,0 +1,32 @@
+package com.diedev.firex.util;
+
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+	@Test
+	void convertsWholePesosAndCentavos() {
+		assertEquals(15_000_000L, Money.toMinor(new BigDecimal("150000")));
+		assertEquals(1_999L, Money.toMinor(new BigDecimal("19.99")));
+		assertEquals(2L, Money.toMinor(new BigDecimal("0.015")));
+		assertEquals(0L, Money.toMinor((BigDecimal) null));
+	}
+
+	@Test
+	void keepsWholePesosWithoutDecimalsWhenConvertingBack() {
+		assertEquals(new BigDecimal("150000"), Money.toBigDecimal(15_000_000L));
+		assertEquals(new BigDecimal("19.99"), Money.toBigDecimal(1_999L));
+		assertEquals(new Decimal128(new BigDecimal("450000")), Money.of(new BigDecimal("150000")).times(3).toDecimal128());
+	}
+
+	@Test
+	void failsInsteadOfOverflowing() {
+		assertThrows(ArithmeticException.class, () -> Money.subtotal(Long.MAX_VALUE / 2, 3));
+	}
+}